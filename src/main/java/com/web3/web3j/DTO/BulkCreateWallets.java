@@ -0,0 +1,35 @@
+package com.web3.web3j.DTO;
+
+import java.util.List;
+
+public class BulkCreateWallets {
+    private String password;
+    // Either explicit names (one wallet each) ...
+    private List<String> walletNames;
+    // ... or a count of unnamed wallets
+    private Integer count;
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public List<String> getWalletNames() {
+        return walletNames;
+    }
+
+    public void setWalletNames(List<String> walletNames) {
+        this.walletNames = walletNames;
+    }
+
+    public Integer getCount() {
+        return count;
+    }
+
+    public void setCount(Integer count) {
+        this.count = count;
+    }
+}
@@ -0,0 +1,54 @@
+package com.web3.web3j.DTO;
+
+public class BulkWalletResult {
+    public enum Status { CREATED, FAILED }
+
+    private final int index;
+    private final String walletName;
+    private Status status;
+    private Long walletId;
+    private String address;
+    private String error;
+
+    public BulkWalletResult(int index, String walletName) {
+        this.index = index;
+        this.walletName = walletName;
+    }
+
+    public void created(Long walletId, String address) {
+        this.status = Status.CREATED;
+        this.walletId = walletId;
+        this.address = address;
+        this.error = null;
+    }
+
+    public void failed(String error) {
+        this.status = Status.FAILED;
+        this.walletId = null;
+        this.error = error;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getWalletName() {
+        return walletName;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Long getWalletId() {
+        return walletId;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,57 @@
+package com.web3.web3j.DTO;
+
+import java.time.Instant;
+
+// One line of the reconciliation export: a managed address and its owner, never the keystore
+public class WalletExportRow {
+    public static final String CSV_HEADER = "walletId,address,userId,walletName,createdAt";
+
+    private final Long walletId;
+    private final String address;
+    private final Long userId;
+    private final String walletName;
+    private final Instant createdAt;
+
+    public WalletExportRow(Long walletId, String address, Long userId, String walletName, Instant createdAt) {
+        this.walletId = walletId;
+        this.address = address;
+        this.userId = userId;
+        this.walletName = walletName;
+        this.createdAt = createdAt;
+    }
+
+    public String toCsvLine() {
+        return walletId + "," + address + "," + userId + "," + csvField(walletName) + "," + (createdAt == null ? "" : createdAt);
+    }
+
+    // Quote only when needed (RFC 4180), doubling embedded quotes
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    public Long getWalletId() {
+        return walletId;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getWalletName() {
+        return walletName;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,46 @@
+package com.web3.web3j.DTO;
+
+import java.time.Instant;
+
+// Wallet fields safe to list and return; built by JPQL constructor queries so the keystore LOB is never read
+public class WalletSummary {
+    private final Long id;
+    private final String address;
+    private final String walletName;
+    private final Integer derivationIndex;
+    private final String kdfProfile;
+    private final Instant createdAt;
+
+    public WalletSummary(Long id, String address, String walletName, Integer derivationIndex, String kdfProfile, Instant createdAt) {
+        this.id = id;
+        this.address = address;
+        this.walletName = walletName;
+        this.derivationIndex = derivationIndex;
+        this.kdfProfile = kdfProfile;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public String getWalletName() {
+        return walletName;
+    }
+
+    public Integer getDerivationIndex() {
+        return derivationIndex;
+    }
+
+    public String getKdfProfile() {
+        return kdfProfile;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
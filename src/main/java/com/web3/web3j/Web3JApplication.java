@@ -3,8 +3,10 @@ package com.web3.web3j;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class Web3JApplication {
     public static void main(String[] args) {
         SpringApplication.run(Web3JApplication.class, args);
@@ -0,0 +1,359 @@
+package com.web3.web3j.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "blockchain")
+public class BlockchainProperties {
+
+    // maximum number of calls packed into one JSON-RPC batch request
+    private int batchSize = 100;
+    private Tracker tracker = new Tracker();
+    private Head head = new Head();
+    private BalanceCache balanceCache = new BalanceCache();
+    private Http http = new Http();
+    private Pool pool = new Pool();
+    private Hedge hedge = new Hedge();
+    private Coalesce coalesce = new Coalesce();
+    private Gas gas = new Gas();
+    private GasEstimate gasEstimate = new GasEstimate();
+    private Multicall multicall = new Multicall();
+    private Scanner scanner = new Scanner();
+    private TransferLogs transferLogs = new TransferLogs();
+
+    public int getBatchSize() { return batchSize; }
+    public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+
+    public Tracker getTracker() { return tracker; }
+    public void setTracker(Tracker tracker) { this.tracker = tracker; }
+
+    public Head getHead() { return head; }
+    public void setHead(Head head) { this.head = head; }
+
+    public BalanceCache getBalanceCache() { return balanceCache; }
+    public void setBalanceCache(BalanceCache balanceCache) { this.balanceCache = balanceCache; }
+
+    public Http getHttp() { return http; }
+    public void setHttp(Http http) { this.http = http; }
+
+    public Pool getPool() { return pool; }
+    public void setPool(Pool pool) { this.pool = pool; }
+
+    public Hedge getHedge() { return hedge; }
+    public void setHedge(Hedge hedge) { this.hedge = hedge; }
+
+    public Coalesce getCoalesce() { return coalesce; }
+    public void setCoalesce(Coalesce coalesce) { this.coalesce = coalesce; }
+
+    public Gas getGas() { return gas; }
+    public void setGas(Gas gas) { this.gas = gas; }
+
+    public GasEstimate getGasEstimate() { return gasEstimate; }
+    public void setGasEstimate(GasEstimate gasEstimate) { this.gasEstimate = gasEstimate; }
+
+    public Multicall getMulticall() { return multicall; }
+    public void setMulticall(Multicall multicall) { this.multicall = multicall; }
+
+    public Scanner getScanner() { return scanner; }
+    public void setScanner(Scanner scanner) { this.scanner = scanner; }
+
+    public TransferLogs getTransferLogs() { return transferLogs; }
+    public void setTransferLogs(TransferLogs transferLogs) { this.transferLogs = transferLogs; }
+
+    public static class Tracker {
+        // receipts are checked on every new block; this is the fallback when no block has triggered a check for this long
+        private long pollIntervalMs = 30000;
+        // pending transactions older than this are reported as DROPPED
+        private long pendingTimeoutSeconds = 600;
+        // how long resolved transactions stay queryable
+        private long retentionSeconds = 3600;
+        // how long blocking send calls wait for the receipt before giving up (the transaction stays tracked)
+        private long waitTimeoutSeconds = 120;
+
+        public long getPollIntervalMs() { return pollIntervalMs; }
+        public void setPollIntervalMs(long pollIntervalMs) { this.pollIntervalMs = pollIntervalMs; }
+
+        public long getPendingTimeoutSeconds() { return pendingTimeoutSeconds; }
+        public void setPendingTimeoutSeconds(long pendingTimeoutSeconds) { this.pendingTimeoutSeconds = pendingTimeoutSeconds; }
+
+        public long getRetentionSeconds() { return retentionSeconds; }
+        public void setRetentionSeconds(long retentionSeconds) { this.retentionSeconds = retentionSeconds; }
+
+        public long getWaitTimeoutSeconds() { return waitTimeoutSeconds; }
+        public void setWaitTimeoutSeconds(long waitTimeoutSeconds) { this.waitTimeoutSeconds = waitTimeoutSeconds; }
+    }
+
+    public static class Head {
+        // how often the node is asked for the latest block number
+        private long pollIntervalMs = 1000;
+        // WebSocket endpoint for eth_subscribe("newHeads"); empty keeps to HTTP polling
+        private String wsUrl = "";
+        // first reconnect delay, doubled after each failed attempt up to maxReconnectDelayMs
+        private long reconnectDelayMs = 1000;
+        private long maxReconnectDelayMs = 30000;
+        // with no pushed head for this long, polling resumes and the socket is replaced
+        private long pushStaleMs = 30000;
+
+        public long getPollIntervalMs() { return pollIntervalMs; }
+        public void setPollIntervalMs(long pollIntervalMs) { this.pollIntervalMs = pollIntervalMs; }
+
+        public String getWsUrl() { return wsUrl; }
+        public void setWsUrl(String wsUrl) { this.wsUrl = wsUrl; }
+
+        public long getReconnectDelayMs() { return reconnectDelayMs; }
+        public void setReconnectDelayMs(long reconnectDelayMs) { this.reconnectDelayMs = reconnectDelayMs; }
+
+        public long getMaxReconnectDelayMs() { return maxReconnectDelayMs; }
+        public void setMaxReconnectDelayMs(long maxReconnectDelayMs) { this.maxReconnectDelayMs = maxReconnectDelayMs; }
+
+        public long getPushStaleMs() { return pushStaleMs; }
+        public void setPushStaleMs(long pushStaleMs) { this.pushStaleMs = pushStaleMs; }
+    }
+
+    public static class BalanceCache {
+        private boolean enabled = true;
+        // maximum number of addresses kept; least recently used entries are evicted first
+        private int maxSize = 10000;
+        // upper bound on entry age in case new heads stop arriving
+        private long ttlSeconds = 30;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public int getMaxSize() { return maxSize; }
+        public void setMaxSize(int maxSize) { this.maxSize = maxSize; }
+
+        public long getTtlSeconds() { return ttlSeconds; }
+        public void setTtlSeconds(long ttlSeconds) { this.ttlSeconds = ttlSeconds; }
+    }
+
+    public static class Http {
+        // threads that parse node responses and run async continuations; socket I/O needs none
+        private int threads = 4;
+        // cap on concurrent HTTP requests to the node; further calls wait in a queue
+        private int maxConcurrentRequests = 256;
+        private long connectTimeoutMs = 10000;
+        private long requestTimeoutMs = 30000;
+
+        public int getThreads() { return threads; }
+        public void setThreads(int threads) { this.threads = threads; }
+
+        public int getMaxConcurrentRequests() { return maxConcurrentRequests; }
+        public void setMaxConcurrentRequests(int maxConcurrentRequests) { this.maxConcurrentRequests = maxConcurrentRequests; }
+
+        public long getConnectTimeoutMs() { return connectTimeoutMs; }
+        public void setConnectTimeoutMs(long connectTimeoutMs) { this.connectTimeoutMs = connectTimeoutMs; }
+
+        public long getRequestTimeoutMs() { return requestTimeoutMs; }
+        public void setRequestTimeoutMs(long requestTimeoutMs) { this.requestTimeoutMs = requestTimeoutMs; }
+    }
+
+    public static class Pool {
+        // nodes tried for one idempotent read before giving up (writes are never retried)
+        private int maxAttempts = 3;
+        // consecutive transport failures that eject a node
+        private int failureThreshold = 3;
+        // how long an ejected node is left out of rotation
+        private long ejectionMs = 30000;
+
+        public int getMaxAttempts() { return maxAttempts; }
+        public void setMaxAttempts(int maxAttempts) { this.maxAttempts = maxAttempts; }
+
+        public int getFailureThreshold() { return failureThreshold; }
+        public void setFailureThreshold(int failureThreshold) { this.failureThreshold = failureThreshold; }
+
+        public long getEjectionMs() { return ejectionMs; }
+        public void setEjectionMs(long ejectionMs) { this.ejectionMs = ejectionMs; }
+    }
+
+    public static class Hedge {
+        // only applies when more than one node is configured
+        private boolean enabled = true;
+        // a second copy is sent once a read has taken longer than this percentile of recent reads
+        private double percentile = 95.0;
+        // delay used until enough samples have been seen for a method
+        private long initialDelayMs = 100;
+        // floor on the delay, so a fast node does not double the load on every blip
+        private long minDelayMs = 5;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public double getPercentile() { return percentile; }
+        public void setPercentile(double percentile) { this.percentile = percentile; }
+
+        public long getInitialDelayMs() { return initialDelayMs; }
+        public void setInitialDelayMs(long initialDelayMs) { this.initialDelayMs = initialDelayMs; }
+
+        public long getMinDelayMs() { return minDelayMs; }
+        public void setMinDelayMs(long minDelayMs) { this.minDelayMs = minDelayMs; }
+    }
+
+    public static class Coalesce {
+        // identical reads in flight at the same time share one RPC call
+        private boolean enabled = true;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    }
+
+    public static class Gas {
+        // urgency used for sends: low, medium or high
+        private String urgency = "medium";
+        // blocks of eth_feeHistory sampled on each new head
+        private int historyBlocks = 20;
+        // priority fee percentile of each block's transactions used for each urgency
+        private double lowPercentile = 10;
+        private double mediumPercentile = 50;
+        private double highPercentile = 90;
+        // max fee = next base fee * multiplier + priority fee; 2 survives six full blocks in a row
+        private double baseFeeMultiplier = 2.0;
+        // priority fee floor when recent blocks paid no tips
+        private long minPriorityFeeWei = 100_000_000L;
+        // suggestions older than this are refreshed on demand, in case new heads stop arriving
+        private long maxAgeMs = 30000;
+
+        public String getUrgency() { return urgency; }
+        public void setUrgency(String urgency) { this.urgency = urgency; }
+
+        public int getHistoryBlocks() { return historyBlocks; }
+        public void setHistoryBlocks(int historyBlocks) { this.historyBlocks = historyBlocks; }
+
+        public double getLowPercentile() { return lowPercentile; }
+        public void setLowPercentile(double lowPercentile) { this.lowPercentile = lowPercentile; }
+
+        public double getMediumPercentile() { return mediumPercentile; }
+        public void setMediumPercentile(double mediumPercentile) { this.mediumPercentile = mediumPercentile; }
+
+        public double getHighPercentile() { return highPercentile; }
+        public void setHighPercentile(double highPercentile) { this.highPercentile = highPercentile; }
+
+        public double getBaseFeeMultiplier() { return baseFeeMultiplier; }
+        public void setBaseFeeMultiplier(double baseFeeMultiplier) { this.baseFeeMultiplier = baseFeeMultiplier; }
+
+        public long getMinPriorityFeeWei() { return minPriorityFeeWei; }
+        public void setMinPriorityFeeWei(long minPriorityFeeWei) { this.minPriorityFeeWei = minPriorityFeeWei; }
+
+        public long getMaxAgeMs() { return maxAgeMs; }
+        public void setMaxAgeMs(long maxAgeMs) { this.maxAgeMs = maxAgeMs; }
+    }
+
+    public static class GasEstimate {
+        // added on top of eth_estimateGas, since the cost depends on storage state at execution time
+        private int marginPercent = 20;
+        // entries older than this are re-estimated in the background while still being served
+        private long refreshMs = 600000;
+        // maximum number of (contract, function) keys kept
+        private int maxSize = 1000;
+
+        public int getMarginPercent() { return marginPercent; }
+        public void setMarginPercent(int marginPercent) { this.marginPercent = marginPercent; }
+
+        public long getRefreshMs() { return refreshMs; }
+        public void setRefreshMs(long refreshMs) { this.refreshMs = refreshMs; }
+
+        public int getMaxSize() { return maxSize; }
+        public void setMaxSize(int maxSize) { this.maxSize = maxSize; }
+    }
+
+    public static class Multicall {
+        // Multicall3 is deployed at the same address on most chains; local dev chains need their own
+        private String address = "0xcA11bde05977b3631167028862bE2a173976CA11";
+        // calls packed into one aggregate3 eth_call; bounded by the node's eth_call gas cap
+        private int batchSize = 500;
+        // wallets x tokens allowed in one request
+        private int maxCalls = 10000;
+
+        public String getAddress() { return address; }
+        public void setAddress(String address) { this.address = address; }
+
+        public int getBatchSize() { return batchSize; }
+        public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+
+        public int getMaxCalls() { return maxCalls; }
+        public void setMaxCalls(int maxCalls) { this.maxCalls = maxCalls; }
+    }
+
+    public static class Scanner {
+        private boolean enabled = true;
+        // how often the scanner catches up with the chain head
+        private long pollIntervalMs = 2000;
+        // first block to index when there is no checkpoint yet; -1 starts at the current head
+        private long startBlock = -1;
+        // blocks fetched from the node concurrently
+        private int fetchBlocks = 10;
+        // upper bound on blocks indexed per run, so one run does not hold the scheduler for long
+        private int maxBlocksPerRun = 500;
+        // scanned block hashes kept for reorg detection; a deeper reorg cannot be unwound
+        private int reorgDepth = 128;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public long getPollIntervalMs() { return pollIntervalMs; }
+        public void setPollIntervalMs(long pollIntervalMs) { this.pollIntervalMs = pollIntervalMs; }
+
+        public long getStartBlock() { return startBlock; }
+        public void setStartBlock(long startBlock) { this.startBlock = startBlock; }
+
+        public int getFetchBlocks() { return fetchBlocks; }
+        public void setFetchBlocks(int fetchBlocks) { this.fetchBlocks = fetchBlocks; }
+
+        public int getMaxBlocksPerRun() { return maxBlocksPerRun; }
+        public void setMaxBlocksPerRun(int maxBlocksPerRun) { this.maxBlocksPerRun = maxBlocksPerRun; }
+
+        public int getReorgDepth() { return reorgDepth; }
+        public void setReorgDepth(int reorgDepth) { this.reorgDepth = reorgDepth; }
+    }
+
+    public static class TransferLogs {
+        private boolean enabled = true;
+        // how often the ingester catches up with the chain
+        private long pollIntervalMs = 5000;
+        // first block to read when there is no checkpoint yet; -1 starts at the current head
+        private long startBlock = -1;
+        // logs are only read this many blocks behind the head, so they are not undone by a reorg
+        private int confirmations = 12;
+        // eth_getLogs block range: the first one tried, and the bounds it adapts within
+        private int initialRange = 100;
+        private int minRange = 1;
+        private int maxRange = 5000;
+        // the range shrinks when a response has more logs than this, and grows when it has under half
+        private int targetLogs = 2000;
+        // upper bound on blocks read per run, so one run does not hold the scheduler for long
+        private int maxBlocksPerRun = 50000;
+        // up to this many managed addresses go into the topic filter; beyond it every Transfer is read and matched here
+        private int topicFilterMaxAddresses = 100;
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public long getPollIntervalMs() { return pollIntervalMs; }
+        public void setPollIntervalMs(long pollIntervalMs) { this.pollIntervalMs = pollIntervalMs; }
+
+        public long getStartBlock() { return startBlock; }
+        public void setStartBlock(long startBlock) { this.startBlock = startBlock; }
+
+        public int getConfirmations() { return confirmations; }
+        public void setConfirmations(int confirmations) { this.confirmations = confirmations; }
+
+        public int getInitialRange() { return initialRange; }
+        public void setInitialRange(int initialRange) { this.initialRange = initialRange; }
+
+        public int getMinRange() { return minRange; }
+        public void setMinRange(int minRange) { this.minRange = minRange; }
+
+        public int getMaxRange() { return maxRange; }
+        public void setMaxRange(int maxRange) { this.maxRange = maxRange; }
+
+        public int getTargetLogs() { return targetLogs; }
+        public void setTargetLogs(int targetLogs) { this.targetLogs = targetLogs; }
+
+        public int getMaxBlocksPerRun() { return maxBlocksPerRun; }
+        public void setMaxBlocksPerRun(int maxBlocksPerRun) { this.maxBlocksPerRun = maxBlocksPerRun; }
+
+        public int getTopicFilterMaxAddresses() { return topicFilterMaxAddresses; }
+        public void setTopicFilterMaxAddresses(int topicFilterMaxAddresses) { this.topicFilterMaxAddresses = topicFilterMaxAddresses; }
+    }
+}
@@ -0,0 +1,152 @@
+package com.web3.web3j.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.reactivex.Flowable;
+import org.web3j.protocol.ObjectMapperFactory;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.BatchRequest;
+import org.web3j.protocol.core.BatchResponse;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.websocket.events.Notification;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link Web3jService} decorator that lets concurrent identical reads share one RPC call.
+ * Calls are keyed by method, parameters (which include the block tag) and response type; while
+ * one is in flight, the same call from other threads waits for its result instead of going to
+ * the node. The entry is removed as soon as the call completes, so nothing is cached: a call
+ * that starts after the answer arrived always asks the node again.
+ * <p>
+ * Only side-effect-free methods are coalesced. Each caller gets its own future, so one caller
+ * cancelling does not affect the others. Callers share the same response object and must not
+ * modify it.
+ */
+public class CoalescingWeb3jService implements Web3jService {
+
+    private static final Set<String> COALESCED = Set.of(
+            "eth_getBalance", "eth_call", "eth_getTransactionReceipt", "eth_getTransactionCount",
+            "eth_blockNumber", "eth_gasPrice", "eth_chainId", "eth_getCode", "eth_getBlockByNumber",
+            "eth_estimateGas", "eth_feeHistory", "eth_maxPriorityFeePerGas");
+
+    private final Web3jService delegate;
+    private final BlockchainProperties.Coalesce settings;
+    private final ObjectMapper objectMapper = ObjectMapperFactory.getObjectMapper();
+    private final Map<String, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public CoalescingWeb3jService(Web3jService delegate, BlockchainProperties properties) {
+        this.delegate = delegate;
+        this.settings = properties.getCoalesce();
+    }
+
+    @Override
+    public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+        String key = keyOf(request, responseType);
+        if (key == null) {
+            return delegate.send(request, responseType);
+        }
+        return PooledWeb3jService.await(coalesce(key, request, responseType));
+    }
+
+    @Override
+    public <T extends Response> CompletableFuture<T> sendAsync(Request request, Class<T> responseType) {
+        String key = keyOf(request, responseType);
+        if (key == null) {
+            return delegate.sendAsync(request, responseType);
+        }
+        return coalesce(key, request, responseType);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Response> CompletableFuture<T> coalesce(String key, Request request, Class<T> responseType) {
+        calls.incrementAndGet();
+        CompletableFuture<T> shared = new CompletableFuture<>();
+        CompletableFuture<T> existing = (CompletableFuture<T>) inFlight.putIfAbsent(key, shared);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return copyOf(existing);
+        }
+        CompletableFuture<T> call;
+        try {
+            call = delegate.sendAsync(request, responseType);
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+        call.whenComplete((response, error) -> {
+            // Removed before completing, so a caller arriving after the answer starts a new call
+            inFlight.remove(key, shared);
+            if (error != null) {
+                shared.completeExceptionally(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            } else {
+                shared.complete(response);
+            }
+        });
+        return copyOf(shared);
+    }
+
+    private static <T> CompletableFuture<T> copyOf(CompletableFuture<T> shared) {
+        CompletableFuture<T> copy = new CompletableFuture<>();
+        shared.whenComplete((response, error) -> {
+            if (error != null) {
+                copy.completeExceptionally(error);
+            } else {
+                copy.complete(response);
+            }
+        });
+        return copy;
+    }
+
+    // null when the call must not be shared
+    private String keyOf(Request<?, ?> request, Class<?> responseType) {
+        if (!settings.isEnabled() || !COALESCED.contains(request.getMethod())) {
+            return null;
+        }
+        try {
+            return request.getMethod() + ':' + responseType.getName() + ':' + objectMapper.writeValueAsString(request.getParams());
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public BatchResponse sendBatch(BatchRequest batchRequest) throws IOException {
+        return delegate.sendBatch(batchRequest);
+    }
+
+    @Override
+    public CompletableFuture<BatchResponse> sendBatchAsync(BatchRequest batchRequest) {
+        return delegate.sendBatchAsync(batchRequest);
+    }
+
+    @Override
+    public <T extends Notification<?>> Flowable<T> subscribe(Request request, String unsubscribeMethod, Class<T> responseType) {
+        return delegate.subscribe(request, unsubscribeMethod, responseType);
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    public Map<String, Object> getStats() {
+        long total = calls.get();
+        long shared = coalesced.get();
+        return Map.of(
+                "enabled", settings.isEnabled(),
+                "calls", total,
+                "coalesced", shared,
+                "coalescedRate", total == 0 ? 0.0 : (double) shared / total,
+                "inFlight", inFlight.size());
+    }
+}
@@ -0,0 +1,253 @@
+package com.web3.web3j.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.web3j.protocol.Service;
+import org.web3j.protocol.core.BatchRequest;
+import org.web3j.protocol.core.BatchResponse;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.exceptions.ClientConnectionException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * web3j transport on the JDK {@link HttpClient}. web3j's own HttpService implements
+ * {@code sendAsync} by running the blocking OkHttp call on a cached thread pool, so every
+ * in-flight RPC still holds a thread. Here async calls go through {@link HttpClient#sendAsync},
+ * whose socket I/O is driven by a selector, so thousands of outstanding calls only need the few
+ * threads that parse responses. Concurrent requests are capped so a burst does not open
+ * thousands of connections to the node; calls over the cap wait in a queue without a thread.
+ */
+public class JdkHttpService extends Service {
+
+    private static final String JSON = "application/json; charset=UTF-8";
+
+    private final URI uri;
+    private final Duration requestTimeout;
+    private final ExecutorService executor;
+    private final HttpClient httpClient;
+    private final Semaphore permits;
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+
+    public JdkHttpService(String url, BlockchainProperties.Http settings) {
+        super(false);
+        this.uri = URI.create(url);
+        this.requestTimeout = Duration.ofMillis(settings.getRequestTimeoutMs());
+        this.permits = new Semaphore(Math.max(1, settings.getMaxConcurrentRequests()));
+        AtomicInteger threadIds = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, settings.getThreads()), runnable -> {
+            Thread thread = new Thread(runnable, "web3j-http-" + threadIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(settings.getConnectTimeoutMs()))
+                .executor(executor)
+                .build();
+    }
+
+    public String getUrl() {
+        return uri.toString();
+    }
+
+    @Override
+    protected InputStream performIO(String payload) throws IOException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a connection to " + uri);
+        }
+        try {
+            HttpResponse<byte[]> response = httpClient.send(post(payload), HttpResponse.BodyHandlers.ofByteArray());
+            return new ByteArrayInputStream(checkStatus(response));
+        } catch (ConnectException e) {
+            throw connectFailure(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted calling " + uri);
+        } finally {
+            release();
+        }
+    }
+
+    @Override
+    public <T extends Response> CompletableFuture<T> sendAsync(Request request, Class<T> responseType) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(request);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<byte[]> body = postAsync(payload);
+        return cancelling(body, body.thenApply(bytes -> {
+            try {
+                return objectMapper.readValue(bytes, responseType);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+    }
+
+    @Override
+    public CompletableFuture<BatchResponse> sendBatchAsync(BatchRequest batchRequest) {
+        List<Request<?, ? extends Response<?>>> requests = batchRequest.getRequests();
+        if (requests.isEmpty()) {
+            return CompletableFuture.completedFuture(new BatchResponse(Collections.emptyList(), Collections.emptyList()));
+        }
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(requests);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<byte[]> body = postAsync(payload);
+        return cancelling(body, body.thenApply(bytes -> {
+            try {
+                return new BatchResponse(requests, readBatch(requests, bytes));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+    }
+
+    // Responses may come back in any order, so each one is typed by the request with its id
+    private List<Response<?>> readBatch(List<Request<?, ? extends Response<?>>> requests, byte[] body) throws IOException {
+        JsonNode nodes = objectMapper.readTree(body);
+        if (!nodes.isArray()) {
+            throw new IOException("Expected a batch response array but got: " + nodes);
+        }
+        Map<Long, Class<? extends Response<?>>> typesById = new HashMap<>();
+        for (Request<?, ? extends Response<?>> request : requests) {
+            typesById.put(request.getId(), request.getResponseType());
+        }
+        List<Response<?>> responses = new ArrayList<>(nodes.size());
+        for (JsonNode node : nodes) {
+            Class<? extends Response<?>> type = typesById.get(node.path("id").asLong());
+            if (type != null) {
+                responses.add(objectMapper.treeToValue(node, type));
+            }
+        }
+        return responses;
+    }
+
+    private CompletableFuture<byte[]> postAsync(String payload) {
+        CompletableFuture<byte[]> result = new CompletableFuture<>();
+        Runnable call = () -> {
+            // Cancelled while waiting for a permit
+            if (result.isDone()) {
+                release();
+                return;
+            }
+            CompletableFuture<HttpResponse<byte[]>> response;
+            try {
+                response = httpClient.sendAsync(post(payload), HttpResponse.BodyHandlers.ofByteArray());
+            } catch (RuntimeException e) {
+                release();
+                result.completeExceptionally(e);
+                return;
+            }
+            response.whenComplete((httpResponse, error) -> {
+                release();
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                    result.completeExceptionally(cause instanceof ConnectException ? connectFailure(cause) : cause);
+                    return;
+                }
+                try {
+                    result.complete(checkStatus(httpResponse));
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            });
+            cancelling(response, result);
+        };
+        if (permits.tryAcquire()) {
+            call.run();
+        } else {
+            waiting.add(call);
+            // A permit may have been released between tryAcquire and add
+            drainWaiting();
+        }
+        return result;
+    }
+
+    // Cancelling the returned future (e.g. the losing copy of a hedged read) aborts the HTTP exchange
+    private static <T> CompletableFuture<T> cancelling(CompletableFuture<?> source, CompletableFuture<T> derived) {
+        derived.whenComplete((value, error) -> {
+            if (derived.isCancelled()) {
+                source.cancel(true);
+            }
+        });
+        return derived;
+    }
+
+    private void release() {
+        permits.release();
+        drainWaiting();
+    }
+
+    private void drainWaiting() {
+        while (!waiting.isEmpty() && permits.tryAcquire()) {
+            Runnable next = waiting.poll();
+            if (next == null) {
+                permits.release();
+                return;
+            }
+            next.run();
+        }
+    }
+
+    private HttpRequest post(String payload) {
+        return HttpRequest.newBuilder(uri)
+                .timeout(requestTimeout)
+                .header("Content-Type", JSON)
+                .POST(HttpRequest.BodyPublishers.ofString(payload, StandardCharsets.UTF_8))
+                .build();
+    }
+
+    // The JDK client reports refused connections without a message
+    private ConnectException connectFailure(Throwable cause) {
+        ConnectException failure = new ConnectException("Failed to connect to " + uri);
+        failure.initCause(cause);
+        return failure;
+    }
+
+    private static byte[] checkStatus(HttpResponse<byte[]> response) {
+        if (response.statusCode() / 100 != 2) {
+            throw new ClientConnectionException("Invalid response received: " + response.statusCode() + "; "
+                    + new String(response.body(), StandardCharsets.UTF_8));
+        }
+        return response.body();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
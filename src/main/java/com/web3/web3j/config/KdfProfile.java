@@ -0,0 +1,24 @@
+package com.web3.web3j.config;
+
+/**
+ * Scrypt cost presets for new wallet keystores. r is fixed at 8 by web3j's keystore writer,
+ * so only N and p vary; CUSTOM takes them from {@code wallets.kdf.n} / {@code wallets.kdf.p}.
+ */
+public enum KdfProfile {
+    // geth/web3j "standard" keystore: ~256 MB and a few hundred ms per run
+    STANDARD(262144, 1),
+    // web3j "light" keystore: ~4 MB per run, for test networks and low-value hot wallets
+    LIGHT(4096, 6),
+    CUSTOM(0, 0);
+
+    private final int n;
+    private final int p;
+
+    KdfProfile(int n, int p) {
+        this.n = n;
+        this.p = p;
+    }
+
+    public int getN() { return n; }
+    public int getP() { return p; }
+}
@@ -0,0 +1,54 @@
+package com.web3.web3j.config;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size ring of the most recent latency samples, used to pick the hedging delay for an
+ * RPC method. The percentile is recomputed every few samples rather than on every read.
+ */
+final class LatencyWindow {
+
+    private static final int RECOMPUTE_EVERY = 16;
+
+    private final long[] samples;
+    private int next;
+    private int count;
+    private int sinceRecompute;
+    private double cachedPercentile = -1;
+    private long cachedValue;
+
+    LatencyWindow(int size) {
+        this.samples = new long[size];
+    }
+
+    synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+        sinceRecompute++;
+    }
+
+    synchronized int size() {
+        return count;
+    }
+
+    /**
+     * The given percentile (0-100) of the samples in the window, or -1 when it is empty.
+     */
+    synchronized long percentile(double percentile) {
+        if (count == 0) {
+            return -1;
+        }
+        if (sinceRecompute >= RECOMPUTE_EVERY || percentile != cachedPercentile || cachedPercentile < 0) {
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+            cachedValue = sorted[Math.max(0, Math.min(count - 1, index))];
+            cachedPercentile = percentile;
+            sinceRecompute = 0;
+        }
+        return cachedValue;
+    }
+}
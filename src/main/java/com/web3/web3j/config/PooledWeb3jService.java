@@ -0,0 +1,503 @@
+package com.web3.web3j.config;
+
+import io.reactivex.Flowable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.BatchRequest;
+import org.web3j.protocol.core.BatchResponse;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.websocket.events.Notification;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * {@link Web3jService} that spreads calls over several RPC nodes.
+ * <ul>
+ *   <li>Each call goes to the better of two randomly chosen healthy nodes, scored by a moving
+ *   average of their latency times their in-flight calls, so slow or busy nodes get less traffic.</li>
+ *   <li>Transport failures (connection errors, timeouts, HTTP errors) count against a node; after
+ *   {@code blockchain.pool.failure-threshold} in a row it is ejected for {@code blockchain.pool.ejection-ms}.
+ *   JSON-RPC error responses are answers, not node failures.</li>
+ *   <li>Reads are retried on another node after a transport failure. Writes
+ *   ({@code eth_sendRawTransaction}, {@code eth_sendTransaction}) are sent once, since the first
+ *   node may have accepted the transaction before failing.</li>
+ *   <li>{@code eth_getBalance}, {@code eth_call} and {@code eth_getTransactionReceipt} are hedged:
+ *   if the first node has not answered within {@code blockchain.hedge.percentile} of that method's
+ *   recent latency, a copy goes to a second node. The first answer wins and the other call is cancelled.</li>
+ * </ul>
+ */
+public class PooledWeb3jService implements Web3jService {
+    private static final Logger log = LoggerFactory.getLogger(PooledWeb3jService.class);
+
+    private static final Set<String> NON_IDEMPOTENT = Set.of("eth_sendRawTransaction", "eth_sendTransaction");
+    private static final Set<String> HEDGED = Set.of("eth_getBalance", "eth_call", "eth_getTransactionReceipt");
+    // latency samples kept per hedged method, and how many are needed before the percentile is trusted
+    private static final int LATENCY_WINDOW = 512;
+    private static final int MIN_SAMPLES = 20;
+    // weight of the newest sample in the latency moving average
+    private static final double EWMA_WEIGHT = 0.3;
+
+    private final List<Node> nodes;
+    private final BlockchainProperties.Pool settings;
+    private final BlockchainProperties.Hedge hedgeSettings;
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+    private final ScheduledThreadPoolExecutor hedgeTimer;
+
+    private final AtomicLong hedgeEligible = new AtomicLong();
+    private final AtomicLong hedgesFired = new AtomicLong();
+    private final AtomicLong hedgesWon = new AtomicLong();
+
+    /**
+     * @param services node URL (or any label) to the service that talks to it, in configuration order
+     */
+    public PooledWeb3jService(Map<String, ? extends Web3jService> services, BlockchainProperties properties) {
+        if (services.isEmpty()) {
+            throw new IllegalArgumentException("At least one RPC node is required");
+        }
+        this.settings = properties.getPool();
+        this.hedgeSettings = properties.getHedge();
+        List<Node> list = new ArrayList<>();
+        services.forEach((url, service) -> list.add(new Node(url, service)));
+        this.nodes = List.copyOf(list);
+        this.hedgeTimer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "web3j-hedge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.hedgeTimer.setRemoveOnCancelPolicy(true);
+    }
+
+    @Override
+    public <T extends Response> T send(Request request, Class<T> responseType) throws IOException {
+        if (isHedged(request)) {
+            return await(sendAsync(request, responseType));
+        }
+        return sendWithRetry(attemptsFor(isIdempotent(request)), service -> service.send(request, responseType));
+    }
+
+    @Override
+    public <T extends Response> CompletableFuture<T> sendAsync(Request request, Class<T> responseType) {
+        if (isHedged(request)) {
+            return new HedgedCall<T>(request.getMethod(), service -> service.sendAsync(request, responseType)).start();
+        }
+        return sendAsyncWithRetry(attemptsFor(isIdempotent(request)), new HashSet<>(),
+                service -> service.sendAsync(request, responseType));
+    }
+
+    @Override
+    public BatchResponse sendBatch(BatchRequest batchRequest) throws IOException {
+        return sendWithRetry(attemptsFor(isIdempotent(batchRequest)), service -> service.sendBatch(batchRequest));
+    }
+
+    @Override
+    public CompletableFuture<BatchResponse> sendBatchAsync(BatchRequest batchRequest) {
+        return sendAsyncWithRetry(attemptsFor(isIdempotent(batchRequest)), new HashSet<>(),
+                service -> service.sendBatchAsync(batchRequest));
+    }
+
+    @Override
+    public <T extends Notification<?>> Flowable<T> subscribe(Request request, String unsubscribeMethod, Class<T> responseType) {
+        throw new UnsupportedOperationException("Subscriptions are not supported over the HTTP node pool");
+    }
+
+    @Override
+    public void close() throws IOException {
+        hedgeTimer.shutdownNow();
+        for (Node node : nodes) {
+            node.service.close();
+        }
+    }
+
+    // Per-node counters for monitoring
+    public List<Map<String, Object>> getNodeStats() {
+        long now = System.nanoTime();
+        List<Map<String, Object>> stats = new ArrayList<>(nodes.size());
+        for (Node node : nodes) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("url", node.url);
+            entry.put("healthy", node.isHealthy(now));
+            entry.put("latencyMs", node.ewmaNanos / 1_000_000.0);
+            entry.put("inFlight", node.inFlight.get());
+            entry.put("requests", node.requests.get());
+            entry.put("failures", node.failures.get());
+            entry.put("ejections", node.ejections.get());
+            stats.add(entry);
+        }
+        return stats;
+    }
+
+    // How often hedging applied, fired a second copy, and how often that copy answered first
+    public Map<String, Object> getHedgeStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", hedgeSettings.isEnabled() && nodes.size() > 1);
+        stats.put("eligible", hedgeEligible.get());
+        stats.put("fired", hedgesFired.get());
+        stats.put("won", hedgesWon.get());
+        Map<String, Double> delays = new LinkedHashMap<>();
+        for (String method : HEDGED) {
+            delays.put(method, hedgeDelayNanos(method) / 1_000_000.0);
+        }
+        stats.put("delayMs", delays);
+        return stats;
+    }
+
+    private <T> T sendWithRetry(int attempts, NodeCall<T> call) throws IOException {
+        Set<Node> tried = new HashSet<>();
+        Exception last = null;
+        for (int attempt = 0; attempt < attempts; attempt++) {
+            Node node = pick(tried);
+            tried.add(node);
+            long start = node.begin();
+            try {
+                T result = call.send(node.service);
+                node.succeeded(start);
+                return result;
+            } catch (IOException | RuntimeException e) {
+                node.failed(start, e);
+                last = e;
+            }
+        }
+        if (last instanceof IOException io) {
+            throw io;
+        }
+        throw (RuntimeException) last;
+    }
+
+    private <T> CompletableFuture<T> sendAsyncWithRetry(int attemptsLeft, Set<Node> tried,
+                                                         Function<Web3jService, CompletableFuture<T>> call) {
+        Node node = pick(tried);
+        tried.add(node);
+        long start = node.begin();
+        CompletableFuture<T> future;
+        try {
+            future = call.apply(node.service);
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        return future.handle((result, error) -> {
+            if (error == null) {
+                node.succeeded(start);
+                return CompletableFuture.completedFuture(result);
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            node.failed(start, cause);
+            if (attemptsLeft > 1) {
+                return sendAsyncWithRetry(attemptsLeft - 1, tried, call);
+            }
+            return CompletableFuture.<T>failedFuture(cause);
+        }).thenCompose(next -> next);
+    }
+
+    // Blocking wait on an RPC future, rethrowing what the node call failed with
+    static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for an RPC node");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private boolean isHedged(Request<?, ?> request) {
+        return hedgeSettings.isEnabled() && nodes.size() > 1 && HEDGED.contains(request.getMethod());
+    }
+
+    private LatencyWindow latencyOf(String method) {
+        return latencies.computeIfAbsent(method, m -> new LatencyWindow(LATENCY_WINDOW));
+    }
+
+    private long hedgeDelayNanos(String method) {
+        LatencyWindow window = latencyOf(method);
+        long delay = window.size() < MIN_SAMPLES
+                ? TimeUnit.MILLISECONDS.toNanos(hedgeSettings.getInitialDelayMs())
+                : window.percentile(hedgeSettings.getPercentile());
+        return Math.max(delay, TimeUnit.MILLISECONDS.toNanos(hedgeSettings.getMinDelayMs()));
+    }
+
+    private int attemptsFor(boolean idempotent) {
+        return idempotent ? Math.max(1, Math.min(settings.getMaxAttempts(), nodes.size())) : 1;
+    }
+
+    private static boolean isIdempotent(Request<?, ?> request) {
+        return !NON_IDEMPOTENT.contains(request.getMethod());
+    }
+
+    private static boolean isIdempotent(BatchRequest batchRequest) {
+        return batchRequest.getRequests().stream().allMatch(PooledWeb3jService::isIdempotent);
+    }
+
+    /**
+     * Power of two choices over healthy nodes not yet tried for this call. If every untried node
+     * is ejected, the ejected ones are used anyway rather than failing without trying.
+     */
+    private Node pick(Set<Node> tried) {
+        long now = System.nanoTime();
+        List<Node> candidates = new ArrayList<>(nodes.size());
+        for (Node node : nodes) {
+            if (!tried.contains(node) && node.isHealthy(now)) {
+                candidates.add(node);
+            }
+        }
+        if (candidates.isEmpty()) {
+            for (Node node : nodes) {
+                if (!tried.contains(node)) {
+                    candidates.add(node);
+                }
+            }
+        }
+        if (candidates.isEmpty()) {
+            candidates.addAll(nodes);
+        }
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        Node a = candidates.get(first);
+        Node b = candidates.get(second);
+        return a.score() <= b.score() ? a : b;
+    }
+
+    /**
+     * One hedged read. The first copy goes out at once and a second after the hedge delay if the
+     * first is still pending. A copy that fails before the other answers is retried on an untried
+     * node, within the same attempt limit as unhedged reads.
+     */
+    private final class HedgedCall<T> {
+        final String method;
+        final Function<Web3jService, CompletableFuture<T>> call;
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final Set<Node> tried = new HashSet<>();
+        final List<CompletableFuture<T>> copies = new ArrayList<>();
+        final int maxAttempts = attemptsFor(true);
+        final long startNanos = System.nanoTime();
+        int pending;
+        boolean hedged;
+        ScheduledFuture<?> timer;
+
+        HedgedCall(String method, Function<Web3jService, CompletableFuture<T>> call) {
+            this.method = method;
+            this.call = call;
+        }
+
+        CompletableFuture<T> start() {
+            hedgeEligible.incrementAndGet();
+            launch(false);
+            synchronized (this) {
+                if (!result.isDone()) {
+                    timer = hedgeTimer.schedule(this::hedge, hedgeDelayNanos(method), TimeUnit.NANOSECONDS);
+                }
+            }
+            // The caller giving up cancels whatever is still in flight
+            result.whenComplete((value, error) -> finish());
+            return result;
+        }
+
+        void hedge() {
+            synchronized (this) {
+                if (result.isDone() || hedged || tried.size() >= maxAttempts) {
+                    return;
+                }
+                hedged = true;
+            }
+            hedgesFired.incrementAndGet();
+            launch(true);
+        }
+
+        void launch(boolean isHedge) {
+            Node node;
+            synchronized (this) {
+                node = pick(tried);
+                tried.add(node);
+                pending++;
+            }
+            long start = node.begin();
+            CompletableFuture<T> copy;
+            try {
+                copy = call.apply(node.service);
+            } catch (RuntimeException e) {
+                copy = CompletableFuture.failedFuture(e);
+            }
+            boolean late;
+            synchronized (this) {
+                copies.add(copy);
+                late = result.isDone();
+            }
+            if (late) {
+                copy.cancel(true);
+            }
+            copy.whenComplete((value, error) -> completed(node, start, isHedge, value, error));
+        }
+
+        void completed(Node node, long start, boolean isHedge, T value, Throwable error) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof CancellationException) {
+                node.cancelled();
+                return;
+            }
+            if (cause == null) {
+                node.succeeded(start);
+                if (result.complete(value)) {
+                    latencyOf(method).record(System.nanoTime() - startNanos);
+                    if (isHedge) {
+                        hedgesWon.incrementAndGet();
+                    }
+                }
+                return;
+            }
+            node.failed(start, cause);
+            boolean retry;
+            synchronized (this) {
+                pending--;
+                if (result.isDone() || pending > 0) {
+                    return;
+                }
+                retry = tried.size() < maxAttempts;
+            }
+            if (retry) {
+                launch(isHedge);
+            } else {
+                result.completeExceptionally(cause);
+            }
+        }
+
+        void finish() {
+            List<CompletableFuture<T>> losers;
+            synchronized (this) {
+                if (timer != null) {
+                    timer.cancel(false);
+                }
+                losers = new ArrayList<>(copies);
+            }
+            for (CompletableFuture<T> copy : losers) {
+                copy.cancel(true);
+            }
+        }
+    }
+
+    private interface NodeCall<T> {
+        T send(Web3jService service) throws IOException;
+    }
+
+    private final class Node {
+        final String url;
+        final Web3jService service;
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger consecutiveFailures = new AtomicInteger();
+        final AtomicLong requests = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong ejections = new AtomicLong();
+        // 0 until the first sample, so untried nodes are preferred
+        volatile double ewmaNanos;
+        volatile long ejectedAtNanos;
+        volatile long ejectedUntilNanos;
+        volatile boolean ejected;
+
+        Node(String url, Web3jService service) {
+            this.url = url;
+            this.service = service;
+        }
+
+        boolean isHealthy(long now) {
+            return !ejected || now - ejectedUntilNanos >= 0;
+        }
+
+        double score() {
+            return (ewmaNanos + 1) * (inFlight.get() + 1);
+        }
+
+        long begin() {
+            requests.incrementAndGet();
+            inFlight.incrementAndGet();
+            return System.nanoTime();
+        }
+
+        void succeeded(long start) {
+            inFlight.decrementAndGet();
+            recordLatency(System.nanoTime() - start);
+            synchronized (this) {
+                // A late reply to a call sent before the ejection does not reinstate the node
+                if (!ejected || start - ejectedAtNanos >= 0) {
+                    consecutiveFailures.set(0);
+                    ejected = false;
+                }
+            }
+        }
+
+        // A hedged copy that lost the race says nothing about the node's health or speed
+        void cancelled() {
+            inFlight.decrementAndGet();
+        }
+
+        // Failures also feed the latency average, so a node that times out scores as slow.
+        // A node back from ejection stays on probation: if a call sent after the ejection ended fails
+        // before one succeeds, it is ejected again. Failures of calls sent earlier (late replies, or
+        // calls it got while ejected because every node was) were already accounted for.
+        void failed(long start, Throwable error) {
+            inFlight.decrementAndGet();
+            recordLatency(System.nanoTime() - start);
+            failures.incrementAndGet();
+            boolean eject;
+            synchronized (this) {
+                if (ejections.get() > 0 && start - ejectedAtNanos < 0) {
+                    eject = false;
+                } else if (ejected) {
+                    eject = start - ejectedUntilNanos >= 0;
+                } else {
+                    eject = consecutiveFailures.incrementAndGet() >= settings.getFailureThreshold();
+                }
+                if (eject) {
+                    consecutiveFailures.set(0);
+                    ejectedAtNanos = System.nanoTime();
+                    ejectedUntilNanos = ejectedAtNanos + TimeUnit.MILLISECONDS.toNanos(settings.getEjectionMs());
+                    ejected = true;
+                    ejections.incrementAndGet();
+                }
+            }
+            if (eject) {
+                log.warn("Ejecting RPC node {} for {} ms after repeated failures: {}", url, settings.getEjectionMs(), error.getMessage());
+            } else {
+                log.debug("RPC node {} call failed: {}", url, error.getMessage());
+            }
+        }
+
+        synchronized void recordLatency(long nanos) {
+            ewmaNanos = ewmaNanos == 0 ? nanos : ewmaNanos + EWMA_WEIGHT * (nanos - ewmaNanos);
+        }
+    }
+}
@@ -11,6 +11,10 @@ import java.util.List;
 public class WalletProperties {
 
     private List<WalletEntry> entries = new ArrayList<>();
+    private Session session = new Session();
+    private Kdf kdf = new Kdf();
+    private Bulk bulk = new Bulk();
+    private Export export = new Export();
 
     public List<WalletEntry> getEntries() {
         return entries;
@@ -20,6 +24,38 @@ public class WalletProperties {
         this.entries = entries;
     }
 
+    public Session getSession() {
+        return session;
+    }
+
+    public void setSession(Session session) {
+        this.session = session;
+    }
+
+    public Kdf getKdf() {
+        return kdf;
+    }
+
+    public void setKdf(Kdf kdf) {
+        this.kdf = kdf;
+    }
+
+    public Bulk getBulk() {
+        return bulk;
+    }
+
+    public void setBulk(Bulk bulk) {
+        this.bulk = bulk;
+    }
+
+    public Export getExport() {
+        return export;
+    }
+
+    public void setExport(Export export) {
+        this.export = export;
+    }
+
     public static class WalletEntry {
         // optional identifier; if empty the service will assign one
         private String id;
@@ -41,4 +77,88 @@ public class WalletProperties {
         public String getKeystorePassword() { return keystorePassword; }
         public void setKeystorePassword(String keystorePassword) { this.keystorePassword = keystorePassword; }
     }
+
+    public static class Session {
+        // lifetime of an unlocked wallet session
+        private long ttlSeconds = 300;
+        // maximum number of unlocked sessions held in memory; the oldest is evicted first
+        private int maxSessions = 1000;
+        // how often expired sessions are wiped in the background
+        private long purgeIntervalMs = 30000;
+
+        public long getTtlSeconds() { return ttlSeconds; }
+        public void setTtlSeconds(long ttlSeconds) { this.ttlSeconds = ttlSeconds; }
+
+        public int getMaxSessions() { return maxSessions; }
+        public void setMaxSessions(int maxSessions) { this.maxSessions = maxSessions; }
+
+        public long getPurgeIntervalMs() { return purgeIntervalMs; }
+        public void setPurgeIntervalMs(long purgeIntervalMs) { this.purgeIntervalMs = purgeIntervalMs; }
+    }
+
+    public static class Kdf {
+        // scrypt cost used when encrypting new keystores
+        private KdfProfile profile = KdfProfile.STANDARD;
+        // N and p for the CUSTOM profile
+        private int n = KdfProfile.STANDARD.getN();
+        private int p = KdfProfile.STANDARD.getP();
+        // share of the max heap that concurrent scrypt runs may use
+        private double heapFraction = 0.5;
+        // upper bound on KDF worker threads (0 = number of CPU cores)
+        private int maxThreads = 0;
+        // KDF jobs allowed to wait for a worker before new ones are rejected
+        private int queueCapacity = 64;
+        // how long a caller waits for its KDF job (queueing + running) before giving up
+        private long timeoutMs = 10000;
+
+        public KdfProfile getProfile() { return profile; }
+        public void setProfile(KdfProfile profile) { this.profile = profile; }
+
+        public int getN() { return n; }
+        public void setN(int n) { this.n = n; }
+
+        public int getP() { return p; }
+        public void setP(int p) { this.p = p; }
+
+        public double getHeapFraction() { return heapFraction; }
+        public void setHeapFraction(double heapFraction) { this.heapFraction = heapFraction; }
+
+        public int getMaxThreads() { return maxThreads; }
+        public void setMaxThreads(int maxThreads) { this.maxThreads = maxThreads; }
+
+        public int getQueueCapacity() { return queueCapacity; }
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+
+        public long getTimeoutMs() { return timeoutMs; }
+        public void setTimeoutMs(long timeoutMs) { this.timeoutMs = timeoutMs; }
+
+        public int effectiveN() { return profile == KdfProfile.CUSTOM ? n : profile.getN(); }
+        public int effectiveP() { return profile == KdfProfile.CUSTOM ? p : profile.getP(); }
+    }
+
+    public static class Bulk {
+        // largest number of wallets accepted by one bulk create request
+        private int maxWallets = 1000;
+        // wallets persisted per saveAll call (matches hibernate.jdbc.batch_size)
+        private int insertBatchSize = 50;
+
+        public int getMaxWallets() { return maxWallets; }
+        public void setMaxWallets(int maxWallets) { this.maxWallets = maxWallets; }
+
+        public int getInsertBatchSize() { return insertBatchSize; }
+        public void setInsertBatchSize(int insertBatchSize) { this.insertBatchSize = insertBatchSize; }
+    }
+
+    public static class Export {
+        // rows fetched from the database per round trip while scrolling
+        private int fetchSize = 1000;
+        // async timeout of the streamed listings and exports (other async endpoints keep the default)
+        private long streamTimeoutMs = 600_000;
+
+        public int getFetchSize() { return fetchSize; }
+        public void setFetchSize(int fetchSize) { this.fetchSize = fetchSize; }
+
+        public long getStreamTimeoutMs() { return streamTimeoutMs; }
+        public void setStreamTimeoutMs(long streamTimeoutMs) { this.streamTimeoutMs = streamTimeoutMs; }
+    }
 }
@@ -4,7 +4,11 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.web3j.protocol.Web3j;
-import org.web3j.protocol.http.HttpService;
+import org.web3j.protocol.Web3jService;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Configuration
 public class Web3jConfig {
@@ -12,8 +16,30 @@ public class Web3jConfig {
     @Value("${web3j.client-address:http://localhost:8545}")
     private String clientAddress;
 
+    // Optional list of RPC nodes; when set it replaces web3j.client-address
+    @Value("${web3j.client-addresses:}")
+    private List<String> clientAddresses;
+
+    @Bean
+    public PooledWeb3jService web3jNodePool(BlockchainProperties properties) {
+        List<String> urls = clientAddresses.stream().map(String::trim).filter(url -> !url.isEmpty()).distinct().toList();
+        if (urls.isEmpty()) {
+            urls = List.of(clientAddress);
+        }
+        Map<String, Web3jService> nodes = new LinkedHashMap<>();
+        for (String url : urls) {
+            nodes.put(url, new JdkHttpService(url, properties.getHttp()));
+        }
+        return new PooledWeb3jService(nodes, properties);
+    }
+
+    @Bean
+    public CoalescingWeb3jService coalescingWeb3jService(PooledWeb3jService web3jNodePool, BlockchainProperties properties) {
+        return new CoalescingWeb3jService(web3jNodePool, properties);
+    }
+
     @Bean
-    public Web3j web3j() {
-        return Web3j.build(new HttpService(clientAddress));
+    public Web3j web3j(CoalescingWeb3jService coalescingWeb3jService) {
+        return Web3j.build(coalescingWeb3jService);
     }
-}
\ No newline at end of file
+}
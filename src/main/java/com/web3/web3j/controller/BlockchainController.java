@@ -1,14 +1,41 @@
 package com.web3.web3j.controller;
 
+import com.web3.web3j.config.CoalescingWeb3jService;
+import com.web3.web3j.config.PooledWeb3jService;
+import com.web3.web3j.DTO.CursorPage;
+import com.web3.web3j.model.TokenMetadata;
+import com.web3.web3j.model.TokenTransfer;
+import com.web3.web3j.model.WalletTransaction;
+import com.web3.web3j.service.BalanceCache;
+import com.web3.web3j.service.BlockHeadTracker;
+import com.web3.web3j.service.BlockScanner;
 import com.web3.web3j.service.UserService;
 import com.web3.web3j.service.BlockchainService;
+import com.web3.web3j.service.GasEstimateCache;
+import com.web3.web3j.service.GasPriceOracle;
+import com.web3.web3j.service.NewHeadsSubscriber;
+import com.web3.web3j.service.ReceiptPendingException;
+import com.web3.web3j.service.TokenBalanceService;
+import com.web3.web3j.service.TokenMetadataService;
+import com.web3.web3j.service.TrackedTransaction;
+import com.web3.web3j.service.TransactionTracker;
+import com.web3.web3j.service.TransferLogIngester;
+import com.web3.web3j.service.WalletHistoryService;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.web3j.protocol.core.methods.response.TransactionReceipt;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/blockchain")
@@ -16,85 +43,327 @@ public class BlockchainController {
 
     private final UserService userService;
     private final BlockchainService blockchainService;
+    private final TransactionTracker transactionTracker;
+    private final BalanceCache balanceCache;
+    private final GasPriceOracle gasPriceOracle;
+    private final GasEstimateCache gasEstimateCache;
+    private final TokenBalanceService tokenBalanceService;
+    private final TokenMetadataService tokenMetadataService;
+    private final WalletHistoryService walletHistoryService;
+    private final BlockScanner blockScanner;
+    private final TransferLogIngester transferLogIngester;
+    private final BlockHeadTracker headTracker;
+    private final NewHeadsSubscriber newHeadsSubscriber;
+    private final PooledWeb3jService nodePool;
+    private final CoalescingWeb3jService coalescingService;
 
-    public BlockchainController(UserService userService, BlockchainService blockchainService) {
+    public BlockchainController(UserService userService, BlockchainService blockchainService,
+                                TransactionTracker transactionTracker, BalanceCache balanceCache, GasPriceOracle gasPriceOracle,
+                                GasEstimateCache gasEstimateCache, TokenBalanceService tokenBalanceService,
+                                TokenMetadataService tokenMetadataService, WalletHistoryService walletHistoryService,
+                                BlockScanner blockScanner, TransferLogIngester transferLogIngester,
+                                BlockHeadTracker headTracker, NewHeadsSubscriber newHeadsSubscriber,
+                                PooledWeb3jService nodePool, CoalescingWeb3jService coalescingService) {
         this.userService = userService;
         this.blockchainService = blockchainService;
+        this.transactionTracker = transactionTracker;
+        this.balanceCache = balanceCache;
+        this.gasPriceOracle = gasPriceOracle;
+        this.gasEstimateCache = gasEstimateCache;
+        this.tokenBalanceService = tokenBalanceService;
+        this.tokenMetadataService = tokenMetadataService;
+        this.walletHistoryService = walletHistoryService;
+        this.blockScanner = blockScanner;
+        this.transferLogIngester = transferLogIngester;
+        this.headTracker = headTracker;
+        this.newHeadsSubscriber = newHeadsSubscriber;
+        this.nodePool = nodePool;
+        this.coalescingService = coalescingService;
     }
 
     @GetMapping("/wallets/{walletId}/balance")
-    public ResponseEntity<?> getWalletBalance(@PathVariable Long walletId) {
+    public CompletableFuture<ResponseEntity<?>> getWalletBalance(@PathVariable Long walletId) {
+        return userService.getWalletBalanceAsync(walletId)
+                .<ResponseEntity<?>>thenApply(balance -> ResponseEntity.ok(Map.of("balance", balance, "unit", "ETH")))
+                .exceptionally(e -> failure("Failed to get balance: ", e));
+    }
+
+    @GetMapping("/wallets/{walletId}/transactions")
+    public ResponseEntity<?> getWalletTransactions(@PathVariable Long walletId, @RequestParam(required = false) String cursor,
+                                                   @RequestParam(defaultValue = "100") int limit) {
         try {
-            BigDecimal balance = userService.getWalletBalance(walletId);
-            return ResponseEntity.ok(Map.of("balance", balance, "unit", "ETH"));
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body("Failed to get balance: " + e.getMessage());
+            Optional<CursorPage<WalletTransaction>> page = walletHistoryService.getHistoryPage(walletId, cursor, limit);
+            return page.<ResponseEntity<?>>map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
-    @GetMapping("/balance/{address}")
-    public ResponseEntity<?> getAddressBalance(@PathVariable String address) {
+    @GetMapping("/wallets/{walletId}/token-transfers")
+    public ResponseEntity<?> getWalletTokenTransfers(@PathVariable Long walletId, @RequestParam(required = false) String cursor,
+                                                     @RequestParam(defaultValue = "100") int limit) {
         try {
-            if (!blockchainService.isValidAddress(address)) {
-                return ResponseEntity.badRequest().body("Invalid Ethereum address");
+            Optional<CursorPage<TokenTransfer>> page = walletHistoryService.getTokenTransferPage(walletId, cursor, limit);
+            return page.<ResponseEntity<?>>map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/balance/{address}")
+    public CompletableFuture<ResponseEntity<?>> getAddressBalance(@PathVariable String address) {
+        if (!blockchainService.isValidAddress(address)) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("Invalid Ethereum address"));
+        }
+        return blockchainService.getEtherBalanceAsync(address)
+                .<ResponseEntity<?>>thenApply(balance -> ResponseEntity.ok(Map.of("address", address, "balance", balance, "unit", "ETH")))
+                .exceptionally(e -> failure("Failed to get balance: ", e));
+    }
+
+    @PostMapping("/balances")
+    public CompletableFuture<ResponseEntity<?>> getAddressBalances(@RequestBody Map<String, List<String>> request) {
+        List<String> addresses = request.get("addresses");
+        if (addresses == null || addresses.isEmpty()) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("Missing required field: addresses"));
+        }
+        List<String> invalid = addresses.stream().filter(a -> !blockchainService.isValidAddress(a)).toList();
+        if (!invalid.isEmpty()) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("Invalid Ethereum addresses: " + invalid));
+        }
+
+        return blockchainService.getEtherBalancesAsync(addresses).<ResponseEntity<?>>thenApply(balances -> {
+            List<Map<String, Object>> results = new ArrayList<>(addresses.size());
+            for (int i = 0; i < addresses.size(); i++) {
+                results.add(Map.of("address", addresses.get(i), "balance", balances.get(i)));
             }
-            BigDecimal balance = blockchainService.getEtherBalance(address);
-            return ResponseEntity.ok(Map.of("address", address, "balance", balance, "unit", "ETH"));
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body("Failed to get balance: " + e.getMessage());
+            return ResponseEntity.ok(Map.of("balances", results, "unit", "ETH"));
+        }).exceptionally(e -> failure("Failed to get balances: ", e));
+    }
+
+    @PostMapping("/token-balances")
+    public CompletableFuture<ResponseEntity<?>> getTokenBalances(@RequestBody Map<String, List<String>> request) {
+        List<String> addresses = request.get("addresses");
+        List<String> tokens = request.get("tokens");
+        if (addresses == null || addresses.isEmpty() || tokens == null || tokens.isEmpty()) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("Missing required fields: addresses, tokens"));
         }
+        List<String> invalid = new ArrayList<>();
+        addresses.stream().filter(a -> !blockchainService.isValidAddress(a)).forEach(invalid::add);
+        tokens.stream().filter(t -> !blockchainService.isValidAddress(t)).forEach(invalid::add);
+        if (!invalid.isEmpty()) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("Invalid Ethereum addresses: " + invalid));
+        }
+
+        // Decimals come from the metadata cache, so formatting costs no RPC once a token is known
+        CompletableFuture<List<TokenMetadata>> lookups = tokenMetadataService.getAllAsync(tokens);
+        return tokenBalanceService.getTokenBalancesAsync(addresses, tokens)
+                .<List<TokenMetadata>, ResponseEntity<?>>thenCombine(lookups, (balances, metadata) -> {
+            List<Map<String, Object>> results = new ArrayList<>(addresses.size());
+            for (int i = 0; i < addresses.size(); i++) {
+                // LinkedHashMap keeps token order and allows null for calls that failed
+                Map<String, Object> byToken = new LinkedHashMap<>();
+                Map<String, Object> formatted = new LinkedHashMap<>();
+                for (int j = 0; j < tokens.size(); j++) {
+                    BigInteger balance = balances.get(i).get(j);
+                    byToken.put(tokens.get(j), balance);
+                    formatted.put(tokens.get(j), balance != null && metadata.get(j) != null
+                            ? TokenMetadataService.format(balance, metadata.get(j)) : null);
+                }
+                results.add(Map.of("address", addresses.get(i), "tokens", byToken, "formatted", formatted));
+            }
+            return ResponseEntity.ok(Map.of("balances", results));
+        }).exceptionally(e -> failure("Failed to get token balances: ", e));
+    }
+
+    @GetMapping("/tokens/{contractAddress}")
+    public CompletableFuture<ResponseEntity<?>> getTokenMetadata(@PathVariable String contractAddress) {
+        if (!blockchainService.isValidAddress(contractAddress)) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("Invalid Ethereum address"));
+        }
+        return tokenMetadataService.getAsync(contractAddress)
+                .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+                .exceptionally(e -> failure("Failed to get token metadata: ", e));
     }
 
     @PostMapping("/wallets/{walletId}/send-ether")
-    public ResponseEntity<?> sendEther(@PathVariable Long walletId, @RequestBody Map<String, Object> request) {
+    public CompletableFuture<ResponseEntity<?>> sendEther(@PathVariable Long walletId, @RequestBody Map<String, Object> request,
+                                                          @RequestParam(defaultValue = "wait") String mode) {
+        String password;
+        String sessionToken;
+        String toAddress;
+        BigDecimal amount;
         try {
-            String password = (String) request.get("password");
-            String toAddress = (String) request.get("toAddress");
-            BigDecimal amount = new BigDecimal(request.get("amount").toString());
+            password = (String) request.get("password");
+            sessionToken = (String) request.get("sessionToken");
+            toAddress = (String) request.get("toAddress");
+            amount = new BigDecimal(request.get("amount").toString());
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("Transaction failed: " + e.getMessage()));
+        }
 
-            if (password == null || toAddress == null || amount == null) {
-                return ResponseEntity.badRequest().body("Missing required fields: password, toAddress, amount");
-            }
+        if ((password == null && sessionToken == null) || toAddress == null || amount == null) {
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.badRequest().body("Missing required fields: password or sessionToken, toAddress, amount"));
+        }
 
-            TransactionReceipt receipt = userService.sendEtherFromWallet(walletId, password, toAddress, amount);
-            return ResponseEntity.ok(Map.of(
-                "transactionHash", receipt.getTransactionHash(),
-                "status", receipt.getStatus(),
-                "gasUsed", receipt.getGasUsed()
-            ));
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body("Transaction failed: " + e.getMessage());
+        if (isSubmitMode(mode)) {
+            return userService.submitEtherFromWalletAsync(walletId, password, sessionToken, toAddress, amount)
+                    .<ResponseEntity<?>>thenApply(tx -> ResponseEntity.accepted().body(toStatusBody(tx)))
+                    .exceptionally(e -> failure("Transaction failed: ", e));
         }
+
+        return userService.sendEtherFromWalletAsync(walletId, password, sessionToken, toAddress, amount)
+                .<ResponseEntity<?>>thenApply(receipt -> ResponseEntity.ok(Map.of(
+                    "transactionHash", receipt.getTransactionHash(),
+                    "status", receipt.getStatus(),
+                    "gasUsed", receipt.getGasUsed()
+                )))
+                .exceptionally(e -> failure("Transaction failed: ", e));
     }
 
     @PostMapping("/wallets/{walletId}/transfer-erc20")
-    public ResponseEntity<?> transferERC20(@PathVariable Long walletId, @RequestBody Map<String, Object> request) {
+    public CompletableFuture<ResponseEntity<?>> transferERC20(@PathVariable Long walletId, @RequestBody Map<String, Object> request,
+                                                              @RequestParam(defaultValue = "wait") String mode) {
+        String password;
+        String sessionToken;
+        String contractAddress;
+        String toAddress;
+        BigInteger amount;
         try {
-            String password = (String) request.get("password");
-            String contractAddress = (String) request.get("contractAddress");
-            String toAddress = (String) request.get("toAddress");
-            BigInteger amount = new BigInteger(request.get("amount").toString());
+            password = (String) request.get("password");
+            sessionToken = (String) request.get("sessionToken");
+            contractAddress = (String) request.get("contractAddress");
+            toAddress = (String) request.get("toAddress");
+            amount = new BigInteger(request.get("amount").toString());
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("Transaction failed: " + e.getMessage()));
+        }
 
-            if (password == null || contractAddress == null || toAddress == null || amount == null) {
-                return ResponseEntity.badRequest().body("Missing required fields: password, contractAddress, toAddress, amount");
-            }
+        if ((password == null && sessionToken == null) || contractAddress == null || toAddress == null || amount == null) {
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.badRequest().body("Missing required fields: password or sessionToken, contractAddress, toAddress, amount"));
+        }
 
-            TransactionReceipt receipt = userService.transferERC20FromWallet(walletId, password, contractAddress, toAddress, amount);
-            return ResponseEntity.ok(Map.of(
-                "transactionHash", receipt.getTransactionHash(),
-                "status", receipt.getStatus(),
-                "gasUsed", receipt.getGasUsed()
-            ));
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body("Transaction failed: " + e.getMessage());
+        if (isSubmitMode(mode)) {
+            return userService.submitERC20FromWalletAsync(walletId, password, sessionToken, contractAddress, toAddress, amount)
+                    .<ResponseEntity<?>>thenApply(tx -> ResponseEntity.accepted().body(toStatusBody(tx)))
+                    .exceptionally(e -> failure("Transaction failed: ", e));
         }
+
+        return userService.transferERC20FromWalletAsync(walletId, password, sessionToken, contractAddress, toAddress, amount)
+                .<ResponseEntity<?>>thenApply(receipt -> ResponseEntity.ok(Map.of(
+                    "transactionHash", receipt.getTransactionHash(),
+                    "status", receipt.getStatus(),
+                    "gasUsed", receipt.getGasUsed()
+                )))
+                .exceptionally(e -> failure("Transaction failed: ", e));
+    }
+
+    @GetMapping("/transactions/{transactionHash}")
+    public ResponseEntity<?> getTransactionStatus(@PathVariable String transactionHash) {
+        return transactionTracker.find(transactionHash)
+                .<ResponseEntity<?>>map(tx -> ResponseEntity.ok(toStatusBody(tx)))
+                .orElse(ResponseEntity.notFound().build());
     }
 
     // === UTILITY ENDPOINTS ===
 
+    @GetMapping("/gas")
+    public CompletableFuture<ResponseEntity<?>> getGasSuggestions() {
+        return gasPriceOracle.getSuggestionsAsync()
+                .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+                .exceptionally(e -> failure("Failed to get gas prices: ", e));
+    }
+
+    @GetMapping("/cache/balances/stats")
+    public ResponseEntity<Map<String, Object>> getBalanceCacheStats() {
+        return ResponseEntity.ok(balanceCache.getStats());
+    }
+
+    @GetMapping("/cache/gas-estimates/stats")
+    public ResponseEntity<Map<String, Object>> getGasEstimateCacheStats() {
+        return ResponseEntity.ok(gasEstimateCache.getStats());
+    }
+
+    @GetMapping("/cache/tokens/stats")
+    public ResponseEntity<Map<String, Object>> getTokenMetadataStats() {
+        return ResponseEntity.ok(tokenMetadataService.getStats());
+    }
+
+    @GetMapping("/head")
+    public ResponseEntity<Map<String, Object>> getHead() {
+        // LinkedHashMap: the head is null until the first block is seen
+        Map<String, Object> head = new LinkedHashMap<>();
+        head.put("blockNumber", headTracker.getCurrentHead());
+        head.put("subscription", newHeadsSubscriber.getStats());
+        return ResponseEntity.ok(head);
+    }
+
+    @GetMapping("/tracker")
+    public ResponseEntity<Map<String, Object>> getTrackerStats() {
+        return ResponseEntity.ok(transactionTracker.getStats());
+    }
+
+    @GetMapping("/scanner")
+    public ResponseEntity<Map<String, Object>> getScannerStats() {
+        return ResponseEntity.ok(blockScanner.getStats());
+    }
+
+    @GetMapping("/transfer-logs")
+    public ResponseEntity<Map<String, Object>> getTransferLogStats() {
+        return ResponseEntity.ok(transferLogIngester.getStats());
+    }
+
+    @GetMapping("/nodes")
+    public ResponseEntity<List<Map<String, Object>>> getNodeStats() {
+        return ResponseEntity.ok(nodePool.getNodeStats());
+    }
+
+    @GetMapping("/nodes/hedging")
+    public ResponseEntity<Map<String, Object>> getHedgeStats() {
+        return ResponseEntity.ok(nodePool.getHedgeStats());
+    }
+
+    @GetMapping("/nodes/coalescing")
+    public ResponseEntity<Map<String, Object>> getCoalescingStats() {
+        return ResponseEntity.ok(coalescingService.getStats());
+    }
+
     @GetMapping("/validate-address/{address}")
     public ResponseEntity<Map<String, Boolean>> validateAddress(@PathVariable String address) {
         boolean isValid = blockchainService.isValidAddress(address);
         return ResponseEntity.ok(Map.of("valid", isValid));
     }
+
+    // "submit" broadcasts and returns the hash; anything else waits for the receipt as before
+    private boolean isSubmitMode(String mode) {
+        return "submit".equalsIgnoreCase(mode);
+    }
+
+    // Same responses as the blocking endpoints: 503 when the KDF executor is saturated, 400 otherwise.
+    // A send that is broadcast but not mined in time answers like mode=submit: 202 with the pending status.
+    private ResponseEntity<?> failure(String prefix, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof ReceiptPendingException pending) {
+            return ResponseEntity.accepted().body(toStatusBody(pending.getTransaction()));
+        }
+        if (cause instanceof RejectedExecutionException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(cause.getMessage());
+        }
+        return ResponseEntity.badRequest().body(prefix + cause.getMessage());
+    }
+
+    private Map<String, Object> toStatusBody(TrackedTransaction tx) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("transactionHash", tx.getTransactionHash());
+        body.put("status", tx.getStatus());
+        body.put("submittedAt", tx.getSubmittedAt());
+        TransactionReceipt receipt = tx.getReceipt();
+        if (receipt != null) {
+            body.put("blockNumber", receipt.getBlockNumber());
+            body.put("gasUsed", receipt.getGasUsed());
+            body.put("receiptStatus", receipt.getStatus());
+        }
+        return body;
+    }
 }
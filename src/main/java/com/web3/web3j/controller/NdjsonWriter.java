@@ -0,0 +1,25 @@
+package com.web3.web3j.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+// Writes newline-delimited JSON rows for the streaming endpoints
+final class NdjsonWriter {
+    static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private NdjsonWriter() {}
+
+    // Called from row callbacks, which cannot throw checked exceptions
+    static void writeLine(ObjectMapper objectMapper, OutputStream out, Object row) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(row));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
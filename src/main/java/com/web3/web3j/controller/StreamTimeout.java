@@ -0,0 +1,19 @@
+package com.web3.web3j.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+// Gives one streaming response its own async timeout; every other async endpoint keeps the global default
+final class StreamTimeout {
+
+    private StreamTimeout() {}
+
+    // Must be called from the handler method, before the StreamingResponseBody is returned
+    static void extend(HttpServletRequest request, long timeoutMs) {
+        AsyncWebRequest asyncWebRequest = WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest();
+        if (asyncWebRequest != null) {
+            asyncWebRequest.setTimeout(timeoutMs);
+        }
+    }
+}
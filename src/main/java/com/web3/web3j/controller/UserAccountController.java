@@ -1,13 +1,18 @@
 package com.web3.web3j.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.web3.web3j.DTO.CreateUser;
+import com.web3.web3j.DTO.CursorPage;
 import com.web3.web3j.DTO.UpdateUser;
+import com.web3.web3j.config.WalletProperties;
 import com.web3.web3j.model.UserAccount;
 import com.web3.web3j.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.apache.catalina.User;
 import org.hibernate.sql.Update;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.Map;
 import java.util.Optional;
@@ -16,8 +21,12 @@ import java.util.Optional;
 @RequestMapping("/userAccount")
 public class UserAccountController {
     private final UserService userService;
-    public UserAccountController(UserService userService) {
+    private final ObjectMapper objectMapper;
+    private final WalletProperties walletProperties;
+    public UserAccountController(UserService userService, ObjectMapper objectMapper, WalletProperties walletProperties) {
         this.userService = userService;
+        this.objectMapper = objectMapper;
+        this.walletProperties = walletProperties;
     }
 
     @PostMapping("/create")
@@ -28,11 +37,24 @@ public class UserAccountController {
         UserAccount user = userService.createUser(request.getUsername(), request.getEmail());
         return ResponseEntity.ok(user);
     }
-    // find all users
+    // find all users, one keyset page at a time
     @GetMapping("/all")
-    public ResponseEntity<Iterable<UserAccount>> getAllUsers() {
-        Iterable<UserAccount> users = userService.getAllUsers();
-        return ResponseEntity.ok(users);
+    public ResponseEntity<?> getAllUsers(@RequestParam(required = false) String cursor,
+                                         @RequestParam(defaultValue = "100") int limit) {
+        try {
+            CursorPage<UserAccount> page = userService.getUsersPage(cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // stream all users as NDJSON, one object per line, straight off a DB cursor
+    @GetMapping(value = "/all", params = "format=ndjson")
+    public ResponseEntity<StreamingResponseBody> streamAllUsers(HttpServletRequest request) {
+        StreamTimeout.extend(request, walletProperties.getExport().getStreamTimeoutMs());
+        StreamingResponseBody body = out -> userService.forEachUser(user -> NdjsonWriter.writeLine(objectMapper, out, user));
+        return ResponseEntity.ok().contentType(NdjsonWriter.NDJSON).body(body);
     }
 
     @GetMapping("/find/{userId}")
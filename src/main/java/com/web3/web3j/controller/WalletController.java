@@ -1,21 +1,53 @@
 package com.web3.web3j.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.web3.web3j.DTO.BulkCreateWallets;
+import com.web3.web3j.DTO.BulkWalletResult;
+import com.web3.web3j.DTO.CursorPage;
+import com.web3.web3j.DTO.WalletExportRow;
+import com.web3.web3j.DTO.WalletSummary;
+import com.web3.web3j.config.WalletProperties;
+import com.web3.web3j.model.HdWalletRoot;
 import com.web3.web3j.model.WalletEntity;
+import com.web3.web3j.service.KdfExecutor;
 import com.web3.web3j.service.UserService;
+import com.web3.web3j.service.WalletExportService;
+import com.web3.web3j.service.WalletSessionStore;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/wallets")
 public class WalletController {
     private final UserService userService;
+    private final KdfExecutor kdfExecutor;
+    private final WalletExportService walletExportService;
+    private final ObjectMapper objectMapper;
+    private final WalletProperties walletProperties;
 
-    public WalletController(UserService userService) {
+    public WalletController(UserService userService, KdfExecutor kdfExecutor, WalletExportService walletExportService,
+                            ObjectMapper objectMapper, WalletProperties walletProperties) {
         this.userService = userService;
+        this.kdfExecutor = kdfExecutor;
+        this.walletExportService = walletExportService;
+        this.objectMapper = objectMapper;
+        this.walletProperties = walletProperties;
     }
 
     @PostMapping("/create/{userId}/wallets")
@@ -30,24 +62,151 @@ public class WalletController {
 
             WalletEntity wallet = userService.createWalletForUser(userId, password, walletName);
             return ResponseEntity.ok(wallet);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Failed to create wallet: " + e.getMessage());
         }
     }
 
+    @PostMapping("/create/{userId}/wallets/bulk")
+    public ResponseEntity<?> createWallets(@PathVariable Long userId, @RequestBody BulkCreateWallets request) {
+        try {
+            String password = request.getPassword();
+            if (password == null || password.trim().isEmpty()) {
+                return ResponseEntity.badRequest().body("Password is required");
+            }
+            List<String> walletNames = request.getWalletNames();
+            if (walletNames == null) {
+                if (request.getCount() == null || request.getCount() <= 0) {
+                    return ResponseEntity.badRequest().body("Either walletNames or a positive count is required");
+                }
+                walletNames = new ArrayList<>(Collections.nCopies(request.getCount(), (String) null));
+            }
+
+            List<BulkWalletResult> results = userService.createWalletsForUser(userId, password, walletNames);
+            long created = results.stream().filter(r -> r.getStatus() == BulkWalletResult.Status.CREATED).count();
+            return ResponseEntity.ok(Map.of(
+                "requested", results.size(),
+                "created", created,
+                "failed", results.size() - created,
+                "results", results
+            ));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Failed to create wallets: " + e.getMessage());
+        }
+    }
+
+    @PostMapping("/create/{userId}/hd-root")
+    public ResponseEntity<?> createHdRoot(@PathVariable Long userId, @RequestBody Map<String, String> request) {
+        try {
+            String password = request.get("password");
+            if (password == null || password.trim().isEmpty()) {
+                return ResponseEntity.badRequest().body("Password is required");
+            }
+
+            HdWalletRoot root = userService.createHdRootForUser(userId, password);
+            return ResponseEntity.ok(root);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Failed to create HD root: " + e.getMessage());
+        }
+    }
+
+    @PostMapping("/create/{userId}/hd-wallets")
+    public ResponseEntity<?> createHdWallet(@PathVariable Long userId, @RequestBody(required = false) Map<String, String> request) {
+        try {
+            String walletName = request == null ? null : request.get("walletName");
+            WalletEntity wallet = userService.createHdWalletForUser(userId, walletName);
+            return ResponseEntity.ok(wallet);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Failed to create HD wallet: " + e.getMessage());
+        }
+    }
+
     @GetMapping("/users/{userId}/wallets")
-    public ResponseEntity<List<WalletEntity>> getUserWallets(@PathVariable Long userId) {
-        List<WalletEntity> wallets = userService.getUserWallets(userId);
-        return ResponseEntity.ok(wallets);
+    public ResponseEntity<?> getUserWallets(@PathVariable Long userId, @RequestParam(required = false) String cursor,
+                                            @RequestParam(defaultValue = "100") int limit) {
+        try {
+            CursorPage<WalletSummary> page = userService.getUserWalletsPage(userId, cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping(value = "/users/{userId}/wallets", params = "format=ndjson")
+    public ResponseEntity<StreamingResponseBody> streamUserWallets(@PathVariable Long userId, HttpServletRequest request) {
+        StreamTimeout.extend(request, walletProperties.getExport().getStreamTimeoutMs());
+        StreamingResponseBody body = out -> userService.forEachUserWallet(userId, wallet -> NdjsonWriter.writeLine(objectMapper, out, wallet));
+        return ResponseEntity.ok().contentType(NdjsonWriter.NDJSON).body(body);
+    }
+
+    // Every managed address with its owner, for reconciliation; format is ndjson (default) or csv
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportWallets(@RequestParam(defaultValue = "ndjson") String format,
+                                                               HttpServletRequest request) {
+        StreamTimeout.extend(request, walletProperties.getExport().getStreamTimeoutMs());
+        if ("csv".equalsIgnoreCase(format)) {
+            StreamingResponseBody body = out -> {
+                out.write((WalletExportRow.CSV_HEADER + "\n").getBytes(StandardCharsets.UTF_8));
+                walletExportService.forEachWallet(row -> writeCsvLine(out, row));
+            };
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType("text/csv"))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=wallets.csv")
+                    .body(body);
+        }
+        if ("ndjson".equalsIgnoreCase(format)) {
+            StreamingResponseBody body = out -> walletExportService.forEachWallet(row -> NdjsonWriter.writeLine(objectMapper, out, row));
+            return ResponseEntity.ok().contentType(NdjsonWriter.NDJSON).body(body);
+        }
+        return ResponseEntity.badRequest().build();
     }
 
     @PutMapping("/wallets/{walletId}/name")
     public ResponseEntity<?> updateWalletName(@PathVariable Long walletId, @RequestBody Map<String, String> request) {
         String newName = request.get("walletName");
-        Optional<WalletEntity> updated = userService.updateWalletName(walletId, newName);
+        Optional<WalletSummary> updated = userService.updateWalletName(walletId, newName);
         return updated.map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
     }
 
+    @PostMapping("/wallets/{walletId}/unlock")
+    public ResponseEntity<?> unlockWallet(@PathVariable Long walletId, @RequestBody Map<String, String> request) {
+        try {
+            String password = request.get("password");
+            if (password == null || password.isEmpty()) {
+                return ResponseEntity.badRequest().body("Password is required");
+            }
+
+            WalletSessionStore.UnlockedSession session = userService.unlockWallet(walletId, password);
+            return ResponseEntity.ok(Map.of(
+                "sessionToken", session.getToken(),
+                "walletId", session.getWalletId(),
+                "expiresAt", session.getExpiresAt()
+            ));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Failed to unlock wallet: " + e.getMessage());
+        }
+    }
+
+    @PostMapping("/sessions/lock")
+    public ResponseEntity<?> lockWallet(@RequestBody Map<String, String> request) {
+        String sessionToken = request.get("sessionToken");
+        if (sessionToken == null) {
+            return ResponseEntity.badRequest().body("sessionToken is required");
+        }
+        return userService.lockWallet(sessionToken) ? ResponseEntity.ok().build() : ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/kdf/stats")
+    public ResponseEntity<Map<String, Object>> getKdfStats() {
+        return ResponseEntity.ok(kdfExecutor.getStats());
+    }
+
     @DeleteMapping("/wallets/{walletId}")
     public ResponseEntity<?> deleteWallet(@PathVariable Long walletId) {
         try {
@@ -57,4 +216,12 @@ public class WalletController {
             return ResponseEntity.badRequest().body("Failed to delete wallet: " + e.getMessage());
         }
     }
+
+    private static void writeCsvLine(OutputStream out, WalletExportRow row) {
+        try {
+            out.write((row.toCsvLine() + "\n").getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
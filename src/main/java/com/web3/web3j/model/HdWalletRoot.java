@@ -0,0 +1,78 @@
+package com.web3.web3j.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Per-user HD (BIP-32/BIP-44) root. Stores the extended key of the BIP-44 external chain
+ * (m/44'/60'/0'/0): the private key encrypted as a keystore, plus the public key and chain code
+ * in clear so child addresses can be derived without decrypting anything.
+ */
+@Entity
+@Table(name = "hd_wallet_roots")
+@JsonIgnoreProperties({"user", "keystoreJson"}) // Never serialize the user or the encrypted key
+public class HdWalletRoot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false, unique = true)
+    private UserAccount user;
+
+    // Encrypted keystore JSON holding the chain's private key
+    @Lob
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String keystoreJson;
+
+    // Compressed public key of the chain node (hex, with 0x prefix)
+    @Column(nullable = false)
+    private String publicKey;
+
+    // BIP-32 chain code of the chain node (hex, with 0x prefix)
+    @Column(nullable = false)
+    private String chainCode;
+
+    // Next unused child index
+    private int nextIndex = 0;
+
+    private String kdfProfile;
+
+    private Instant createdAt = Instant.now();
+
+    public HdWalletRoot() {}
+
+    public HdWalletRoot(UserAccount user, String keystoreJson, String publicKey, String chainCode) {
+        this.user = user;
+        this.keystoreJson = keystoreJson;
+        this.publicKey = publicKey;
+        this.chainCode = chainCode;
+        this.createdAt = Instant.now();
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+
+    public UserAccount getUser() { return user; }
+    public void setUser(UserAccount user) { this.user = user; }
+
+    public String getKeystoreJson() { return keystoreJson; }
+    public void setKeystoreJson(String keystoreJson) { this.keystoreJson = keystoreJson; }
+
+    public String getPublicKey() { return publicKey; }
+    public void setPublicKey(String publicKey) { this.publicKey = publicKey; }
+
+    public String getChainCode() { return chainCode; }
+    public void setChainCode(String chainCode) { this.chainCode = chainCode; }
+
+    public int getNextIndex() { return nextIndex; }
+    public void setNextIndex(int nextIndex) { this.nextIndex = nextIndex; }
+
+    public String getKdfProfile() { return kdfProfile; }
+    public void setKdfProfile(String kdfProfile) { this.kdfProfile = kdfProfile; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+}
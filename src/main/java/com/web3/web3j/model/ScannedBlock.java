@@ -0,0 +1,47 @@
+package com.web3.web3j.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * A block the scanner has indexed. The highest row is the scanner's checkpoint, and the hashes of
+ * the last {@code blockchain.scanner.reorg-depth} rows let it notice when the chain it indexed has
+ * been replaced and unwind to the fork point.
+ */
+@Entity
+@Table(name = "scanned_blocks")
+public class ScannedBlock {
+
+    @Id
+    private Long blockNumber;
+
+    @Column(nullable = false, length = 66)
+    private String blockHash;
+
+    @Column(nullable = false, length = 66)
+    private String parentHash;
+
+    private Instant scannedAt = Instant.now();
+
+    public ScannedBlock() {}
+
+    public ScannedBlock(Long blockNumber, String blockHash, String parentHash) {
+        this.blockNumber = blockNumber;
+        this.blockHash = blockHash;
+        this.parentHash = parentHash;
+        this.scannedAt = Instant.now();
+    }
+
+    // Getters and Setters
+    public Long getBlockNumber() { return blockNumber; }
+    public void setBlockNumber(Long blockNumber) { this.blockNumber = blockNumber; }
+
+    public String getBlockHash() { return blockHash; }
+    public void setBlockHash(String blockHash) { this.blockHash = blockHash; }
+
+    public String getParentHash() { return parentHash; }
+    public void setParentHash(String parentHash) { this.parentHash = parentHash; }
+
+    public Instant getScannedAt() { return scannedAt; }
+    public void setScannedAt(Instant scannedAt) { this.scannedAt = scannedAt; }
+}
@@ -0,0 +1,40 @@
+package com.web3.web3j.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * The last block a background job has fully processed, keyed by job name, so it resumes where it
+ * stopped after a restart.
+ */
+@Entity
+@Table(name = "sync_checkpoints")
+public class SyncCheckpoint {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(nullable = false)
+    private Long blockNumber;
+
+    private Instant updatedAt = Instant.now();
+
+    public SyncCheckpoint() {}
+
+    public SyncCheckpoint(String name, Long blockNumber) {
+        this.name = name;
+        this.blockNumber = blockNumber;
+        this.updatedAt = Instant.now();
+    }
+
+    // Getters and Setters
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public Long getBlockNumber() { return blockNumber; }
+    public void setBlockNumber(Long blockNumber) { this.blockNumber = blockNumber; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+}
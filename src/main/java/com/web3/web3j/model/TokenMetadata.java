@@ -0,0 +1,54 @@
+package com.web3.web3j.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * ERC20 token details read once from the contract. They never change, so a row is written on
+ * first use and served from here (and the in-memory layer above it) from then on.
+ */
+@Entity
+@Table(name = "token_metadata")
+public class TokenMetadata {
+
+    // Token contract address, lower case with 0x prefix
+    @Id
+    @Column(length = 42)
+    private String contractAddress;
+
+    @Column(nullable = false)
+    private int decimals;
+
+    // Optional in the standard; null when the contract does not implement it
+    private String symbol;
+
+    private String name;
+
+    private Instant createdAt = Instant.now();
+
+    public TokenMetadata() {}
+
+    public TokenMetadata(String contractAddress, int decimals, String symbol, String name) {
+        this.contractAddress = contractAddress;
+        this.decimals = decimals;
+        this.symbol = symbol;
+        this.name = name;
+        this.createdAt = Instant.now();
+    }
+
+    // Getters and Setters
+    public String getContractAddress() { return contractAddress; }
+    public void setContractAddress(String contractAddress) { this.contractAddress = contractAddress; }
+
+    public int getDecimals() { return decimals; }
+    public void setDecimals(int decimals) { this.decimals = decimals; }
+
+    public String getSymbol() { return symbol; }
+    public void setSymbol(String symbol) { this.symbol = symbol; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,91 @@
+package com.web3.web3j.model;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+
+/**
+ * An ERC-20 {@code Transfer} event that moved tokens to or from a managed wallet, as read by the
+ * transfer log ingester. A transfer between two managed wallets is stored twice, once per side.
+ */
+@Entity
+@Table(name = "token_transfers",
+        indexes = @Index(name = "idx_token_transfer_address_block", columnList = "address, block_number, id"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_token_transfer",
+                columnNames = {"transaction_hash", "log_index", "address", "direction"}))
+public class TokenTransfer {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "token_transfers_seq")
+    @SequenceGenerator(name = "token_transfers_seq", sequenceName = "token_transfers_seq", allocationSize = 50)
+    private Long id;
+
+    // Managed wallet address (lower case)
+    @Column(nullable = false, length = 42)
+    private String address;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 3)
+    private WalletTransaction.Direction direction;
+
+    // The other side of the transfer; the zero address for a mint or burn
+    @Column(nullable = false, length = 42)
+    private String counterparty;
+
+    // Token contract that emitted the event (lower case)
+    @Column(nullable = false, length = 42)
+    private String tokenAddress;
+
+    @Column(nullable = false, length = 66)
+    private String transactionHash;
+
+    @Column(nullable = false)
+    private Integer logIndex;
+
+    @Column(nullable = false)
+    private Long blockNumber;
+
+    // Raw token amount, before applying the token's decimals
+    @Column(name = "amount_raw", nullable = false, precision = 78, scale = 0)
+    private BigDecimal amount;
+
+    public TokenTransfer() {}
+
+    public TokenTransfer(String address, WalletTransaction.Direction direction, String counterparty, String tokenAddress,
+                         String transactionHash, Integer logIndex, Long blockNumber, BigDecimal amount) {
+        this.address = address;
+        this.direction = direction;
+        this.counterparty = counterparty;
+        this.tokenAddress = tokenAddress;
+        this.transactionHash = transactionHash;
+        this.logIndex = logIndex;
+        this.blockNumber = blockNumber;
+        this.amount = amount;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+
+    public String getAddress() { return address; }
+    public void setAddress(String address) { this.address = address; }
+
+    public WalletTransaction.Direction getDirection() { return direction; }
+    public void setDirection(WalletTransaction.Direction direction) { this.direction = direction; }
+
+    public String getCounterparty() { return counterparty; }
+    public void setCounterparty(String counterparty) { this.counterparty = counterparty; }
+
+    public String getTokenAddress() { return tokenAddress; }
+    public void setTokenAddress(String tokenAddress) { this.tokenAddress = tokenAddress; }
+
+    public String getTransactionHash() { return transactionHash; }
+    public void setTransactionHash(String transactionHash) { this.transactionHash = transactionHash; }
+
+    public Integer getLogIndex() { return logIndex; }
+    public void setLogIndex(Integer logIndex) { this.logIndex = logIndex; }
+
+    public Long getBlockNumber() { return blockNumber; }
+    public void setBlockNumber(Long blockNumber) { this.blockNumber = blockNumber; }
+
+    public BigDecimal getAmount() { return amount; }
+    public void setAmount(BigDecimal amount) { this.amount = amount; }
+}
@@ -1,16 +1,19 @@
 package com.web3.web3j.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import java.time.Instant;
 
 @Entity
-@Table(name = "wallets")
-@JsonIgnoreProperties({"user"}) // Prevent circular reference by ignoring the user field in JSON serialization
+@Table(name = "wallets", indexes = @Index(name = "idx_wallets_user_created", columnList = "user_id, created_at, id"))
+@JsonIgnoreProperties({"user", "hdRoot"}) // Prevent circular reference by ignoring the user field in JSON serialization
 public class WalletEntity {
 
+    // Sequence ids (pooled, 50 per round trip) let Hibernate batch INSERTs; IDENTITY forces one per row
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "wallets_seq")
+    @SequenceGenerator(name = "wallets_seq", sequenceName = "wallets_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -24,11 +27,24 @@ public class WalletEntity {
     // Optional wallet name/label for user convenience
     private String walletName;
 
-    // Encrypted keystore JSON (stores the private key encrypted with user password)
+    // Encrypted keystore JSON (stores the private key encrypted with user password).
+    // Null for HD wallets, whose key is derived from the user's HdWalletRoot.
+    // Never serialized; list/lookup queries use WalletSummary so only unlocking reads it.
+    @JsonIgnore
     @Lob
-    @Column(columnDefinition = "TEXT", nullable = false)
+    @Column(columnDefinition = "TEXT")
     private String keystoreJson;
 
+    // HD root and child index this wallet was derived from (both null for standalone keystores)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "hd_root_id")
+    private HdWalletRoot hdRoot;
+
+    private Integer derivationIndex;
+
+    // Scrypt profile the keystore was encrypted with (null for wallets created before profiles existed)
+    private String kdfProfile;
+
     private Instant createdAt = Instant.now();
 
     public WalletEntity() {}
@@ -56,6 +72,15 @@ public class WalletEntity {
     public String getKeystoreJson() { return keystoreJson; }
     public void setKeystoreJson(String keystoreJson) { this.keystoreJson = keystoreJson; }
 
+    public HdWalletRoot getHdRoot() { return hdRoot; }
+    public void setHdRoot(HdWalletRoot hdRoot) { this.hdRoot = hdRoot; }
+
+    public Integer getDerivationIndex() { return derivationIndex; }
+    public void setDerivationIndex(Integer derivationIndex) { this.derivationIndex = derivationIndex; }
+
+    public String getKdfProfile() { return kdfProfile; }
+    public void setKdfProfile(String kdfProfile) { this.kdfProfile = kdfProfile; }
+
     public Instant getCreatedAt() { return createdAt; }
     public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
 }
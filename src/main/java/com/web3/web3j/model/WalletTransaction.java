@@ -0,0 +1,95 @@
+package com.web3.web3j.model;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * A transaction that moved value to or from a managed wallet, as found by the block scanner.
+ * A transfer between two managed wallets is stored twice, once per side.
+ */
+@Entity
+@Table(name = "wallet_transactions",
+        indexes = {
+                @Index(name = "idx_wallet_tx_address_block", columnList = "address, block_number, id"),
+                @Index(name = "idx_wallet_tx_block", columnList = "block_number")
+        },
+        uniqueConstraints = @UniqueConstraint(name = "uk_wallet_tx", columnNames = {"transaction_hash", "address", "direction"}))
+public class WalletTransaction {
+
+    public enum Direction { IN, OUT }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "wallet_transactions_seq")
+    @SequenceGenerator(name = "wallet_transactions_seq", sequenceName = "wallet_transactions_seq", allocationSize = 50)
+    private Long id;
+
+    // Managed wallet address (lower case)
+    @Column(nullable = false, length = 42)
+    private String address;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 3)
+    private Direction direction;
+
+    // The other side of the transfer; null for a contract creation sent from the wallet
+    @Column(length = 42)
+    private String counterparty;
+
+    @Column(nullable = false, length = 66)
+    private String transactionHash;
+
+    @Column(nullable = false)
+    private Long blockNumber;
+
+    @Column(nullable = false, length = 66)
+    private String blockHash;
+
+    // Value in wei ("value" is a reserved word in H2)
+    @Column(name = "value_wei", nullable = false, precision = 78, scale = 0)
+    private BigDecimal value;
+
+    @Column(name = "block_timestamp")
+    private Instant timestamp;
+
+    public WalletTransaction() {}
+
+    public WalletTransaction(String address, Direction direction, String counterparty, String transactionHash,
+                             Long blockNumber, String blockHash, BigDecimal value, Instant timestamp) {
+        this.address = address;
+        this.direction = direction;
+        this.counterparty = counterparty;
+        this.transactionHash = transactionHash;
+        this.blockNumber = blockNumber;
+        this.blockHash = blockHash;
+        this.value = value;
+        this.timestamp = timestamp;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+
+    public String getAddress() { return address; }
+    public void setAddress(String address) { this.address = address; }
+
+    public Direction getDirection() { return direction; }
+    public void setDirection(Direction direction) { this.direction = direction; }
+
+    public String getCounterparty() { return counterparty; }
+    public void setCounterparty(String counterparty) { this.counterparty = counterparty; }
+
+    public String getTransactionHash() { return transactionHash; }
+    public void setTransactionHash(String transactionHash) { this.transactionHash = transactionHash; }
+
+    public Long getBlockNumber() { return blockNumber; }
+    public void setBlockNumber(Long blockNumber) { this.blockNumber = blockNumber; }
+
+    public String getBlockHash() { return blockHash; }
+    public void setBlockHash(String blockHash) { this.blockHash = blockHash; }
+
+    public BigDecimal getValue() { return value; }
+    public void setValue(BigDecimal value) { this.value = value; }
+
+    public Instant getTimestamp() { return timestamp; }
+    public void setTimestamp(Instant timestamp) { this.timestamp = timestamp; }
+}
@@ -0,0 +1,21 @@
+package com.web3.web3j.repository;
+
+import com.web3.web3j.model.HdWalletRoot;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface HdWalletRootRepository extends JpaRepository<HdWalletRoot, Long> {
+    Optional<HdWalletRoot> findByUserId(Long userId);
+
+    // Row lock so concurrent issuers never hand out the same child index
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from HdWalletRoot r where r.user.id = :userId")
+    Optional<HdWalletRoot> findByUserIdForUpdate(@Param("userId") Long userId);
+}
@@ -0,0 +1,21 @@
+package com.web3.web3j.repository;
+
+import com.web3.web3j.model.ScannedBlock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ScannedBlockRepository extends JpaRepository<ScannedBlock, Long> {
+    // The scanner's checkpoint
+    Optional<ScannedBlock> findTopByOrderByBlockNumberDesc();
+
+    // Only the most recent blocks are needed to detect a reorg
+    @Modifying
+    @Query("delete from ScannedBlock b where b.blockNumber < :blockNumber")
+    int deleteOlderThan(@Param("blockNumber") Long blockNumber);
+}
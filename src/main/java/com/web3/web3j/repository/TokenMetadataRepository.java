@@ -0,0 +1,9 @@
+package com.web3.web3j.repository;
+
+import com.web3.web3j.model.TokenMetadata;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TokenMetadataRepository extends JpaRepository<TokenMetadata, String> {
+}
@@ -1,9 +1,29 @@
 package com.web3.web3j.repository;
 
 import com.web3.web3j.model.UserAccount;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface UserAccountRepository extends JpaRepository<UserAccount, Long> {
     Optional<UserAccount> findByUsername(String username);
+
+    // Keyset page: rows after the last id of the previous page, walked along the primary key
+    List<UserAccount> findByIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
+    // Forward-only cursor over all users; must be consumed inside a transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select u from UserAccount u order by u.id")
+    Stream<UserAccount> streamAll();
 }
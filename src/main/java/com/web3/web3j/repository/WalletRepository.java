@@ -1,15 +1,67 @@
 package com.web3.web3j.repository;
 
+import com.web3.web3j.DTO.WalletSummary;
 import com.web3.web3j.model.WalletEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface WalletRepository extends JpaRepository<WalletEntity, Long> {
-    List<WalletEntity> findAllByUserId(Long userId);
-    Optional<WalletEntity> findByAddress(String address);
-    List<WalletEntity> findAllByUserIdOrderByCreatedAtDesc(Long userId);
+    // Listing and lookups select only summary columns; the keystore is read only when unlocking
+    String SUMMARY = "select new com.web3.web3j.DTO.WalletSummary(w.id, w.address, w.walletName, w.derivationIndex, w.kdfProfile, w.createdAt) from WalletEntity w ";
+
+    @Query(SUMMARY + "where w.user.id = :userId order by w.createdAt desc, w.id desc")
+    List<WalletSummary> findSummariesByUserId(@Param("userId") Long userId);
+
+    // Keyset pages in (createdAt desc, id desc) order, served by the (user_id, created_at, id) index
+    @Query(SUMMARY + "where w.user.id = :userId order by w.createdAt desc, w.id desc")
+    List<WalletSummary> findSummaryPage(@Param("userId") Long userId, Limit limit);
+
+    @Query(SUMMARY + "where w.user.id = :userId and (w.createdAt < :createdAt or (w.createdAt = :createdAt and w.id < :id)) "
+            + "order by w.createdAt desc, w.id desc")
+    List<WalletSummary> findSummaryPageAfter(@Param("userId") Long userId, @Param("createdAt") Instant createdAt,
+                                             @Param("id") Long id, Limit limit);
+
+    // Forward-only cursor over a user's wallets; must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SUMMARY + "where w.user.id = :userId order by w.createdAt desc, w.id desc")
+    Stream<WalletSummary> streamSummariesByUserId(@Param("userId") Long userId);
+
+    @Query(SUMMARY + "where w.id = :id")
+    Optional<WalletSummary> findSummaryById(@Param("id") Long id);
+
+    @Query(SUMMARY + "where w.address = :address")
+    Optional<WalletSummary> findSummaryByAddress(@Param("address") String address);
+
+    // Every managed address, for the in-memory registry; must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select w.address from WalletEntity w")
+    Stream<String> streamAllAddresses();
+
+    // The wallet with its HD root (if any) in one query, so unlocking never touches a lazy proxy
+    @Query("select w from WalletEntity w left join fetch w.hdRoot where w.id = :id")
+    Optional<WalletEntity> findWithHdRootById(@Param("id") Long id);
+
+    @Modifying
+    @Query("delete from WalletEntity w where w.hdRoot.id = :rootId")
+    int deleteByHdRootId(@Param("rootId") Long rootId);
+
+    @Query("select w.address from WalletEntity w where w.id = :id")
+    Optional<String> findAddressById(@Param("id") Long id);
+
+    @Modifying
+    @Query("update WalletEntity w set w.walletName = :walletName where w.id = :id")
+    int updateWalletName(@Param("id") Long id, @Param("walletName") String walletName);
 }
@@ -0,0 +1,29 @@
+package com.web3.web3j.repository;
+
+import com.web3.web3j.model.WalletTransaction;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface WalletTransactionRepository extends JpaRepository<WalletTransaction, Long> {
+    // Keyset pages in (blockNumber desc, id desc) order, served by the (address, block_number, id) index
+    @Query("select t from WalletTransaction t where t.address = :address order by t.blockNumber desc, t.id desc")
+    List<WalletTransaction> findPage(@Param("address") String address, Limit limit);
+
+    @Query("select t from WalletTransaction t where t.address = :address "
+            + "and (t.blockNumber < :blockNumber or (t.blockNumber = :blockNumber and t.id < :id)) "
+            + "order by t.blockNumber desc, t.id desc")
+    List<WalletTransaction> findPageAfter(@Param("address") String address, @Param("blockNumber") Long blockNumber,
+                                          @Param("id") Long id, Limit limit);
+
+    // Unwind a reorg: everything indexed from the orphaned block onwards
+    @Modifying
+    @Query("delete from WalletTransaction t where t.blockNumber >= :blockNumber")
+    int deleteFromBlock(@Param("blockNumber") Long blockNumber);
+}
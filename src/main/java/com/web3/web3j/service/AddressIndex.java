@@ -0,0 +1,238 @@
+package com.web3.web3j.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Open-addressing hash set of 20-byte Ethereum addresses stored in flat {@code long} arrays.
+ * <p>
+ * Each slot is three longs: bytes 0-7, bytes 8-15, and bytes 16-19 in the low 32 bits plus a state
+ * bit, so an address costs 24 bytes per slot and no objects (a {@code HashSet<String>} entry is well
+ * over 100). Lookups parse the hex string in place and probe linearly; the table is kept at most half
+ * full, counting deleted slots, and rebuilt to a quarter full when it gets there. A Bloom filter
+ * with 16 bits for every entry the table can hold answers most misses from an array a twelfth of the
+ * table's size; deleted addresses stay in it until the next rebuild, which only costs a table probe.
+ * <p>
+ * Not thread-safe. A reader may race a writer as long as it discards the answer afterwards: every
+ * array access is bounded by the length of the array it reads, and probing stops after one lap.
+ */
+final class AddressIndex {
+
+    private static final long OCCUPIED = 1L << 32;
+    private static final long DELETED = 1L << 33;
+    private static final int MIN_CAPACITY = 16;
+    private static final int BLOOM_BITS_PER_ENTRY = 16;
+    private static final int BLOOM_HASHES = 4;
+
+    // 3 longs per slot; capacity is a power of two
+    private long[] slots;
+    private long[] bloom;
+    private int size;
+    // occupied plus deleted slots: both lengthen probe chains
+    private int used;
+
+    AddressIndex(long expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    int size() {
+        return size;
+    }
+
+    long memoryBytes() {
+        return 8L * (slots.length + bloom.length);
+    }
+
+    /**
+     * @return false if the address was already present
+     * @throws IllegalArgumentException if it is not 0x followed by 40 hex digits
+     */
+    boolean add(String address) {
+        if (!isAddress(address)) {
+            throw new IllegalArgumentException("Invalid Ethereum address: " + address);
+        }
+        long w0 = word(address, 0, 16);
+        long w1 = word(address, 16, 16);
+        long w2 = word(address, 32, 8) | OCCUPIED;
+        if (indexOf(slots, w0, w1, w2) >= 0) {
+            return false;
+        }
+        if (2L * (used + 1) > capacity()) {
+            // At most a quarter full afterwards, so rebuilds stay rare even when deletes caused this one
+            rebuild(capacityFor(2 * (size + 1L)));
+        }
+        int mask = capacity() - 1;
+        for (int i = (int) hash(w0, w1, w2) & mask; ; i = (i + 1) & mask) {
+            long tag = slots[3 * i + 2];
+            if (tag == 0 || tag == DELETED) {
+                slots[3 * i] = w0;
+                slots[3 * i + 1] = w1;
+                slots[3 * i + 2] = w2;
+                if (tag == 0) {
+                    used++;
+                }
+                size++;
+                bloomAdd(bloom, w0, w1, w2);
+                return true;
+            }
+        }
+    }
+
+    boolean remove(String address) {
+        if (!isAddress(address)) {
+            return false;
+        }
+        long w0 = word(address, 0, 16);
+        long w1 = word(address, 16, 16);
+        long w2 = word(address, 32, 8) | OCCUPIED;
+        int slot = indexOf(slots, w0, w1, w2);
+        if (slot < 0) {
+            return false;
+        }
+        slots[3 * slot + 2] = DELETED;
+        size--;
+        return true;
+    }
+
+    boolean contains(String address) {
+        if (!isAddress(address)) {
+            return false;
+        }
+        long w0 = word(address, 0, 16);
+        long w1 = word(address, 16, 16);
+        long w2 = word(address, 32, 8) | OCCUPIED;
+        return bloomMightContain(bloom, w0, w1, w2) && indexOf(slots, w0, w1, w2) >= 0;
+    }
+
+    // Every address in the index, lower case, in no particular order
+    List<String> toList() {
+        List<String> addresses = new ArrayList<>(size);
+        for (int j = 0; j < slots.length; j += 3) {
+            long w2 = slots[j + 2];
+            if ((w2 & OCCUPIED) != 0) {
+                addresses.add(String.format("0x%016x%016x%08x", slots[j], slots[j + 1], w2 & 0xffffffffL));
+            }
+        }
+        return addresses;
+    }
+
+    // Slot holding the key, or -1; the probe count is bounded so a racing reader cannot spin
+    private static int indexOf(long[] table, long w0, long w1, long w2) {
+        int capacity = table.length / 3;
+        int mask = capacity - 1;
+        int i = (int) hash(w0, w1, w2) & mask;
+        for (int probes = 0; probes < capacity; probes++, i = (i + 1) & mask) {
+            long tag = table[3 * i + 2];
+            if (tag == 0) {
+                return -1;
+            }
+            if (tag == w2 && table[3 * i] == w0 && table[3 * i + 1] == w1) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int capacity() {
+        return slots.length / 3;
+    }
+
+    private void rebuild(int capacity) {
+        long[] old = slots;
+        allocate(capacity);
+        size = 0;
+        used = 0;
+        int mask = capacity - 1;
+        for (int j = 0; j < old.length; j += 3) {
+            long w2 = old[j + 2];
+            if ((w2 & OCCUPIED) == 0) {
+                continue;
+            }
+            int i = (int) hash(old[j], old[j + 1], w2) & mask;
+            while (slots[3 * i + 2] != 0) {
+                i = (i + 1) & mask;
+            }
+            slots[3 * i] = old[j];
+            slots[3 * i + 1] = old[j + 1];
+            slots[3 * i + 2] = w2;
+            size++;
+            used++;
+            bloomAdd(bloom, old[j], old[j + 1], w2);
+        }
+    }
+
+    private void allocate(int capacity) {
+        slots = new long[3 * capacity];
+        // capacity / 2 entries at most, BLOOM_BITS_PER_ENTRY bits each: a power of two, so bits are masked
+        bloom = new long[capacity / 2 * BLOOM_BITS_PER_ENTRY / 64];
+    }
+
+    // Smallest power of two that keeps expectedSize entries at most half full
+    static int capacityFor(long expectedSize) {
+        long wanted = Math.max(MIN_CAPACITY, 2 * expectedSize);
+        if (wanted > 1 << 29) {
+            throw new IllegalStateException("Too many addresses for the index: " + expectedSize);
+        }
+        return Integer.highestOneBit((int) wanted - 1) << 1;
+    }
+
+    private static void bloomAdd(long[] filter, long w0, long w1, long w2) {
+        long mask = 64L * filter.length - 1;
+        long h1 = mix(w0);
+        long h2 = mix(w1 ^ w2) | 1;
+        for (int k = 0; k < BLOOM_HASHES; k++) {
+            long bit = (h1 + k * h2) & mask;
+            filter[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    private static boolean bloomMightContain(long[] filter, long w0, long w1, long w2) {
+        long mask = 64L * filter.length - 1;
+        long h1 = mix(w0);
+        long h2 = mix(w1 ^ w2) | 1;
+        for (int k = 0; k < BLOOM_HASHES; k++) {
+            long bit = (h1 + k * h2) & mask;
+            if ((filter[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long hash(long w0, long w1, long w2) {
+        return mix(w0 ^ Long.rotateLeft(w1, 21) ^ Long.rotateLeft(w2, 42));
+    }
+
+    // MurmurHash3 finaliser; addresses are already hashes, but vanity addresses share prefixes
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    // 0x followed by 40 hex digits, in either case
+    static boolean isAddress(String address) {
+        if (address == null || address.length() != 42 || address.charAt(0) != '0'
+                || (address.charAt(1) != 'x' && address.charAt(1) != 'X')) {
+            return false;
+        }
+        for (int i = 2; i < 42; i++) {
+            if (Character.digit(address.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // The given number of hex digits of a valid address, starting offset digits after the 0x prefix
+    private static long word(String address, int offset, int digits) {
+        long value = 0;
+        for (int i = 2 + offset, end = i + digits; i < end; i++) {
+            value = (value << 4) | Character.digit(address.charAt(i), 16);
+        }
+        return value;
+    }
+}
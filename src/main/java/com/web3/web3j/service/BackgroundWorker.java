@@ -0,0 +1,54 @@
+package com.web3.web3j.service;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One daemon thread for a long-running indexing job.
+ * <p>
+ * {@code @Scheduled} methods share Spring's scheduler, which has a single thread by default. A catch-up
+ * run that takes minutes would hold it and stall the short jobs, such as head polling. The scheduled
+ * method only triggers the run here and returns; a trigger while a run is in progress is dropped.
+ */
+final class BackgroundWorker {
+
+    private final ExecutorService executor;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    BackgroundWorker(String threadName) {
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Start the job unless it is still running from an earlier trigger; returns whether it was started
+    boolean trigger(Runnable job) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    job.run();
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+        return true;
+    }
+
+    boolean isRunning() {
+        return running.get();
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
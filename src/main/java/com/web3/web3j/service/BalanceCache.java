@@ -0,0 +1,119 @@
+package com.web3.web3j.service;
+
+import com.web3.web3j.config.BlockchainProperties;
+import org.springframework.stereotype.Service;
+
+import java.math.BigInteger;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded LRU cache of ETH balances (in wei), keyed by address. Each entry is tagged with the
+ * block number it was read at and dropped as soon as {@link BlockHeadTracker} sees a newer block,
+ * since a balance can only change when a block is mined. Entries also expire after a TTL in
+ * case the head tracker cannot reach the node.
+ */
+@Service
+public class BalanceCache implements BlockHeadTracker.NewHeadListener {
+
+    private final BlockHeadTracker headTracker;
+    private final BlockchainProperties.BalanceCache settings;
+    private final Map<String, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public BalanceCache(BlockHeadTracker headTracker, BlockchainProperties properties) {
+        this.headTracker = headTracker;
+        this.settings = properties.getBalanceCache();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                boolean evict = size() > settings.getMaxSize();
+                if (evict) {
+                    evictions.incrementAndGet();
+                }
+                return evict;
+            }
+        };
+        headTracker.addListener(this);
+    }
+
+    // Block number to tag a balance with; read it before asking the node
+    public BigInteger currentBlock() {
+        return headTracker.getCurrentHead();
+    }
+
+    public Optional<BigInteger> get(String address) {
+        if (!settings.isEnabled()) {
+            return Optional.empty();
+        }
+        Entry entry;
+        synchronized (entries) {
+            String key = address.toLowerCase();
+            entry = entries.get(key);
+            if (entry != null && entry.isExpired(settings.getTtlSeconds())) {
+                entries.remove(key);
+                entry = null;
+            }
+        }
+        (entry == null ? misses : hits).incrementAndGet();
+        return entry == null ? Optional.empty() : Optional.of(entry.wei);
+    }
+
+    /**
+     * Store a balance read at {@code blockNumber}. Skipped if a newer block arrived while the
+     * value was in flight, so a stale read never outlives the invalidation it raced with.
+     */
+    public void put(String address, BigInteger wei, BigInteger blockNumber) {
+        if (!settings.isEnabled() || !Objects.equals(blockNumber, headTracker.getCurrentHead())) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(address.toLowerCase(), new Entry(wei, blockNumber));
+        }
+    }
+
+    @Override
+    public void onNewHead(BigInteger blockNumber) {
+        synchronized (entries) {
+            entries.values().removeIf(e -> e.blockNumber == null || e.blockNumber.compareTo(blockNumber) < 0);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long total = hitCount + missCount;
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return Map.of(
+                "hits", hitCount,
+                "misses", missCount,
+                "hitRate", total == 0 ? 0.0 : (double) hitCount / total,
+                "evictions", evictions.get(),
+                "size", size);
+    }
+
+    private static final class Entry {
+        final BigInteger wei;
+        final BigInteger blockNumber;
+        final long loadedAtNanos = System.nanoTime();
+
+        Entry(BigInteger wei, BigInteger blockNumber) {
+            this.wei = wei;
+            this.blockNumber = blockNumber;
+        }
+
+        boolean isExpired(long ttlSeconds) {
+            return System.nanoTime() - loadedAtNanos > TimeUnit.SECONDS.toNanos(ttlSeconds);
+        }
+    }
+}
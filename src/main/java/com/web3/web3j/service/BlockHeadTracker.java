@@ -0,0 +1,92 @@
+package com.web3.web3j.service;
+
+import com.web3.web3j.config.BlockchainProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.web3j.protocol.Web3j;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Shared view of the chain head. Polls the node for the latest block number and notifies
+ * in-process listeners whenever a new block arrives, so caches and pollers can react to
+ * blocks instead of each asking the node on their own.
+ * <p>
+ * When {@link NewHeadsSubscriber} pushes heads from a WebSocket subscription, polling pauses and
+ * only resumes if no head has been pushed for {@code blockchain.head.push-stale-ms}. Listeners get
+ * the latest head, not every block: after a gap they are called once, with the newest number.
+ */
+@Service
+public class BlockHeadTracker {
+    private static final Logger log = LoggerFactory.getLogger(BlockHeadTracker.class);
+
+    public interface NewHeadListener {
+        void onNewHead(BigInteger blockNumber);
+    }
+
+    private final Web3j web3j;
+    private final List<NewHeadListener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicReference<BigInteger> currentHead = new AtomicReference<>();
+    private final long pushStaleNanos;
+    // nanoTime of the last pushed head; 0 if none yet
+    private volatile long lastPushNanos;
+
+    public BlockHeadTracker(Web3j web3j, BlockchainProperties properties) {
+        this.web3j = web3j;
+        this.pushStaleNanos = TimeUnit.MILLISECONDS.toNanos(properties.getHead().getPushStaleMs());
+    }
+
+    public void addListener(NewHeadListener listener) {
+        listeners.add(listener);
+    }
+
+    // Latest block number seen, or null before the first successful poll
+    public BigInteger getCurrentHead() {
+        return currentHead.get();
+    }
+
+    @Scheduled(fixedDelayString = "${blockchain.head.poll-interval-ms:1000}")
+    public void poll() {
+        if (isPushActive()) {
+            return;
+        }
+        try {
+            onNewHead(web3j.ethBlockNumber().send().getBlockNumber());
+        } catch (Exception e) {
+            log.debug("Block number poll failed: {}", e.getMessage());
+        }
+    }
+
+    // A head delivered by a subscription; keeps the poller idle while they keep coming
+    public void onPushedHead(BigInteger blockNumber) {
+        lastPushNanos = System.nanoTime();
+        onNewHead(blockNumber);
+    }
+
+    public boolean isPushActive() {
+        long last = lastPushNanos;
+        return last != 0 && System.nanoTime() - last < pushStaleNanos;
+    }
+
+    // Record a head and notify listeners if it is newer than the one we have
+    public void onNewHead(BigInteger blockNumber) {
+        BigInteger previous = currentHead.getAndAccumulate(blockNumber,
+                (current, candidate) -> current == null || candidate.compareTo(current) > 0 ? candidate : current);
+        if (previous != null && blockNumber.compareTo(previous) <= 0) {
+            return;
+        }
+        for (NewHeadListener listener : listeners) {
+            try {
+                listener.onNewHead(blockNumber);
+            } catch (Exception e) {
+                log.warn("New head listener failed for block {}: {}", blockNumber, e.getMessage());
+            }
+        }
+    }
+}
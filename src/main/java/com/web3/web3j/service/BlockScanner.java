@@ -0,0 +1,231 @@
+package com.web3.web3j.service;
+
+import com.web3.web3j.config.BlockchainProperties;
+import com.web3.web3j.model.ScannedBlock;
+import com.web3.web3j.model.WalletTransaction;
+import com.web3.web3j.repository.ScannedBlockRepository;
+import com.web3.web3j.repository.WalletTransactionRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.methods.response.EthBlock;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background indexer for transactions to and from managed wallets.
+ * <p>
+ * Walks blocks in order from the last one indexed (the highest row of {@code scanned_blocks}),
+ * fetching up to {@code blockchain.scanner.fetch-blocks} blocks at a time with their transactions.
+ * Each transaction whose sender or recipient is in the {@link ManagedAddressRegistry} is written to
+ * {@code wallet_transactions}, in the same database transaction that advances the checkpoint, so a
+ * crash never skips or repeats a block. If a block's parent hash does not match the block indexed
+ * before it, the chain has reorganised: the scanner drops what it indexed from the orphaned block
+ * and steps back until the hashes line up again (at most {@code blockchain.scanner.reorg-depth} blocks).
+ * <p>
+ * Runs on its own thread, so a long catch-up does not hold up head polling and the other scheduled jobs.
+ */
+@Service
+public class BlockScanner {
+    private static final Logger log = LoggerFactory.getLogger(BlockScanner.class);
+
+    private final Web3j web3j;
+    private final BlockHeadTracker headTracker;
+    private final ManagedAddressRegistry addressRegistry;
+    private final ScannedBlockRepository scannedBlockRepository;
+    private final WalletTransactionRepository walletTransactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockchainProperties.Scanner settings;
+
+    // Last indexed block, read from the table on the first run; null before anything is indexed
+    private volatile ScannedBlock checkpoint;
+    private boolean checkpointLoaded;
+    private volatile long lastHead = -1;
+
+    // Scans run here, off the shared scheduler thread
+    private final BackgroundWorker worker = new BackgroundWorker("block-scanner");
+
+    private final AtomicLong blocksScanned = new AtomicLong();
+    private final AtomicLong transactionsIndexed = new AtomicLong();
+    private final AtomicLong reorgs = new AtomicLong();
+
+    public BlockScanner(Web3j web3j, BlockHeadTracker headTracker, ManagedAddressRegistry addressRegistry,
+                        ScannedBlockRepository scannedBlockRepository, WalletTransactionRepository walletTransactionRepository,
+                        TransactionTemplate transactionTemplate, BlockchainProperties properties) {
+        this.web3j = web3j;
+        this.headTracker = headTracker;
+        this.addressRegistry = addressRegistry;
+        this.scannedBlockRepository = scannedBlockRepository;
+        this.walletTransactionRepository = walletTransactionRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.settings = properties.getScanner();
+    }
+
+    @Scheduled(fixedDelayString = "${blockchain.scanner.poll-interval-ms:2000}")
+    public void poll() {
+        // Matching before the registry is loaded would skip deposits for good
+        if (!settings.isEnabled() || !addressRegistry.isLoaded()) {
+            return;
+        }
+        worker.trigger(() -> {
+            try {
+                scan();
+            } catch (Exception e) {
+                // Node unreachable: the checkpoint has not moved, so the next run picks up from the same block
+                log.debug("Block scan failed: {}", e.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        worker.shutdown();
+    }
+
+    /**
+     * Index blocks from the checkpoint towards the chain head, at most
+     * {@code blockchain.scanner.max-blocks-per-run} of them.
+     * @return number of blocks indexed
+     */
+    public synchronized int scan() throws Exception {
+        BigInteger headNumber = headTracker.getCurrentHead();
+        long head = (headNumber != null ? headNumber : web3j.ethBlockNumber().send().getBlockNumber()).longValueExact();
+        lastHead = head;
+        if (!checkpointLoaded) {
+            checkpoint = scannedBlockRepository.findTopByOrderByBlockNumberDesc().orElse(null);
+            checkpointLoaded = true;
+        }
+
+        long next = checkpoint != null ? checkpoint.getBlockNumber() + 1
+                : settings.getStartBlock() >= 0 ? settings.getStartBlock() : head;
+        int indexed = 0;
+        while (next <= head && indexed < settings.getMaxBlocksPerRun()) {
+            int count = (int) Math.min(Math.min(Math.max(1, settings.getFetchBlocks()), head - next + 1),
+                    settings.getMaxBlocksPerRun() - indexed);
+            for (EthBlock.Block block : fetch(next, count)) {
+                if (block == null) {
+                    // Our node has not caught up to the head it reported yet
+                    return indexed;
+                }
+                if (checkpoint != null && !checkpoint.getBlockHash().equals(block.getParentHash())) {
+                    next = unwind();
+                    break;
+                }
+                index(block);
+                indexed++;
+                next = block.getNumber().longValueExact() + 1;
+            }
+        }
+        return indexed;
+    }
+
+    // Blocks next .. next + count - 1 with full transactions, fetched concurrently; null where the node has none
+    private List<EthBlock.Block> fetch(long next, int count) throws Exception {
+        List<CompletableFuture<EthBlock>> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            DefaultBlockParameter number = DefaultBlockParameter.valueOf(BigInteger.valueOf(next + i));
+            requests.add(web3j.ethGetBlockByNumber(number, true).sendAsync());
+        }
+        List<EthBlock.Block> blocks = new ArrayList<>(count);
+        for (CompletableFuture<EthBlock> request : requests) {
+            try {
+                EthBlock response = request.get();
+                if (response.hasError()) {
+                    throw new IllegalStateException("eth_getBlockByNumber failed: " + response.getError().getMessage());
+                }
+                blocks.add(response.getBlock());
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof Exception ? (Exception) cause : e;
+            }
+        }
+        return blocks;
+    }
+
+    private void index(EthBlock.Block block) {
+        long number = block.getNumber().longValueExact();
+        List<WalletTransaction> matches = match(block);
+        ScannedBlock scanned = new ScannedBlock(number, block.getHash(), block.getParentHash());
+        transactionTemplate.executeWithoutResult(status -> {
+            walletTransactionRepository.saveAll(matches);
+            scannedBlockRepository.save(scanned);
+            scannedBlockRepository.deleteOlderThan(number - settings.getReorgDepth());
+        });
+        checkpoint = scanned;
+        blocksScanned.incrementAndGet();
+        transactionsIndexed.addAndGet(matches.size());
+    }
+
+    private List<WalletTransaction> match(EthBlock.Block block) {
+        List<WalletTransaction> matches = new ArrayList<>();
+        long number = block.getNumber().longValueExact();
+        Instant timestamp = Instant.ofEpochSecond(block.getTimestamp().longValueExact());
+        for (EthBlock.TransactionResult<?> result : block.getTransactions()) {
+            if (!(result instanceof EthBlock.TransactionObject tx)) {
+                continue;
+            }
+            String from = lower(tx.getFrom());
+            String to = lower(tx.getTo());
+            BigDecimal value = new BigDecimal(tx.getValue());
+            if (addressRegistry.contains(from)) {
+                matches.add(new WalletTransaction(from, WalletTransaction.Direction.OUT, to, tx.getHash(), number, block.getHash(), value, timestamp));
+            }
+            if (addressRegistry.contains(to)) {
+                matches.add(new WalletTransaction(to, WalletTransaction.Direction.IN, from, tx.getHash(), number, block.getHash(), value, timestamp));
+            }
+        }
+        return matches;
+    }
+
+    // Drop the checkpoint block, which is no longer on the chain, and return the block to rescan from
+    private long unwind() {
+        long orphaned = checkpoint.getBlockNumber();
+        transactionTemplate.executeWithoutResult(status -> {
+            walletTransactionRepository.deleteFromBlock(orphaned);
+            scannedBlockRepository.deleteById(orphaned);
+        });
+        reorgs.incrementAndGet();
+        checkpoint = scannedBlockRepository.findById(orphaned - 1).orElse(null);
+        if (checkpoint == null) {
+            log.warn("Reorg at block {} is deeper than the {} blocks kept; indexing continues from there unchecked",
+                    orphaned, settings.getReorgDepth());
+        } else {
+            log.info("Reorg detected: block {} was replaced, unwinding", orphaned);
+        }
+        return orphaned;
+    }
+
+    private static String lower(String address) {
+        return address != null ? address.toLowerCase() : null;
+    }
+
+    public Map<String, Object> getStats() {
+        ScannedBlock last = checkpoint;
+        long head = lastHead;
+        // HashMap: checkpoint and head are null until the first run
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", settings.isEnabled());
+        stats.put("checkpoint", last != null ? last.getBlockNumber() : null);
+        stats.put("head", head >= 0 ? head : null);
+        stats.put("lag", last != null && head >= 0 ? Math.max(0, head - last.getBlockNumber()) : null);
+        stats.put("blocksScanned", blocksScanned.get());
+        stats.put("transactionsIndexed", transactionsIndexed.get());
+        stats.put("reorgs", reorgs.get());
+        stats.put("managedAddresses", addressRegistry.getStats());
+        return stats;
+    }
+}
@@ -1,6 +1,9 @@
 package com.web3.web3j.service;
+import com.web3.web3j.config.BlockchainProperties;
 import org.springframework.stereotype.Service;
 import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.BatchRequest;
+import org.web3j.protocol.core.Response;
 import org.web3j.crypto.Credentials;
 import org.web3j.protocol.core.DefaultBlockParameterName;
 import org.web3j.utils.Convert;
@@ -9,80 +12,229 @@ import org.web3j.tx.Transfer;
 import org.web3j.protocol.core.methods.response.TransactionReceipt;
 import org.web3j.crypto.RawTransaction;
 import org.web3j.crypto.TransactionEncoder;
-import org.web3j.protocol.core.methods.response.EthSendTransaction;
-import org.web3j.protocol.core.methods.response.EthGetTransactionCount;
 import org.web3j.abi.FunctionEncoder;
 import org.web3j.abi.datatypes.Function;
 import org.web3j.abi.datatypes.Address;
 import org.web3j.abi.datatypes.generated.Uint256;
 import org.web3j.utils.Numeric;
-import org.web3j.tx.gas.DefaultGasProvider;
-import org.web3j.protocol.core.methods.response.EthGetTransactionReceipt;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class BlockchainService {
     private final Web3j web3j;
+    private final BlockchainProperties properties;
+    private final TransactionTracker transactionTracker;
+    private final NonceManager nonceManager;
+    private final BalanceCache balanceCache;
+    private final GasPriceOracle gasPriceOracle;
+    private final GasEstimateCache gasEstimateCache;
 
-    public BlockchainService(Web3j web3j) {
+    public BlockchainService(Web3j web3j, BlockchainProperties properties, TransactionTracker transactionTracker,
+                             NonceManager nonceManager, BalanceCache balanceCache, GasPriceOracle gasPriceOracle,
+                             GasEstimateCache gasEstimateCache) {
         this.web3j = web3j;
+        this.properties = properties;
+        this.transactionTracker = transactionTracker;
+        this.nonceManager = nonceManager;
+        this.balanceCache = balanceCache;
+        this.gasPriceOracle = gasPriceOracle;
+        this.gasEstimateCache = gasEstimateCache;
     }
 
     // Get ETH balance for an address (returns value in Ether)
     public BigDecimal getEtherBalance(String address) throws Exception {
-        EthGetBalance balance = web3j.ethGetBalance(address, DefaultBlockParameterName.LATEST).send();
-        return Convert.fromWei(new BigDecimal(balance.getBalance()), Convert.Unit.ETHER);
+        return await(getEtherBalanceAsync(address));
     }
 
-    // Send Ether using provided credentials
+    // Non-blocking ETH balance: no thread waits while the node answers
+    public CompletableFuture<BigDecimal> getEtherBalanceAsync(String address) {
+        Optional<BigInteger> cached = balanceCache.get(address);
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(Convert.fromWei(new BigDecimal(cached.get()), Convert.Unit.ETHER));
+        }
+        BigInteger block = balanceCache.currentBlock();
+        return web3j.ethGetBalance(address, DefaultBlockParameterName.LATEST).sendAsync().thenApply(balance -> {
+            balanceCache.put(address, balance.getBalance(), block);
+            return Convert.fromWei(new BigDecimal(balance.getBalance()), Convert.Unit.ETHER);
+        });
+    }
+
+    // ETH balances for many addresses with JSON-RPC batch calls; chunks are sent concurrently (results in request order)
+    public CompletableFuture<List<BigDecimal>> getEtherBalancesAsync(List<String> addresses) {
+        BigInteger[] wei = new BigInteger[addresses.size()];
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < addresses.size(); i++) {
+            Optional<BigInteger> cached = balanceCache.get(addresses.get(i));
+            if (cached.isPresent()) {
+                wei[i] = cached.get();
+            } else {
+                missing.add(i);
+            }
+        }
+
+        BigInteger block = balanceCache.currentBlock();
+        int chunkSize = Math.max(1, properties.getBatchSize());
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        for (int from = 0; from < missing.size(); from += chunkSize) {
+            List<Integer> chunk = missing.subList(from, Math.min(from + chunkSize, missing.size()));
+            BatchRequest batch = web3j.newBatch();
+            for (int index : chunk) {
+                batch.add(web3j.ethGetBalance(addresses.get(index), DefaultBlockParameterName.LATEST));
+            }
+            chunks.add(batch.sendAsync().thenAccept(batchResponse -> {
+                Map<Long, Response<?>> responsesById = new HashMap<>();
+                for (Response<?> response : batchResponse.getResponses()) {
+                    responsesById.put(response.getId(), response);
+                }
+                for (int i = 0; i < chunk.size(); i++) {
+                    String address = addresses.get(chunk.get(i));
+                    Response<?> response = responsesById.get(batch.getRequests().get(i).getId());
+                    if (response == null || response.hasError()) {
+                        String reason = response == null ? "no response" : response.getError().getMessage();
+                        throw new RuntimeException("Failed to get balance for " + address + ": " + reason);
+                    }
+                    wei[chunk.get(i)] = ((EthGetBalance) response).getBalance();
+                    balanceCache.put(address, wei[chunk.get(i)], block);
+                }
+            }));
+        }
+
+        return CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0])).thenApply(done -> {
+            List<BigDecimal> balances = new ArrayList<>(wei.length);
+            for (BigInteger value : wei) {
+                balances.add(Convert.fromWei(new BigDecimal(value), Convert.Unit.ETHER));
+            }
+            return balances;
+        });
+    }
+
+    // Send Ether using provided credentials and wait, up to blockchain.tracker.wait-timeout-seconds, until it is mined
     public TransactionReceipt sendEther(Credentials credentials, String toAddress, BigDecimal amountEther) throws Exception {
-        return Transfer.sendFunds(web3j, credentials, toAddress, amountEther, Convert.Unit.ETHER).send();
+        return await(sendEtherAsync(credentials, toAddress, amountEther));
     }
 
-    // Transfer ERC20 tokens
+    // Transfer ERC20 tokens and wait, up to blockchain.tracker.wait-timeout-seconds, for the tracker to see it mined
     public TransactionReceipt transferERC20(Credentials credentials, String contractAddress, String toAddress, BigInteger amount) throws Exception {
-        // Get nonce
-        EthGetTransactionCount ethGetTransactionCount = web3j.ethGetTransactionCount(
-                credentials.getAddress(), DefaultBlockParameterName.LATEST).send();
-        BigInteger nonce = ethGetTransactionCount.getTransactionCount();
+        return await(transferERC20Async(credentials, contractAddress, toAddress, amount));
+    }
+
+    // Blocking view of an async call that rethrows the original failure
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
 
+    // Send Ether without blocking: completes with the receipt once the tracker sees it mined
+    public CompletableFuture<TransactionReceipt> sendEtherAsync(Credentials credentials, String toAddress, BigDecimal amountEther) {
+        return submitEtherAsync(credentials, toAddress, amountEther).thenCompose(this::receiptWithin);
+    }
+
+    // Sign and broadcast an Ether transfer: completes as soon as the node accepts it, without waiting for it to be mined
+    public CompletableFuture<TrackedTransaction> submitEtherAsync(Credentials credentials, String toAddress, BigDecimal amountEther) {
+        BigInteger value = Convert.toWei(amountEther, Convert.Unit.ETHER).toBigIntegerExact();
+        return gasPriceOracle.suggestAsync()
+                .thenCompose(fees -> signAndSendAsync(credentials, nonce -> fees.createTransaction(
+                        nonce, Transfer.GAS_LIMIT, toAddress, value, ""), false))
+                .thenApply(transactionTracker::track);
+    }
+
+    // Non-blocking ERC20 transfer: completes with the receipt once the tracker sees it mined
+    public CompletableFuture<TransactionReceipt> transferERC20Async(Credentials credentials, String contractAddress, String toAddress, BigInteger amount) {
+        return submitERC20Async(credentials, contractAddress, toAddress, amount).thenCompose(this::receiptWithin);
+    }
+
+    // The receipt, or a ReceiptPendingException after blockchain.tracker.wait-timeout-seconds. The timeout
+    // runs on a copy so the tracked transaction itself keeps waiting for its receipt.
+    private CompletableFuture<TransactionReceipt> receiptWithin(TrackedTransaction tx) {
+        return tx.getReceiptFuture().copy()
+                .orTimeout(properties.getTracker().getWaitTimeoutSeconds(), TimeUnit.SECONDS)
+                .exceptionallyCompose(error -> {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    return CompletableFuture.failedFuture(cause instanceof TimeoutException ? new ReceiptPendingException(tx) : cause);
+                });
+    }
+
+    // Sign and broadcast an ERC20 transfer: completes as soon as the node accepts it, without waiting for it to be mined
+    public CompletableFuture<TrackedTransaction> submitERC20Async(Credentials credentials, String contractAddress, String toAddress, BigInteger amount) {
+        String data = erc20TransferData(toAddress, amount);
+        return gasPriceOracle.suggestAsync()
+                .thenCombine(gasEstimateCache.gasLimitAsync(credentials.getAddress(), contractAddress, data),
+                        (fees, gasLimit) -> contractCall(fees, gasLimit, contractAddress, data))
+                .thenCompose(factory -> signAndSendAsync(credentials, factory, false))
+                .thenApply(transactionTracker::track);
+    }
+
+    private static String erc20TransferData(String toAddress, BigInteger amount) {
         // Create transfer function
         Function function = new Function(
                 "transfer",
                 Arrays.asList(new Address(toAddress), new Uint256(amount)),
                 Collections.emptyList());
 
-        String encodedFunction = FunctionEncoder.encode(function);
+        return FunctionEncoder.encode(function);
+    }
 
+    private static RawTransactionFactory contractCall(GasFees fees, BigInteger gasLimit, String contractAddress, String data) {
         // Create raw transaction
-        RawTransaction rawTransaction = RawTransaction.createTransaction(
+        return nonce -> fees.createTransaction(
                 nonce,
-                DefaultGasProvider.GAS_PRICE,
-                DefaultGasProvider.GAS_LIMIT,
+                gasLimit,
                 contractAddress,
-                encodedFunction);
-
-        // Sign and send transaction
-        byte[] signedMessage = TransactionEncoder.signMessage(rawTransaction, credentials);
-        String hexValue = Numeric.toHexString(signedMessage);
-
-        EthSendTransaction ethSendTransaction = web3j.ethSendRawTransaction(hexValue).send();
-        String transactionHash = ethSendTransaction.getTransactionHash();
+                BigInteger.ZERO,
+                data);
+    }
 
-        // Wait for transaction receipt
-        Optional<TransactionReceipt> receiptOptional = getTransactionReceipt(transactionHash);
-        return receiptOptional.orElseThrow(() -> new RuntimeException("Transaction receipt not found"));
+    /**
+     * Sign and broadcast a transaction using a nonce from the {@link NonceManager}.
+     * If the node rejects the nonce, the local counter is resynced and the send is retried once;
+     * on any other failure the nonce is released so the next send fills the gap.
+     */
+    private CompletableFuture<String> signAndSendAsync(Credentials credentials, RawTransactionFactory factory, boolean retried) {
+        String from = credentials.getAddress();
+        return nonceManager.allocateAsync(from).thenCompose(nonce -> {
+            String hexValue;
+            try {
+                hexValue = Numeric.toHexString(TransactionEncoder.signMessage(factory.create(nonce.getNonce()), credentials));
+            } catch (RuntimeException e) {
+                nonceManager.release(from, nonce);
+                throw e;
+            }
+            return web3j.ethSendRawTransaction(hexValue).sendAsync().handle((ethSendTransaction, error) -> {
+                if (error != null) {
+                    nonceManager.release(from, nonce);
+                    return CompletableFuture.<String>failedFuture(error instanceof CompletionException ? error.getCause() : error);
+                }
+                if (!ethSendTransaction.hasError()) {
+                    return CompletableFuture.completedFuture(ethSendTransaction.getTransactionHash());
+                }
+                String message = ethSendTransaction.getError().getMessage();
+                if (NonceManager.isNonceError(message) && !retried) {
+                    return nonceManager.resyncAsync(from).thenCompose(ignored -> signAndSendAsync(credentials, factory, true));
+                }
+                nonceManager.release(from, nonce);
+                return CompletableFuture.<String>failedFuture(new RuntimeException("Transaction rejected: " + message));
+            }).thenCompose(hash -> hash);
+        });
     }
 
-    // Helper method to get transaction receipt
-    private Optional<TransactionReceipt> getTransactionReceipt(String transactionHash) throws Exception {
-        EthGetTransactionReceipt transactionReceipt = web3j.ethGetTransactionReceipt(transactionHash).send();
-        return transactionReceipt.getTransactionReceipt();
+    private interface RawTransactionFactory {
+        RawTransaction create(BigInteger nonce);
     }
 
     // Check if address is valid Ethereum address
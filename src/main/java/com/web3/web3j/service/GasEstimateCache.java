@@ -0,0 +1,193 @@
+package com.web3.web3j.service;
+
+import com.web3.web3j.config.BlockchainProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.methods.request.Transaction;
+import org.web3j.utils.Numeric;
+
+import java.math.BigInteger;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gas limits for contract calls, estimated once per (contract, function selector) and reused.
+ * <p>
+ * The first call for a key runs {@code eth_estimateGas} and adds {@code blockchain.gas-estimate.margin-percent}
+ * on top, since the actual cost varies with storage state. A token transfer to a fresh holder costs more
+ * than one to an existing holder, so ERC20 {@code transfer} calls are estimated against a random, empty
+ * recipient: the cached limit then covers every recipient. Later calls get the cached limit without an RPC.
+ * Once an entry is older than {@code blockchain.gas-estimate.refresh-ms} it is still served, while a refresh
+ * with the latest caller's transaction runs in the background; a refresh never lowers the cached limit.
+ * The cache holds at most {@code blockchain.gas-estimate.max-size} keys, least recently used first out.
+ */
+@Service
+public class GasEstimateCache {
+    private static final Logger log = LoggerFactory.getLogger(GasEstimateCache.class);
+
+    private static final int SELECTOR_HEX_LENGTH = 10;
+    private static final int WORD_HEX_LENGTH = 64;
+    // transfer(address,uint256)
+    private static final String TRANSFER_SELECTOR = "0xa9059cbb";
+
+    private final Web3j web3j;
+    private final BlockchainProperties.GasEstimate settings;
+    private final Map<String, Entry> entries;
+    // Estimates in progress, shared by concurrent callers for the same key
+    private final Map<String, CompletableFuture<BigInteger>> loading = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public GasEstimateCache(Web3j web3j, BlockchainProperties properties) {
+        this.web3j = web3j;
+        this.settings = properties.getGasEstimate();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > settings.getMaxSize();
+            }
+        };
+    }
+
+    /**
+     * Gas limit for calling {@code contractAddress} with {@code data} from {@code from}. Fails if there
+     * is no cached limit and the node cannot estimate the call, which usually means it would revert.
+     */
+    public CompletableFuture<BigInteger> gasLimitAsync(String from, String contractAddress, String data) {
+        String key = keyOf(contractAddress, data);
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry != null) {
+            hits.incrementAndGet();
+            if (entry.isStale(settings.getRefreshMs())) {
+                load(key, entry, from, contractAddress, data).exceptionally(e -> {
+                    log.debug("Gas estimate refresh failed for {}: {}", key, e.getMessage());
+                    return null;
+                });
+            }
+            return CompletableFuture.completedFuture(entry.gasLimit);
+        }
+        misses.incrementAndGet();
+        return load(key, null, from, contractAddress, data);
+    }
+
+    public BigInteger gasLimit(String from, String contractAddress, String data) throws Exception {
+        try {
+            return gasLimitAsync(from, contractAddress, data).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    // previous is the stale entry being refreshed, or null on a miss
+    private CompletableFuture<BigInteger> load(String key, Entry previous, String from, String contractAddress, String data) {
+        CompletableFuture<BigInteger> mine = new CompletableFuture<>();
+        CompletableFuture<BigInteger> existing = loading.putIfAbsent(key, mine);
+        if (existing != null) {
+            return existing;
+        }
+        if (previous != null) {
+            refreshes.incrementAndGet();
+        }
+        CompletableFuture<BigInteger> estimate;
+        try {
+            estimate = web3j.ethEstimateGas(Transaction.createEthCallTransaction(from, contractAddress, worstCase(data))).sendAsync()
+                    .thenApply(response -> {
+                        if (response.hasError()) {
+                            throw new IllegalStateException("Gas estimation failed: " + response.getError().getMessage());
+                        }
+                        return withMargin(response.getAmountUsed());
+                    });
+        } catch (RuntimeException e) {
+            estimate = CompletableFuture.failedFuture(e);
+        }
+        estimate.whenComplete((estimated, error) -> {
+            // A cheaper caller's estimate must not lower a limit that was already needed
+            BigInteger gasLimit = previous != null && estimated != null ? previous.gasLimit.max(estimated) : estimated;
+            if (error == null) {
+                synchronized (entries) {
+                    entries.put(key, new Entry(gasLimit));
+                }
+            } else {
+                failures.incrementAndGet();
+                if (previous != null) {
+                    // Keep the old limit for another period rather than retrying on every call
+                    synchronized (entries) {
+                        entries.replace(key, previous, new Entry(previous.gasLimit));
+                    }
+                }
+            }
+            loading.remove(key, mine);
+            if (error != null) {
+                mine.completeExceptionally(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            } else {
+                mine.complete(gasLimit);
+            }
+        });
+        return mine;
+    }
+
+    private BigInteger withMargin(BigInteger estimate) {
+        return estimate.multiply(BigInteger.valueOf(100L + settings.getMarginPercent())).add(BigInteger.valueOf(99)).divide(BigInteger.valueOf(100));
+    }
+
+    // An ERC20 transfer with the recipient swapped for a random address, which certainly holds no tokens:
+    // creating its balance slot is the most expensive transfer. Other calls are estimated as they are.
+    static String worstCase(String data) {
+        if (data == null || data.length() < SELECTOR_HEX_LENGTH + WORD_HEX_LENGTH
+                || !data.substring(0, SELECTOR_HEX_LENGTH).equalsIgnoreCase(TRANSFER_SELECTOR)) {
+            return data;
+        }
+        byte[] recipient = new byte[20];
+        ThreadLocalRandom.current().nextBytes(recipient);
+        return data.substring(0, SELECTOR_HEX_LENGTH) + Numeric.toHexStringNoPrefixZeroPadded(Numeric.toBigInt(recipient), WORD_HEX_LENGTH)
+                + data.substring(SELECTOR_HEX_LENGTH + WORD_HEX_LENGTH);
+    }
+
+    // Contract address plus the 4-byte function selector at the start of the call data
+    static String keyOf(String contractAddress, String data) {
+        String selector = data != null && data.length() >= SELECTOR_HEX_LENGTH ? data.substring(0, SELECTOR_HEX_LENGTH) : String.valueOf(data);
+        return contractAddress.toLowerCase() + ':' + selector.toLowerCase();
+    }
+
+    public Map<String, Object> getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return Map.of(
+                "hits", hits.get(),
+                "misses", misses.get(),
+                "refreshes", refreshes.get(),
+                "failures", failures.get(),
+                "size", size);
+    }
+
+    private static final class Entry {
+        final BigInteger gasLimit;
+        final long loadedAtNanos = System.nanoTime();
+
+        Entry(BigInteger gasLimit) {
+            this.gasLimit = gasLimit;
+        }
+
+        boolean isStale(long refreshMs) {
+            return System.nanoTime() - loadedAtNanos > TimeUnit.MILLISECONDS.toNanos(refreshMs);
+        }
+    }
+}
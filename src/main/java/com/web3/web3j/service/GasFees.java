@@ -0,0 +1,59 @@
+package com.web3.web3j.service;
+
+import org.web3j.crypto.RawTransaction;
+
+import java.math.BigInteger;
+
+/**
+ * Fee suggestion from the {@link GasPriceOracle} for one urgency level. On EIP-1559 chains it
+ * carries a max fee and priority fee; on legacy chains only a gas price.
+ */
+public class GasFees {
+    private final GasPriceOracle.Urgency urgency;
+    private final BigInteger blockNumber;
+    private final long chainId;
+    private final BigInteger baseFeePerGas;
+    private final BigInteger maxPriorityFeePerGas;
+    private final BigInteger maxFeePerGas;
+    private final BigInteger gasPrice;
+
+    private GasFees(GasPriceOracle.Urgency urgency, BigInteger blockNumber, long chainId, BigInteger baseFeePerGas,
+                    BigInteger maxPriorityFeePerGas, BigInteger maxFeePerGas, BigInteger gasPrice) {
+        this.urgency = urgency;
+        this.blockNumber = blockNumber;
+        this.chainId = chainId;
+        this.baseFeePerGas = baseFeePerGas;
+        this.maxPriorityFeePerGas = maxPriorityFeePerGas;
+        this.maxFeePerGas = maxFeePerGas;
+        this.gasPrice = gasPrice;
+    }
+
+    public static GasFees eip1559(GasPriceOracle.Urgency urgency, BigInteger blockNumber, long chainId,
+                                  BigInteger baseFeePerGas, BigInteger maxPriorityFeePerGas, BigInteger maxFeePerGas) {
+        return new GasFees(urgency, blockNumber, chainId, baseFeePerGas, maxPriorityFeePerGas, maxFeePerGas, null);
+    }
+
+    public static GasFees legacy(GasPriceOracle.Urgency urgency, BigInteger blockNumber, BigInteger gasPrice) {
+        return new GasFees(urgency, blockNumber, 0, null, null, null, gasPrice);
+    }
+
+    public boolean isEip1559() {
+        return maxFeePerGas != null;
+    }
+
+    // Build an unsigned transaction priced with these fees: type 2 on EIP-1559 chains, legacy otherwise
+    public RawTransaction createTransaction(BigInteger nonce, BigInteger gasLimit, String to, BigInteger value, String data) {
+        if (isEip1559()) {
+            return RawTransaction.createTransaction(chainId, nonce, gasLimit, to, value, data, maxPriorityFeePerGas, maxFeePerGas);
+        }
+        return RawTransaction.createTransaction(nonce, gasPrice, gasLimit, to, value, data);
+    }
+
+    public GasPriceOracle.Urgency getUrgency() { return urgency; }
+    public BigInteger getBlockNumber() { return blockNumber; }
+    public long getChainId() { return chainId; }
+    public BigInteger getBaseFeePerGas() { return baseFeePerGas; }
+    public BigInteger getMaxPriorityFeePerGas() { return maxPriorityFeePerGas; }
+    public BigInteger getMaxFeePerGas() { return maxFeePerGas; }
+    public BigInteger getGasPrice() { return gasPrice; }
+}
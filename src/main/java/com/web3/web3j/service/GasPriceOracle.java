@@ -0,0 +1,268 @@
+package com.web3.web3j.service;
+
+import com.web3.web3j.config.BlockchainProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.response.EthFeeHistory;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Fee suggestions refreshed once per block, so sending a transaction needs no gas price RPC.
+ * <p>
+ * On each new head the oracle asks the node for {@code eth_feeHistory} over the last
+ * {@code blockchain.gas.history-blocks} blocks. For each urgency level the priority fee is the
+ * median, across those blocks, of the tip paid at that level's percentile, and the max fee is
+ * the next block's base fee times {@code blockchain.gas.base-fee-multiplier} plus that tip, which
+ * keeps a transaction valid through several blocks of rising base fees. Nodes without
+ * {@code eth_feeHistory} (or without a base fee) fall back to a legacy {@code eth_gasPrice}; any
+ * other {@code eth_feeHistory} error only makes that one refresh legacy.
+ * If no head has been seen for {@code blockchain.gas.max-age-ms}, the next caller refreshes.
+ */
+@Service
+public class GasPriceOracle implements BlockHeadTracker.NewHeadListener {
+    private static final Logger log = LoggerFactory.getLogger(GasPriceOracle.class);
+
+    public enum Urgency {
+        LOW, MEDIUM, HIGH;
+
+        public static Urgency parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Unknown urgency: " + value + " (expected low, medium or high)");
+            }
+        }
+    }
+
+    private final Web3j web3j;
+    private final BlockHeadTracker headTracker;
+    private final BlockchainProperties.Gas settings;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    // The refresh in progress, shared by every caller that needs one
+    private final AtomicReference<CompletableFuture<Snapshot>> refreshing = new AtomicReference<>();
+    private volatile Long chainId;
+    private volatile boolean feeHistoryUnsupported;
+
+    public GasPriceOracle(Web3j web3j, BlockHeadTracker headTracker, BlockchainProperties properties) {
+        this.web3j = web3j;
+        this.headTracker = headTracker;
+        this.settings = properties.getGas();
+        headTracker.addListener(this);
+    }
+
+    @Override
+    public void onNewHead(BigInteger blockNumber) {
+        Snapshot current = snapshot.get();
+        if (current != null && current.blockNumber != null && current.blockNumber.compareTo(blockNumber) >= 0) {
+            return;
+        }
+        refresh().exceptionally(e -> {
+            log.debug("Gas price refresh failed at block {}: {}", blockNumber, e.getMessage());
+            return null;
+        });
+    }
+
+    // Fees for the configured default urgency (blockchain.gas.urgency)
+    public CompletableFuture<GasFees> suggestAsync() {
+        return suggestAsync(Urgency.parse(settings.getUrgency()));
+    }
+
+    public CompletableFuture<GasFees> suggestAsync(Urgency urgency) {
+        Snapshot current = snapshot.get();
+        if (current != null && !current.isStale(settings.getMaxAgeMs())) {
+            return CompletableFuture.completedFuture(current.fees.get(urgency));
+        }
+        return refresh().thenApply(fresh -> fresh.fees.get(urgency));
+    }
+
+    public GasFees suggest() throws Exception {
+        try {
+            return suggestAsync().get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    public CompletableFuture<Map<String, Object>> getSuggestionsAsync() {
+        Snapshot current = snapshot.get();
+        CompletableFuture<Snapshot> ready = current != null && !current.isStale(settings.getMaxAgeMs())
+                ? CompletableFuture.completedFuture(current)
+                : refresh();
+        return ready.thenApply(fresh -> {
+            Map<String, Object> suggestions = new LinkedHashMap<>();
+            for (Urgency urgency : Urgency.values()) {
+                suggestions.put(urgency.name().toLowerCase(Locale.ROOT), fresh.fees.get(urgency));
+            }
+            return suggestions;
+        });
+    }
+
+    private CompletableFuture<Snapshot> refresh() {
+        CompletableFuture<Snapshot> mine = new CompletableFuture<>();
+        CompletableFuture<Snapshot> existing = refreshing.compareAndExchange(null, mine);
+        if (existing != null) {
+            return existing;
+        }
+        CompletableFuture<Snapshot> load;
+        try {
+            load = feeHistoryUnsupported ? loadLegacy() : loadFeeHistory();
+        } catch (RuntimeException e) {
+            load = CompletableFuture.failedFuture(e);
+        }
+        load.whenComplete((fresh, error) -> {
+            if (error == null) {
+                snapshot.accumulateAndGet(fresh, (previous, next) -> previous == null || !isOlder(next, previous) ? next : previous);
+            }
+            refreshing.set(null);
+            if (error != null) {
+                mine.completeExceptionally(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            } else {
+                mine.complete(fresh);
+            }
+        });
+        return mine;
+    }
+
+    private CompletableFuture<Snapshot> loadFeeHistory() {
+        List<Double> percentiles = List.of(settings.getLowPercentile(), settings.getMediumPercentile(), settings.getHighPercentile());
+        CompletableFuture<EthFeeHistory> history = web3j.ethFeeHistory(settings.getHistoryBlocks(), DefaultBlockParameterName.LATEST, percentiles).sendAsync();
+        return history.thenCombine(chainIdAsync(), (response, id) -> {
+            if (id == null) {
+                return null;
+            }
+            if (response.hasError()) {
+                // Rate limits and timeouts pass: only a node without the method is switched to legacy pricing for good
+                if (isMethodNotFound(response.getError())) {
+                    log.info("eth_feeHistory unavailable ({}), using legacy gas prices", response.getError().getMessage());
+                    feeHistoryUnsupported = true;
+                } else {
+                    log.debug("eth_feeHistory failed ({}), using a legacy gas price for this block", response.getError().getMessage());
+                }
+                return null;
+            }
+            if (response.getFeeHistory() == null || response.getFeeHistory().getBaseFeePerGas() == null
+                    || response.getFeeHistory().getBaseFeePerGas().isEmpty()) {
+                log.info("eth_feeHistory returned no base fee (pre-London chain), using legacy gas prices");
+                feeHistoryUnsupported = true;
+                return null;
+            }
+            return fromFeeHistory(response.getFeeHistory(), id);
+        }).thenCompose(fresh -> fresh != null ? CompletableFuture.completedFuture(fresh) : loadLegacy());
+    }
+
+    // JSON-RPC -32601, or the wording nodes use for it when they answer with a generic code
+    private static boolean isMethodNotFound(Response.Error error) {
+        if (error.getCode() == -32601) {
+            return true;
+        }
+        String message = error.getMessage() == null ? "" : error.getMessage().toLowerCase(Locale.ROOT);
+        return message.contains("method not found") || message.contains("does not exist") || message.contains("not supported");
+    }
+
+    // null when the node cannot tell us; type 2 transactions cannot be signed without it
+    private CompletableFuture<Long> chainIdAsync() {
+        Long known = chainId;
+        if (known != null) {
+            return CompletableFuture.completedFuture(known);
+        }
+        return web3j.ethChainId().sendAsync().handle((response, error) -> {
+            if (error != null || response.hasError() || response.getResult() == null) {
+                return null;
+            }
+            long id = response.getChainId().longValue();
+            chainId = id;
+            return id;
+        });
+    }
+
+    private Snapshot fromFeeHistory(EthFeeHistory.FeeHistory history, long id) {
+        List<BigInteger> baseFees = history.getBaseFeePerGas();
+        // The last entry is the base fee of the block after the newest one in the range
+        BigInteger nextBaseFee = baseFees.get(baseFees.size() - 1);
+        BigInteger newestBlock = history.getOldestBlock().add(BigInteger.valueOf(baseFees.size() - 2L));
+        BigDecimal multiplier = BigDecimal.valueOf(settings.getBaseFeeMultiplier());
+        BigInteger bufferedBaseFee = new BigDecimal(nextBaseFee).multiply(multiplier).setScale(0, RoundingMode.CEILING).toBigInteger();
+        BigInteger minTip = BigInteger.valueOf(settings.getMinPriorityFeeWei());
+
+        Map<Urgency, GasFees> fees = new EnumMap<>(Urgency.class);
+        BigInteger floor = BigInteger.ZERO;
+        for (Urgency urgency : Urgency.values()) {
+            // Higher urgency never pays a lower tip, even when the samples are thin
+            BigInteger tip = medianReward(history.getReward(), urgency.ordinal()).max(minTip).max(floor);
+            floor = tip;
+            fees.put(urgency, GasFees.eip1559(urgency, newestBlock, id, nextBaseFee, tip, bufferedBaseFee.add(tip)));
+        }
+        return new Snapshot(newestBlock, fees);
+    }
+
+    private CompletableFuture<Snapshot> loadLegacy() {
+        BigInteger head = headTracker.getCurrentHead();
+        return web3j.ethGasPrice().sendAsync().thenApply(response -> {
+            if (response.hasError()) {
+                throw new IllegalStateException("eth_gasPrice failed: " + response.getError().getMessage());
+            }
+            Map<Urgency, GasFees> fees = new EnumMap<>(Urgency.class);
+            for (Urgency urgency : Urgency.values()) {
+                fees.put(urgency, GasFees.legacy(urgency, head, response.getGasPrice()));
+            }
+            return new Snapshot(head, fees);
+        });
+    }
+
+    // Median across blocks of the reward at one percentile; blocks with no transactions report no rewards
+    private static BigInteger medianReward(List<List<BigInteger>> rewards, int index) {
+        if (rewards == null) {
+            return BigInteger.ZERO;
+        }
+        List<BigInteger> samples = new ArrayList<>(rewards.size());
+        for (List<BigInteger> block : rewards) {
+            if (block != null && block.size() > index && block.get(index).signum() > 0) {
+                samples.add(block.get(index));
+            }
+        }
+        if (samples.isEmpty()) {
+            return BigInteger.ZERO;
+        }
+        Collections.sort(samples);
+        return samples.get(samples.size() / 2);
+    }
+
+    private static boolean isOlder(Snapshot candidate, Snapshot current) {
+        return candidate.blockNumber != null && current.blockNumber != null && candidate.blockNumber.compareTo(current.blockNumber) < 0;
+    }
+
+    private static final class Snapshot {
+        final BigInteger blockNumber;
+        final Map<Urgency, GasFees> fees;
+        final long loadedAtNanos = System.nanoTime();
+
+        Snapshot(BigInteger blockNumber, Map<Urgency, GasFees> fees) {
+            this.blockNumber = blockNumber;
+            this.fees = fees;
+        }
+
+        boolean isStale(long maxAgeMs) {
+            return System.nanoTime() - loadedAtNanos > TimeUnit.MILLISECONDS.toNanos(maxAgeMs);
+        }
+    }
+}
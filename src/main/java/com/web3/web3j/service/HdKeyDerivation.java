@@ -0,0 +1,56 @@
+package com.web3.web3j.service;
+
+import org.bouncycastle.math.ec.ECPoint;
+import org.web3j.crypto.Bip32ECKeyPair;
+import org.web3j.crypto.ECKeyPair;
+import org.web3j.crypto.Hash;
+import org.web3j.crypto.Keys;
+import org.web3j.crypto.Sign;
+import org.web3j.utils.Numeric;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * BIP-32 helpers for HD wallets. Private derivation is delegated to web3j's {@link Bip32ECKeyPair};
+ * public (CKDpub) derivation, which web3j does not offer, is implemented here so deposit addresses
+ * can be issued from a chain's public key and chain code alone.
+ */
+public final class HdKeyDerivation {
+
+    // m/44'/60'/0'/0: the BIP-44 external chain for the first Ethereum account
+    private static final int[] EXTERNAL_CHAIN_PATH = {
+            44 | Bip32ECKeyPair.HARDENED_BIT, 60 | Bip32ECKeyPair.HARDENED_BIT, Bip32ECKeyPair.HARDENED_BIT, 0
+    };
+
+    private HdKeyDerivation() {}
+
+    // Derive the BIP-44 external chain node from a BIP-32 seed
+    public static Bip32ECKeyPair externalChain(byte[] seed) {
+        return Bip32ECKeyPair.deriveKeyPair(Bip32ECKeyPair.generateKeyPair(seed), EXTERNAL_CHAIN_PATH);
+    }
+
+    // Address of non-hardened child {@code index}, derived from public data only (one EC point addition)
+    public static String childAddress(byte[] compressedPublicKey, byte[] chainCode, int index) {
+        if ((index & Bip32ECKeyPair.HARDENED_BIT) != 0) {
+            throw new IllegalArgumentException("Hardened children cannot be derived from a public key");
+        }
+        ECPoint parent = Sign.CURVE_PARAMS.getCurve().decodePoint(compressedPublicKey);
+        byte[] data = ByteBuffer.allocate(37).put(compressedPublicKey).putInt(index).array();
+        BigInteger tweak = new BigInteger(1, Arrays.copyOfRange(Hash.hmacSha512(chainCode, data), 0, 32));
+        if (tweak.compareTo(Sign.CURVE_PARAMS.getN()) >= 0) {
+            throw new IllegalStateException("Invalid child key at index " + index);
+        }
+        ECPoint child = Sign.publicPointFromPrivate(tweak).add(parent).normalize();
+        byte[] encoded = child.getEncoded(false);
+        BigInteger publicKey = new BigInteger(1, Arrays.copyOfRange(encoded, 1, encoded.length));
+        return Numeric.prependHexPrefix(Keys.getAddress(publicKey));
+    }
+
+    // Key pair of child {@code index}, from the decrypted chain key and its chain code
+    public static ECKeyPair childKeyPair(ECKeyPair chainKey, byte[] chainCode, int index) {
+        Bip32ECKeyPair chain = new Bip32ECKeyPair(chainKey.getPrivateKey(), chainKey.getPublicKey(), 0, chainCode, null);
+        return Bip32ECKeyPair.deriveKeyPair(chain, new int[]{index});
+    }
+}
@@ -0,0 +1,204 @@
+package com.web3.web3j.service;
+
+import com.web3.web3j.config.WalletProperties;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.web3j.crypto.WalletFile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dedicated executor for scrypt keystore encryption/decryption.
+ * <p>
+ * A full-strength scrypt run allocates roughly 128 * r * N bytes, so running them directly on
+ * request threads can exhaust the heap. Jobs here run on a small pool sized from the heap budget
+ * ({@code wallets.kdf.heap-fraction} of max heap) and the configured KDF profile, and each job
+ * also reserves its own memory cost from a shared budget before it starts, so keystores with
+ * different parameters are admitted by weight. Jobs queue up to {@code wallets.kdf.queue-capacity}
+ * and callers give up after {@code wallets.kdf.timeout-ms}; both cases surface as
+ * {@link RejectedExecutionException}.
+ */
+@Service
+public class KdfExecutor {
+    private static final Logger log = LoggerFactory.getLogger(KdfExecutor.class);
+
+    private static final long MB = 1024 * 1024;
+    private static final String QUEUE_FULL = "Too many wallet encryption requests in progress, try again later";
+    // web3j keystores always use r = 8
+    private static final int SCRYPT_R = 8;
+
+    private final WalletProperties.Kdf settings;
+    private final ThreadPoolExecutor executor;
+    private final Semaphore memoryBudget;
+    private final int budgetMb;
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+
+    public KdfExecutor(WalletProperties properties) {
+        this.settings = properties.getKdf();
+        this.budgetMb = (int) Math.max(1, (long) (Runtime.getRuntime().maxMemory() * settings.getHeapFraction()) / MB);
+        this.memoryBudget = new Semaphore(budgetMb, true);
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        int maxThreads = settings.getMaxThreads() > 0 ? settings.getMaxThreads() : cores;
+        long profileMb = Math.max(1, scryptMemoryBytes(settings.effectiveN(), SCRYPT_R, settings.effectiveP()) / MB);
+        int threads = (int) Math.max(1, Math.min(maxThreads, budgetMb / profileMb));
+
+        AtomicInteger threadIds = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, settings.getQueueCapacity())),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "kdf-" + threadIds.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        log.info("KDF executor: {} threads, {} MB memory budget", threads, budgetMb);
+    }
+
+    /**
+     * Run a KDF job that needs about {@code memoryBytes} of heap and wait for its result.
+     * @throws RejectedExecutionException if the queue is full or the job did not finish in time
+     */
+    public <T> T run(long memoryBytes, Callable<T> job) throws Exception {
+        try {
+            return submit(memoryBytes, job).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    /**
+     * Queue a KDF job without waiting for it. The future fails with {@link RejectedExecutionException}
+     * if the queue is full or the job does not finish within the timeout (the job is then interrupted).
+     */
+    public <T> CompletableFuture<T> submit(long memoryBytes, Callable<T> job) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task;
+        try {
+            task = executor.submit(() -> {
+                try {
+                    result.complete(runWithinBudget(memoryBytes, job));
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            return CompletableFuture.failedFuture(new RejectedExecutionException(QUEUE_FULL));
+        }
+
+        CompletableFuture<T> bounded = new CompletableFuture<>();
+        result.orTimeout(settings.getTimeoutMs(), TimeUnit.MILLISECONDS).whenComplete((value, error) -> {
+            if (error == null) {
+                bounded.complete(value);
+            } else if (error instanceof TimeoutException) {
+                task.cancel(true);
+                timedOut.incrementAndGet();
+                bounded.completeExceptionally(new RejectedExecutionException("Timed out waiting for wallet encryption capacity, try again later"));
+            } else {
+                bounded.completeExceptionally(error);
+            }
+        });
+        return bounded;
+    }
+
+    /**
+     * Run many KDF jobs in parallel for a bulk request. At most one pool's worth of jobs is queued
+     * at a time, so a bulk request cannot fill the queue and starve single requests; the caller
+     * blocks while the window is full. Futures are returned in job order and fail individually.
+     */
+    public <T> List<CompletableFuture<T>> runAll(long memoryBytes, List<Callable<T>> jobs) throws InterruptedException {
+        Semaphore window = new Semaphore(executor.getMaximumPoolSize());
+        List<CompletableFuture<T>> futures = new ArrayList<>(jobs.size());
+        for (Callable<T> job : jobs) {
+            window.acquire();
+            CompletableFuture<T> future = new CompletableFuture<>();
+            try {
+                executor.execute(() -> {
+                    try {
+                        future.complete(runWithinBudget(memoryBytes, job));
+                    } catch (Throwable t) {
+                        future.completeExceptionally(t);
+                    } finally {
+                        window.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                window.release();
+                rejected.incrementAndGet();
+                future.completeExceptionally(new RejectedExecutionException(QUEUE_FULL));
+            }
+            futures.add(future);
+        }
+        return futures;
+    }
+
+    private <T> T runWithinBudget(long memoryBytes, Callable<T> job) throws Exception {
+        // A job bigger than the whole budget may still run, but only on its own
+        int permits = (int) Math.min(budgetMb, Math.max(1, memoryBytes / MB));
+        memoryBudget.acquire(permits);
+        try {
+            T result = job.call();
+            completed.incrementAndGet();
+            return result;
+        } finally {
+            memoryBudget.release(permits);
+        }
+    }
+
+    // Approximate peak allocation of one scrypt run: the N-block V array plus the p-block B array
+    public static long scryptMemoryBytes(int n, int r, int p) {
+        return 128L * r * n + 128L * r * p;
+    }
+
+    // Memory needed to decrypt a keystore, based on its own KDF parameters
+    public static long memoryFor(WalletFile walletFile) {
+        if (walletFile.getCrypto().getKdfparams() instanceof WalletFile.ScryptKdfParams scrypt) {
+            return scryptMemoryBytes(scrypt.getN(), scrypt.getR(), scrypt.getP());
+        }
+        // PBKDF2 keystores need next to no memory
+        return MB;
+    }
+
+    // Memory needed to encrypt a keystore with the configured profile
+    public long memoryForConfiguredProfile() {
+        return scryptMemoryBytes(settings.effectiveN(), SCRYPT_R, settings.effectiveP());
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+                "threads", executor.getMaximumPoolSize(),
+                "active", executor.getActiveCount(),
+                "queued", executor.getQueue().size(),
+                "memoryBudgetMb", budgetMb,
+                "memoryAvailableMb", memoryBudget.availablePermits(),
+                "completed", completed.get(),
+                "rejected", rejected.get(),
+                "timedOut", timedOut.get());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,130 @@
+package com.web3.web3j.service;
+
+import com.web3.web3j.repository.WalletRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory set of the addresses of every wallet we manage, so the block scanner can ask "is this
+ * address ours?" without a database query. Loaded from the wallets table at startup and kept up
+ * to date by {@link WalletService} as wallets are created and deleted.
+ * <p>
+ * Addresses live in an {@link AddressIndex}: raw 20-byte keys in flat arrays behind a Bloom filter,
+ * so a lookup allocates nothing and most misses never reach the table. Writes are rare and take a
+ * lock; lookups read optimistically and only take the read lock if a write overlapped them.
+ */
+@Service
+public class ManagedAddressRegistry {
+    private static final Logger log = LoggerFactory.getLogger(ManagedAddressRegistry.class);
+
+    private final WalletRepository walletRepository;
+    private final StampedLock lock = new StampedLock();
+    private AddressIndex addresses = new AddressIndex(0);
+    private volatile boolean loaded;
+
+    public ManagedAddressRegistry(WalletRepository walletRepository) {
+        this.walletRepository = walletRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadAll() {
+        // Sized up front so loading never rehashes; wallets created meanwhile go into the same index
+        long expected = walletRepository.count();
+        long stamp = lock.writeLock();
+        try {
+            addresses = new AddressIndex(expected);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        try (Stream<String> all = walletRepository.streamAllAddresses()) {
+            // A malformed row would otherwise stop the load and leave the scanner waiting
+            all.filter(AddressIndex::isAddress).forEach(this::add);
+        }
+        loaded = true;
+        Map<String, Object> stats = getStats();
+        log.info("Loaded {} managed addresses ({} bytes)", stats.get("size"), stats.get("memoryBytes"));
+    }
+
+    // False until the wallets table has been read; nothing should be matched before that
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public void add(String address) {
+        long stamp = lock.writeLock();
+        try {
+            addresses.add(address);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void remove(String address) {
+        long stamp = lock.writeLock();
+        try {
+            addresses.remove(address);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void removeAll(Collection<String> removed) {
+        removed.forEach(this::remove);
+    }
+
+    // Case-insensitive; false for null or malformed addresses
+    public boolean contains(String address) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            boolean found = addresses.contains(address);
+            if (lock.validate(stamp)) {
+                return found;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return addresses.contains(address);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return addresses.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // A copy of every managed address; for small registries only, it allocates a string per address
+    public List<String> addresses() {
+        long stamp = lock.readLock();
+        try {
+            return addresses.toList();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long stamp = lock.readLock();
+        try {
+            return Map.of("size", addresses.size(), "memoryBytes", addresses.memoryBytes());
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+}
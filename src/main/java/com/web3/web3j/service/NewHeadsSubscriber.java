@@ -0,0 +1,222 @@
+package com.web3.web3j.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.web3.web3j.config.BlockchainProperties;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.web3j.protocol.ObjectMapperFactory;
+import org.web3j.protocol.Web3j;
+import org.web3j.utils.Numeric;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Feeds the {@link BlockHeadTracker} from an {@code eth_subscribe("newHeads")} WebSocket
+ * subscription, so listeners hear about a block as soon as the node has it and the tracker stops
+ * polling. Enabled by setting {@code blockchain.head.ws-url}.
+ * <p>
+ * A dropped or silent connection (no head for {@code blockchain.head.push-stale-ms}) is replaced,
+ * with exponential backoff between attempts; the tracker polls over HTTP in the meantime. Each new
+ * subscription starts by reading the current head over HTTP, so the heads missed while disconnected
+ * are caught up at once instead of at the next block. Consumers that need every block, such as the
+ * {@link BlockScanner}, read from their own checkpoint and miss nothing either way.
+ */
+@Service
+public class NewHeadsSubscriber implements WebSocket.Listener {
+    private static final Logger log = LoggerFactory.getLogger(NewHeadsSubscriber.class);
+
+    private static final String SUBSCRIBE = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"eth_subscribe\",\"params\":[\"newHeads\"]}";
+
+    private final BlockHeadTracker headTracker;
+    private final Web3j web3j;
+    private final BlockchainProperties.Head settings;
+    private final ObjectMapper objectMapper = ObjectMapperFactory.getObjectMapper();
+    private final ScheduledThreadPoolExecutor timer;
+    private final HttpClient httpClient;
+
+    private volatile boolean running;
+    // The open socket, or null while connecting or waiting to reconnect
+    private volatile WebSocket socket;
+    private volatile String subscriptionId;
+    private volatile long lastMessageNanos;
+    private int failedAttempts;
+    // Text frames of the message being received
+    private final StringBuilder partial = new StringBuilder();
+
+    private final AtomicLong connects = new AtomicLong();
+    private final AtomicLong disconnects = new AtomicLong();
+    private final AtomicLong headsReceived = new AtomicLong();
+
+    public NewHeadsSubscriber(BlockHeadTracker headTracker, Web3j web3j, BlockchainProperties properties) {
+        this.headTracker = headTracker;
+        this.web3j = web3j;
+        this.settings = properties.getHead();
+        this.timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "web3j-new-heads");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timer.setRemoveOnCancelPolicy(true);
+        this.httpClient = HttpClient.newBuilder().executor(timer).build();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (settings.getWsUrl() == null || settings.getWsUrl().isBlank() || running) {
+            return;
+        }
+        running = true;
+        long staleMs = Math.max(1, settings.getPushStaleMs());
+        timer.scheduleWithFixedDelay(this::checkStale, staleMs, staleMs, TimeUnit.MILLISECONDS);
+        connect();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        WebSocket current = socket;
+        socket = null;
+        if (current != null) {
+            current.abort();
+        }
+        timer.shutdownNow();
+    }
+
+    public boolean isSubscribed() {
+        return subscriptionId != null;
+    }
+
+    private void connect() {
+        if (!running) {
+            return;
+        }
+        httpClient.newWebSocketBuilder()
+                .connectTimeout(Duration.ofMillis(Math.max(1, settings.getPushStaleMs())))
+                .buildAsync(URI.create(settings.getWsUrl()), this)
+                .whenComplete((webSocket, e) -> {
+                    if (e != null) {
+                        disconnected(null, "cannot connect to " + settings.getWsUrl());
+                    }
+                });
+    }
+
+    @Override
+    public void onOpen(WebSocket webSocket) {
+        socket = webSocket;
+        lastMessageNanos = System.nanoTime();
+        connects.incrementAndGet();
+        webSocket.sendText(SUBSCRIBE, true);
+        webSocket.request(1);
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+        partial.append(data);
+        if (last) {
+            String message = partial.toString();
+            partial.setLength(0);
+            lastMessageNanos = System.nanoTime();
+            try {
+                handle(webSocket, objectMapper.readTree(message));
+            } catch (Exception e) {
+                log.debug("Ignoring unreadable newHeads message: {}", e.getMessage());
+            }
+        }
+        webSocket.request(1);
+        return null;
+    }
+
+    private void handle(WebSocket webSocket, JsonNode message) {
+        if (message.path("id").asInt() == 1) {
+            if (message.hasNonNull("error")) {
+                // The node does not offer subscriptions here; retrying with backoff is all we can do
+                disconnected(webSocket, "eth_subscribe failed: " + message.get("error").path("message").asText());
+                webSocket.abort();
+                return;
+            }
+            subscriptionId = message.path("result").asText();
+            synchronized (this) {
+                failedAttempts = 0;
+            }
+            log.info("Subscribed to newHeads at {}", settings.getWsUrl());
+            backfill();
+        } else if ("eth_subscription".equals(message.path("method").asText())) {
+            String number = message.path("params").path("result").path("number").asText(null);
+            if (number != null) {
+                headsReceived.incrementAndGet();
+                headTracker.onPushedHead(Numeric.decodeQuantity(number));
+            }
+        }
+    }
+
+    // Catch up on heads missed while disconnected without waiting for the next block
+    private void backfill() {
+        web3j.ethBlockNumber().sendAsync().whenComplete((response, e) -> {
+            if (e == null && !response.hasError()) {
+                headTracker.onNewHead(response.getBlockNumber());
+            }
+        });
+    }
+
+    @Override
+    public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+        disconnected(webSocket, "closed (" + statusCode + ")");
+        return null;
+    }
+
+    @Override
+    public void onError(WebSocket webSocket, Throwable error) {
+        disconnected(webSocket, error.getMessage());
+    }
+
+    // A socket that hears nothing may be dead without knowing it
+    private void checkStale() {
+        WebSocket current = socket;
+        long staleNanos = TimeUnit.MILLISECONDS.toNanos(settings.getPushStaleMs());
+        if (current != null && System.nanoTime() - lastMessageNanos > staleNanos) {
+            disconnected(current, "no message for " + settings.getPushStaleMs() + " ms");
+            current.abort();
+        }
+    }
+
+    // Schedule one reconnect per lost connection; callbacks from a socket already replaced are ignored
+    private synchronized void disconnected(WebSocket webSocket, String reason) {
+        if (webSocket != socket) {
+            return;
+        }
+        socket = null;
+        subscriptionId = null;
+        partial.setLength(0);
+        if (!running) {
+            return;
+        }
+        disconnects.incrementAndGet();
+        long delay = Math.min(settings.getMaxReconnectDelayMs(),
+                settings.getReconnectDelayMs() << Math.min(failedAttempts++, 16));
+        log.warn("newHeads subscription down: {}; reconnecting in {} ms", reason, delay);
+        timer.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+                "enabled", running,
+                "subscribed", isSubscribed(),
+                "connects", connects.get(),
+                "disconnects", disconnects.get(),
+                "headsReceived", headsReceived.get(),
+                "polling", !headTracker.isPushActive());
+    }
+}
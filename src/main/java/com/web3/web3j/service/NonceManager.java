@@ -0,0 +1,159 @@
+package com.web3.web3j.service;
+
+import org.springframework.stereotype.Service;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out transaction nonces per sending address from memory, so concurrent sends
+ * from the same wallet get distinct nonces without a round trip to the node.
+ * The counter is synced to the node's PENDING transaction count on first use and
+ * whenever the node rejects a transaction because of its nonce.
+ */
+@Service
+public class NonceManager {
+
+    private final Web3j web3j;
+    private final Map<String, AddressNonces> nonces = new ConcurrentHashMap<>();
+
+    public NonceManager(Web3j web3j) {
+        this.web3j = web3j;
+    }
+
+    /**
+     * Reserve the next nonce for an address. Released nonces (gaps) are handed out first.
+     */
+    public Allocation allocate(String address) throws IOException {
+        AddressNonces state = stateFor(address);
+        state.ensureSynced(address);
+        return state.take();
+    }
+
+    /**
+     * Non-blocking {@link #allocate}: the first use of an address reads its PENDING count with an
+     * async call, so callers on async continuation threads never wait on the node.
+     */
+    public CompletableFuture<Allocation> allocateAsync(String address) {
+        AddressNonces state = stateFor(address);
+        if (state.synced) {
+            return CompletableFuture.completedFuture(state.take());
+        }
+        return web3j.ethGetTransactionCount(address, DefaultBlockParameterName.PENDING).sendAsync()
+                .thenApply(count -> {
+                    // Another caller may have synced meanwhile and already handed out nonces
+                    state.syncTo(count.getTransactionCount(), false);
+                    return state.take();
+                });
+    }
+
+    /**
+     * Give back a nonce whose transaction never reached the node, so the next send fills the gap.
+     * A nonce allocated before the last resync is ignored: the counter now follows the node.
+     */
+    public void release(String address, Allocation allocation) {
+        stateFor(address).release(allocation);
+    }
+
+    /**
+     * Drop the local view of an address and re-read its PENDING count from the node.
+     */
+    public void resync(String address) throws IOException {
+        BigInteger pending = web3j.ethGetTransactionCount(address, DefaultBlockParameterName.PENDING)
+                .send()
+                .getTransactionCount();
+        stateFor(address).syncTo(pending, true);
+    }
+
+    public CompletableFuture<Void> resyncAsync(String address) {
+        AddressNonces state = stateFor(address);
+        return web3j.ethGetTransactionCount(address, DefaultBlockParameterName.PENDING).sendAsync()
+                .thenAccept(count -> state.syncTo(count.getTransactionCount(), true));
+    }
+
+    // Node error messages that mean our local nonce view is out of date
+    public static boolean isNonceError(String message) {
+        if (message == null) {
+            return false;
+        }
+        String lower = message.toLowerCase();
+        return lower.contains("nonce") || lower.contains("replacement transaction underpriced");
+    }
+
+    private AddressNonces stateFor(String address) {
+        return nonces.computeIfAbsent(address.toLowerCase(), k -> new AddressNonces());
+    }
+
+    // A reserved nonce and the sync epoch it was taken in
+    public static final class Allocation {
+        private final BigInteger nonce;
+        private final long epoch;
+
+        Allocation(BigInteger nonce, long epoch) {
+            this.nonce = nonce;
+            this.epoch = epoch;
+        }
+
+        public BigInteger getNonce() {
+            return nonce;
+        }
+    }
+
+    // Per-address counter; every change happens under the instance lock
+    private class AddressNonces {
+        private final TreeSet<Long> gaps = new TreeSet<>();
+        private long next;
+        // Bumped on every resync, so releases of nonces taken before it are recognised as stale
+        private long epoch;
+        private volatile boolean synced;
+
+        void ensureSynced(String address) throws IOException {
+            if (!synced) {
+                // Nothing can be handed out before the first sync, so holding the lock here costs nothing
+                synchronized (this) {
+                    if (!synced) {
+                        BigInteger pending = web3j.ethGetTransactionCount(address, DefaultBlockParameterName.PENDING)
+                                .send()
+                                .getTransactionCount();
+                        syncTo(pending, false);
+                    }
+                }
+            }
+        }
+
+        synchronized void syncTo(BigInteger pending, boolean force) {
+            if (synced && !force) {
+                return;
+            }
+            gaps.clear();
+            next = pending.longValueExact();
+            epoch++;
+            synced = true;
+        }
+
+        synchronized Allocation take() {
+            Long gap = gaps.pollFirst();
+            long value = gap != null ? gap : next++;
+            return new Allocation(BigInteger.valueOf(value), epoch);
+        }
+
+        synchronized void release(Allocation allocation) {
+            if (allocation.epoch != epoch) {
+                return;
+            }
+            long value = allocation.nonce.longValueExact();
+            // Most of the time the released nonce is the last one issued: just roll the counter back
+            if (value + 1 == next) {
+                next = value;
+            } else if (value < next) {
+                gaps.add(value);
+            }
+        }
+    }
+}
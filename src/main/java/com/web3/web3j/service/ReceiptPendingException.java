@@ -0,0 +1,20 @@
+package com.web3.web3j.service;
+
+/**
+ * A broadcast transaction was not mined within {@code blockchain.tracker.wait-timeout-seconds}.
+ * It is still tracked, so {@code GET /blockchain/transactions/{hash}} reports it once mined.
+ */
+public class ReceiptPendingException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    // Only meaningful in this process; not carried if the exception is serialized
+    private final transient TrackedTransaction transaction;
+
+    public ReceiptPendingException(TrackedTransaction transaction) {
+        super("Transaction receipt not found yet for " + transaction.getTransactionHash());
+        this.transaction = transaction;
+    }
+
+    public TrackedTransaction getTransaction() { return transaction; }
+}
@@ -0,0 +1,184 @@
+package com.web3.web3j.service;
+
+import com.web3.web3j.config.BlockchainProperties;
+import org.springframework.stereotype.Service;
+import org.web3j.abi.FunctionEncoder;
+import org.web3j.abi.FunctionReturnDecoder;
+import org.web3j.abi.TypeReference;
+import org.web3j.abi.datatypes.Address;
+import org.web3j.abi.datatypes.Bool;
+import org.web3j.abi.datatypes.DynamicArray;
+import org.web3j.abi.datatypes.DynamicBytes;
+import org.web3j.abi.datatypes.DynamicStruct;
+import org.web3j.abi.datatypes.Function;
+import org.web3j.abi.datatypes.Type;
+import org.web3j.abi.datatypes.generated.Uint256;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.methods.request.Transaction;
+import org.web3j.utils.Numeric;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * ERC20 balances for many (wallet, token) pairs through the Multicall3 contract.
+ * <p>
+ * Every pair becomes one {@code balanceOf(wallet)} call, and up to {@code blockchain.multicall.batch-size}
+ * calls are packed into a single {@code aggregate3} {@code eth_call}, so a portfolio of dozens of tokens
+ * costs a handful of RPCs instead of one per pair. Calls are sent with {@code allowFailure}, so a token
+ * that reverts or is not a contract only leaves its own balances empty. Chunks run concurrently.
+ */
+@Service
+public class TokenBalanceService {
+
+    private static final List<TypeReference<?>> BALANCE_OUTPUT = List.of(new TypeReference<Uint256>() {});
+    private static final List<TypeReference<?>> AGGREGATE3_OUTPUT = List.of(new TypeReference<DynamicArray<Result>>() {});
+
+    private final Web3j web3j;
+    private final BlockchainProperties.Multicall settings;
+
+    public TokenBalanceService(Web3j web3j, BlockchainProperties properties) {
+        this.web3j = web3j;
+        this.settings = properties.getMulticall();
+    }
+
+    /**
+     * Raw token balances (smallest unit) with one row per wallet and one column per token, both in
+     * request order. An entry is null when that token's {@code balanceOf} call failed.
+     */
+    public CompletableFuture<List<List<BigInteger>>> getTokenBalancesAsync(List<String> wallets, List<String> tokens) {
+        long pairs = (long) wallets.size() * tokens.size();
+        if (pairs > settings.getMaxCalls()) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException(
+                    "Too many balances requested: " + pairs + " (max " + settings.getMaxCalls() + ")"));
+        }
+        List<Call3> calls = new ArrayList<>((int) pairs);
+        for (String wallet : wallets) {
+            String data = balanceOfData(wallet);
+            for (String token : tokens) {
+                calls.add(new Call3(token, data));
+            }
+        }
+
+        BigInteger[] balances = new BigInteger[calls.size()];
+        int chunkSize = Math.max(1, settings.getBatchSize());
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        for (int from = 0; from < calls.size(); from += chunkSize) {
+            int offset = from;
+            List<Call3> chunk = calls.subList(from, Math.min(from + chunkSize, calls.size()));
+            chunks.add(aggregate3(chunk).thenAccept(results -> {
+                for (int i = 0; i < results.size(); i++) {
+                    balances[offset + i] = decodeBalance(results.get(i));
+                }
+            }));
+        }
+
+        return CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0])).thenApply(done -> {
+            List<List<BigInteger>> rows = new ArrayList<>(wallets.size());
+            for (int w = 0; w < wallets.size(); w++) {
+                int start = w * tokens.size();
+                rows.add(Arrays.asList(Arrays.copyOfRange(balances, start, start + tokens.size())));
+            }
+            return rows;
+        });
+    }
+
+    public List<List<BigInteger>> getTokenBalances(List<String> wallets, List<String> tokens) throws Exception {
+        try {
+            return getTokenBalancesAsync(wallets, tokens).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    private CompletableFuture<List<Result>> aggregate3(List<Call3> calls) {
+        String data = aggregate3Data(calls);
+        String multicall = settings.getAddress();
+        return web3j.ethCall(Transaction.createEthCallTransaction(null, multicall, data), DefaultBlockParameterName.LATEST)
+                .sendAsync()
+                .thenApply(response -> {
+                    if (response.hasError()) {
+                        throw new IllegalStateException("Multicall failed: " + response.getError().getMessage());
+                    }
+                    List<Result> results = decodeAggregate3(response.getValue());
+                    if (results.size() != calls.size()) {
+                        // An address without code answers "0x", which decodes to nothing
+                        throw new IllegalStateException("No Multicall3 contract at " + multicall + " (blockchain.multicall.address)");
+                    }
+                    return results;
+                });
+    }
+
+    static String aggregate3Data(List<Call3> calls) {
+        Function function = new Function(
+                "aggregate3",
+                List.of(new DynamicArray<>(Call3.class, calls)),
+                AGGREGATE3_OUTPUT);
+        return FunctionEncoder.encode(function);
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<Result> decodeAggregate3(String value) {
+        List<Type> decoded = FunctionReturnDecoder.decode(value, (List<TypeReference<Type>>) (List<?>) AGGREGATE3_OUTPUT);
+        if (decoded.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return ((DynamicArray<Result>) decoded.get(0)).getValue();
+    }
+
+    static String balanceOfData(String wallet) {
+        Function function = new Function(
+                "balanceOf",
+                List.of(new Address(wallet)),
+                BALANCE_OUTPUT);
+        return FunctionEncoder.encode(function);
+    }
+
+    // null unless the call succeeded and returned a uint256; an address without code "succeeds" with no data
+    @SuppressWarnings("unchecked")
+    private static BigInteger decodeBalance(Result result) {
+        if (!result.success.getValue() || result.returnData.getValue().length < 32) {
+            return null;
+        }
+        List<Type> decoded = FunctionReturnDecoder.decode(
+                Numeric.toHexString(result.returnData.getValue()), (List<TypeReference<Type>>) (List<?>) BALANCE_OUTPUT);
+        return decoded.isEmpty() ? null : ((Uint256) decoded.get(0)).getValue();
+    }
+
+    // Multicall3.Call3: (address target, bool allowFailure, bytes callData)
+    public static class Call3 extends DynamicStruct {
+        public final Address target;
+        public final Bool allowFailure;
+        public final DynamicBytes callData;
+
+        public Call3(Address target, Bool allowFailure, DynamicBytes callData) {
+            super(target, allowFailure, callData);
+            this.target = target;
+            this.allowFailure = allowFailure;
+            this.callData = callData;
+        }
+
+        Call3(String target, String callData) {
+            this(new Address(target), new Bool(true), new DynamicBytes(Numeric.hexStringToByteArray(callData)));
+        }
+    }
+
+    // Multicall3.Result: (bool success, bytes returnData)
+    public static class Result extends DynamicStruct {
+        public final Bool success;
+        public final DynamicBytes returnData;
+
+        public Result(Bool success, DynamicBytes returnData) {
+            super(success, returnData);
+            this.success = success;
+            this.returnData = returnData;
+        }
+    }
+}
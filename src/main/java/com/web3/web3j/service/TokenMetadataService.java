@@ -0,0 +1,196 @@
+package com.web3.web3j.service;
+
+import com.web3.web3j.model.TokenMetadata;
+import com.web3.web3j.repository.TokenMetadataRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.web3j.abi.FunctionEncoder;
+import org.web3j.abi.FunctionReturnDecoder;
+import org.web3j.abi.TypeReference;
+import org.web3j.abi.datatypes.Function;
+import org.web3j.abi.datatypes.Type;
+import org.web3j.abi.datatypes.Utf8String;
+import org.web3j.abi.datatypes.generated.Bytes32;
+import org.web3j.abi.datatypes.generated.Uint8;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.methods.request.Transaction;
+import org.web3j.protocol.core.methods.response.EthCall;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decimals, symbol and name of ERC20 tokens, read from the contract once and kept forever.
+ * <p>
+ * Lookups go memory, then the {@code token_metadata} table, then the chain. The table is loaded
+ * into memory at startup, and a token seen for the first time is read with three concurrent
+ * {@code eth_call}s and saved, so formatting an amount never costs an RPC after the first lookup.
+ */
+@Service
+public class TokenMetadataService {
+    private static final Logger log = LoggerFactory.getLogger(TokenMetadataService.class);
+
+    private final Web3j web3j;
+    private final TokenMetadataRepository tokenMetadataRepository;
+    private final Map<String, TokenMetadata> tokens = new ConcurrentHashMap<>();
+    // Contract reads in progress, shared by concurrent callers for the same token
+    private final Map<String, CompletableFuture<TokenMetadata>> loading = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public TokenMetadataService(Web3j web3j, TokenMetadataRepository tokenMetadataRepository) {
+        this.web3j = web3j;
+        this.tokenMetadataRepository = tokenMetadataRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadAll() {
+        for (TokenMetadata token : tokenMetadataRepository.findAll()) {
+            tokens.put(token.getContractAddress(), token);
+        }
+        log.info("Loaded metadata for {} tokens", tokens.size());
+    }
+
+    public CompletableFuture<TokenMetadata> getAsync(String contractAddress) {
+        String key = contractAddress.toLowerCase();
+        TokenMetadata known = tokens.get(key);
+        if (known != null) {
+            hits.incrementAndGet();
+            return CompletableFuture.completedFuture(known);
+        }
+        misses.incrementAndGet();
+        return load(key);
+    }
+
+    // Metadata of several tokens in request order; null where the contract is not a token or cannot be read
+    public CompletableFuture<List<TokenMetadata>> getAllAsync(List<String> contractAddresses) {
+        List<CompletableFuture<TokenMetadata>> lookups = contractAddresses.stream()
+                .map(contractAddress -> getAsync(contractAddress).exceptionally(e -> {
+                    log.debug("No metadata for token {}: {}", contractAddress, e.getMessage());
+                    return null;
+                }))
+                .toList();
+        return CompletableFuture.allOf(lookups.toArray(CompletableFuture[]::new))
+                .thenApply(done -> lookups.stream().map(CompletableFuture::join).toList());
+    }
+
+    // An amount in the token's smallest unit as whole tokens, e.g. 1500000 at 6 decimals is 1.5
+    public static BigDecimal format(BigInteger amount, TokenMetadata token) {
+        return new BigDecimal(amount, token.getDecimals()).stripTrailingZeros();
+    }
+
+    public TokenMetadata get(String contractAddress) throws Exception {
+        try {
+            return getAsync(contractAddress).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    private CompletableFuture<TokenMetadata> load(String key) {
+        CompletableFuture<TokenMetadata> mine = new CompletableFuture<>();
+        CompletableFuture<TokenMetadata> existing = loading.putIfAbsent(key, mine);
+        if (existing != null) {
+            return existing;
+        }
+        CompletableFuture<TokenMetadata> read;
+        try {
+            // Another instance may have stored it since startup
+            Optional<TokenMetadata> stored = tokenMetadataRepository.findById(key);
+            read = stored.isPresent() ? CompletableFuture.completedFuture(stored.get()) : readContract(key).thenApply(this::save);
+        } catch (RuntimeException e) {
+            read = CompletableFuture.failedFuture(e);
+        }
+        read.whenComplete((token, error) -> {
+            if (error == null) {
+                tokens.put(key, token);
+            }
+            loading.remove(key, mine);
+            if (error != null) {
+                mine.completeExceptionally(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            } else {
+                mine.complete(token);
+            }
+        });
+        return mine;
+    }
+
+    private CompletableFuture<TokenMetadata> readContract(String contractAddress) {
+        CompletableFuture<EthCall> decimals = call(contractAddress, "decimals", new TypeReference<Uint8>() {});
+        CompletableFuture<EthCall> symbol = call(contractAddress, "symbol", new TypeReference<Utf8String>() {});
+        CompletableFuture<EthCall> name = call(contractAddress, "name", new TypeReference<Utf8String>() {});
+        return CompletableFuture.allOf(decimals, symbol, name).thenApply(done -> {
+            EthCall decimalsResponse = decimals.join();
+            List<Type> decoded = decimalsResponse.hasError() ? List.of()
+                    : FunctionReturnDecoder.decode(decimalsResponse.getValue(), outputOf(new TypeReference<Uint8>() {}));
+            if (decoded.isEmpty()) {
+                throw new IllegalArgumentException("Not an ERC20 token (no decimals()): " + contractAddress);
+            }
+            int tokenDecimals = ((Uint8) decoded.get(0)).getValue().intValueExact();
+            return new TokenMetadata(contractAddress, tokenDecimals, decodeText(symbol.join()), decodeText(name.join()));
+        });
+    }
+
+    private CompletableFuture<EthCall> call(String contractAddress, String functionName, TypeReference<?> output) {
+        String data = FunctionEncoder.encode(new Function(functionName, List.of(), List.of(output)));
+        return web3j.ethCall(Transaction.createEthCallTransaction(null, contractAddress, data), DefaultBlockParameterName.LATEST).sendAsync();
+    }
+
+    private TokenMetadata save(TokenMetadata token) {
+        try {
+            return tokenMetadataRepository.save(token);
+        } catch (DataAccessException e) {
+            // Still usable from memory; the next startup reads it from the chain again
+            log.warn("Could not store metadata for token {}: {}", token.getContractAddress(), e.getMessage());
+            return token;
+        }
+    }
+
+    // symbol() and name() return string, except on a few early tokens that return bytes32
+    static String decodeText(EthCall response) {
+        if (response.hasError() || response.getValue() == null) {
+            return null;
+        }
+        String value = response.getValue();
+        // A bytes32 result is exactly one word; an ABI string is at least two (offset and length)
+        if (value.length() == 2 + 64) {
+            List<Type> decoded = FunctionReturnDecoder.decode(value, outputOf(new TypeReference<Bytes32>() {}));
+            return decoded.isEmpty() ? null : new String(((Bytes32) decoded.get(0)).getValue(), StandardCharsets.UTF_8).replace("\0", "");
+        }
+        try {
+            List<Type> decoded = FunctionReturnDecoder.decode(value, outputOf(new TypeReference<Utf8String>() {}));
+            return decoded.isEmpty() ? null : ((Utf8String) decoded.get(0)).getValue();
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<TypeReference<Type>> outputOf(TypeReference<?> type) {
+        return (List<TypeReference<Type>>) (List<?>) List.of(type);
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+                "hits", hits.get(),
+                "misses", misses.get(),
+                "size", tokens.size());
+    }
+
+}
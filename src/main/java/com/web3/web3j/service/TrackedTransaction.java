@@ -0,0 +1,50 @@
+package com.web3.web3j.service;
+
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A submitted transaction whose receipt is resolved in the background by {@link TransactionTracker}.
+ */
+public class TrackedTransaction {
+
+    public enum Status { PENDING, CONFIRMED, FAILED, DROPPED }
+
+    private final String transactionHash;
+    private final Instant submittedAt = Instant.now();
+    private final CompletableFuture<TransactionReceipt> receiptFuture = new CompletableFuture<>();
+    private volatile Status status = Status.PENDING;
+    private volatile TransactionReceipt receipt;
+    private volatile Instant resolvedAt;
+
+    public TrackedTransaction(String transactionHash) {
+        this.transactionHash = transactionHash;
+    }
+
+    void resolve(TransactionReceipt receipt) {
+        this.receipt = receipt;
+        this.status = receipt.isStatusOK() ? Status.CONFIRMED : Status.FAILED;
+        this.resolvedAt = Instant.now();
+        receiptFuture.complete(receipt);
+    }
+
+    void drop() {
+        this.status = Status.DROPPED;
+        this.resolvedAt = Instant.now();
+        receiptFuture.completeExceptionally(
+                new RuntimeException("Transaction " + transactionHash + " was not mined in time"));
+    }
+
+    public boolean isPending() { return status == Status.PENDING; }
+
+    public String getTransactionHash() { return transactionHash; }
+    public Instant getSubmittedAt() { return submittedAt; }
+    public Status getStatus() { return status; }
+    public TransactionReceipt getReceipt() { return receipt; }
+    public Instant getResolvedAt() { return resolvedAt; }
+
+    // Completes with the receipt once mined, or exceptionally if the transaction is dropped
+    public CompletableFuture<TransactionReceipt> getReceiptFuture() { return receiptFuture; }
+}
@@ -0,0 +1,200 @@
+package com.web3.web3j.service;
+
+import com.web3.web3j.config.BlockchainProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.BatchRequest;
+import org.web3j.protocol.core.BatchResponse;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.response.EthGetTransactionReceipt;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of transactions that were broadcast without waiting for them to be mined,
+ * and resolves their receipts from a background poller instead of a request thread.
+ * <p>
+ * A receipt can only appear with a new block, so the pending set is checked once per head from
+ * the {@link BlockHeadTracker}: every pending hash goes into one JSON-RPC batch (split at
+ * {@code blockchain.batch-size}), so the node sees the same few requests per block however many
+ * transactions are in flight. A head that arrives while a check is running queues one more check
+ * for when it finishes, since the running one was sent before that block existed; further heads in
+ * the meantime share that queued check.
+ * The scheduled poll is only a fallback for when no head has triggered a check for
+ * {@code blockchain.tracker.poll-interval-ms}.
+ */
+@Service
+public class TransactionTracker implements BlockHeadTracker.NewHeadListener {
+    private static final Logger log = LoggerFactory.getLogger(TransactionTracker.class);
+
+    private final Web3j web3j;
+    private final BlockchainProperties properties;
+    private final BlockchainProperties.Tracker settings;
+    private final Map<String, TrackedTransaction> transactions = new ConcurrentHashMap<>();
+    // The receipt check in progress, and the one to run after it; both guarded by this
+    private CompletableFuture<Void> inFlight;
+    private CompletableFuture<Void> queued;
+    private volatile long lastPollNanos = System.nanoTime();
+
+    private final AtomicLong polls = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    public TransactionTracker(Web3j web3j, BlockchainProperties properties, BlockHeadTracker headTracker) {
+        this.web3j = web3j;
+        this.properties = properties;
+        this.settings = properties.getTracker();
+        headTracker.addListener(this);
+    }
+
+    // Start tracking a broadcast transaction (idempotent per hash)
+    public TrackedTransaction track(String transactionHash) {
+        return transactions.computeIfAbsent(transactionHash, TrackedTransaction::new);
+    }
+
+    // Look up a tracked transaction by hash
+    public Optional<TrackedTransaction> find(String transactionHash) {
+        return Optional.ofNullable(transactions.get(transactionHash));
+    }
+
+    @Override
+    public void onNewHead(BigInteger blockNumber) {
+        pollReceiptsAsync();
+    }
+
+    @Scheduled(fixedDelayString = "${blockchain.tracker.poll-interval-ms:30000}")
+    public void pollIfIdle() {
+        if (System.nanoTime() - lastPollNanos >= TimeUnit.MILLISECONDS.toNanos(settings.getPollIntervalMs())) {
+            pollReceipts();
+        }
+    }
+
+    // Check every pending transaction now and wait for the answers
+    public void pollReceipts() {
+        pollReceiptsAsync().join();
+    }
+
+    /**
+     * Look up the receipts of all pending transactions in batched requests. Completes normally
+     * even if the node cannot be reached: those transactions stay pending for the next check.
+     */
+    public CompletableFuture<Void> pollReceiptsAsync() {
+        CompletableFuture<Void> mine;
+        synchronized (this) {
+            if (inFlight != null) {
+                // The running check may have missed this caller's block: run once more after it
+                if (queued == null) {
+                    queued = new CompletableFuture<>();
+                }
+                return queued;
+            }
+            mine = new CompletableFuture<>();
+            inFlight = mine;
+        }
+        runCheck(mine);
+        return mine;
+    }
+
+    private void runCheck(CompletableFuture<Void> mine) {
+        lastPollNanos = System.nanoTime();
+        polls.incrementAndGet();
+        CompletableFuture<Void> check;
+        try {
+            check = checkPending();
+        } catch (RuntimeException e) {
+            check = CompletableFuture.failedFuture(e);
+        }
+        check.whenComplete((ignored, e) -> {
+            if (e != null) {
+                log.debug("Receipt check failed: {}", e.getMessage());
+            }
+            CompletableFuture<Void> next;
+            synchronized (this) {
+                next = queued;
+                queued = null;
+                inFlight = next;
+            }
+            mine.complete(null);
+            if (next != null) {
+                runCheck(next);
+            }
+        });
+    }
+
+    private CompletableFuture<Void> checkPending() {
+        Instant now = Instant.now();
+        Duration retention = Duration.ofSeconds(settings.getRetentionSeconds());
+        List<TrackedTransaction> pending = new ArrayList<>();
+        for (TrackedTransaction tx : transactions.values()) {
+            if (tx.isPending()) {
+                pending.add(tx);
+            } else if (tx.getResolvedAt().plus(retention).isBefore(now)) {
+                transactions.remove(tx.getTransactionHash());
+            }
+        }
+
+        int chunkSize = Math.max(1, properties.getBatchSize());
+        List<CompletableFuture<Void>> requests = new ArrayList<>();
+        for (int from = 0; from < pending.size(); from += chunkSize) {
+            List<TrackedTransaction> chunk = pending.subList(from, Math.min(from + chunkSize, pending.size()));
+            BatchRequest batch = web3j.newBatch();
+            for (TrackedTransaction tx : chunk) {
+                batch.add(web3j.ethGetTransactionReceipt(tx.getTransactionHash()));
+            }
+            batches.incrementAndGet();
+            requests.add(batch.sendAsync()
+                    .thenAccept(response -> apply(chunk, batch, response, now))
+                    .exceptionally(e -> {
+                        // Node unreachable: leave these transactions pending and retry on the next block
+                        log.debug("Receipt batch of {} failed: {}", chunk.size(), e.getMessage());
+                        return null;
+                    }));
+        }
+        return CompletableFuture.allOf(requests.toArray(CompletableFuture[]::new));
+    }
+
+    private void apply(List<TrackedTransaction> chunk, BatchRequest batch, BatchResponse batchResponse, Instant now) {
+        Duration pendingTimeout = Duration.ofSeconds(settings.getPendingTimeoutSeconds());
+        // Nodes may answer a batch in any order, so match responses back by request id
+        Map<Long, Response<?>> responsesById = new HashMap<>();
+        for (Response<?> response : batchResponse.getResponses()) {
+            responsesById.put(response.getId(), response);
+        }
+        for (int i = 0; i < chunk.size(); i++) {
+            TrackedTransaction tx = chunk.get(i);
+            Response<?> response = responsesById.get(batch.getRequests().get(i).getId());
+            if (response == null || response.hasError()) {
+                continue;
+            }
+            Optional<TransactionReceipt> receipt = ((EthGetTransactionReceipt) response).getTransactionReceipt();
+            if (receipt.isPresent()) {
+                tx.resolve(receipt.get());
+            } else if (tx.getSubmittedAt().plus(pendingTimeout).isBefore(now)) {
+                tx.drop();
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long pending = transactions.values().stream().filter(TrackedTransaction::isPending).count();
+        return Map.of(
+                "tracked", transactions.size(),
+                "pending", pending,
+                "polls", polls.get(),
+                "batches", batches.get());
+    }
+}
@@ -0,0 +1,301 @@
+package com.web3.web3j.service;
+
+import com.web3.web3j.config.BlockchainProperties;
+import com.web3.web3j.model.SyncCheckpoint;
+import com.web3.web3j.model.TokenTransfer;
+import com.web3.web3j.model.WalletTransaction;
+import com.web3.web3j.repository.SyncCheckpointRepository;
+import com.web3.web3j.repository.TokenTransferRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.methods.request.EthFilter;
+import org.web3j.protocol.core.methods.response.EthLog;
+import org.web3j.protocol.exceptions.ClientConnectionException;
+import org.web3j.utils.Numeric;
+
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background indexer for ERC-20 token transfers to and from managed wallets.
+ * <p>
+ * Reads {@code Transfer(address,address,uint256)} logs with {@code eth_getLogs}, from the block after
+ * its checkpoint up to {@code blockchain.transfer-logs.confirmations} blocks behind the head, and
+ * writes each one with a managed sender or recipient to {@code token_transfers} in the same database
+ * transaction that advances the checkpoint. While there are few managed addresses they are put in
+ * the topic filter, so the node only returns our transfers; above
+ * {@code blockchain.transfer-logs.topic-filter-max-addresses} every Transfer log is read and matched
+ * against the {@link ManagedAddressRegistry}.
+ * <p>
+ * Nodes cap {@code eth_getLogs} by block range or result count, so the range adapts: it is halved
+ * when the node rejects a query or times out, or when a response is larger than
+ * {@code blockchain.transfer-logs.target-logs}, and doubled when a response is under half of that. * <p>
+ * Runs on its own thread, so a long catch-up does not hold up head polling and the other scheduled jobs.
+ */
+@Service
+public class TransferLogIngester {
+    private static final Logger log = LoggerFactory.getLogger(TransferLogIngester.class);
+
+    static final String CHECKPOINT = "erc20-transfer-logs";
+    // keccak256("Transfer(address,address,uint256)")
+    static final String TRANSFER_TOPIC = "0xddf252ad1be2c89b69c2b068fc378daa952ba7f163c4a11628f55a4df523b3ef";
+
+    private final Web3j web3j;
+    private final BlockHeadTracker headTracker;
+    private final ManagedAddressRegistry addressRegistry;
+    private final SyncCheckpointRepository syncCheckpointRepository;
+    private final TokenTransferRepository tokenTransferRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockchainProperties.TransferLogs settings;
+
+    // Last block read, from the table on the first run; null before anything is read
+    private volatile Long checkpoint;
+    private boolean checkpointLoaded;
+    private volatile long lastSafeHead = -1;
+    private volatile int range;
+    private volatile boolean topicFiltered;
+
+    // Ingestion runs here, off the shared scheduler thread
+    private final BackgroundWorker worker = new BackgroundWorker("transfer-log-ingester");
+
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong logsRead = new AtomicLong();
+    private final AtomicLong transfersIndexed = new AtomicLong();
+    private final AtomicLong rangeReductions = new AtomicLong();
+
+    public TransferLogIngester(Web3j web3j, BlockHeadTracker headTracker, ManagedAddressRegistry addressRegistry,
+                               SyncCheckpointRepository syncCheckpointRepository, TokenTransferRepository tokenTransferRepository,
+                               TransactionTemplate transactionTemplate, BlockchainProperties properties) {
+        this.web3j = web3j;
+        this.headTracker = headTracker;
+        this.addressRegistry = addressRegistry;
+        this.syncCheckpointRepository = syncCheckpointRepository;
+        this.tokenTransferRepository = tokenTransferRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.settings = properties.getTransferLogs();
+        this.range = settings.getInitialRange();
+    }
+
+    @Scheduled(fixedDelayString = "${blockchain.transfer-logs.poll-interval-ms:5000}")
+    public void poll() {
+        // Matching before the registry is loaded would skip deposits for good
+        if (!settings.isEnabled() || !addressRegistry.isLoaded()) {
+            return;
+        }
+        worker.trigger(() -> {
+            try {
+                ingest();
+            } catch (Exception e) {
+                // The checkpoint has not moved past anything unread, so the next run picks up from there
+                log.debug("Transfer log ingestion failed: {}", e.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        worker.shutdown();
+    }
+
+    /**
+     * Read Transfer logs from the checkpoint towards the confirmed head, at most
+     * {@code blockchain.transfer-logs.max-blocks-per-run} blocks.
+     * @return number of blocks read
+     */
+    public synchronized long ingest() throws Exception {
+        BigInteger headNumber = headTracker.getCurrentHead();
+        long head = (headNumber != null ? headNumber : web3j.ethBlockNumber().send().getBlockNumber()).longValueExact();
+        long safeHead = head - settings.getConfirmations();
+        lastSafeHead = safeHead;
+        if (!checkpointLoaded) {
+            checkpoint = syncCheckpointRepository.findById(CHECKPOINT).map(SyncCheckpoint::getBlockNumber).orElse(null);
+            checkpointLoaded = true;
+        }
+
+        long next = checkpoint != null ? checkpoint + 1
+                : settings.getStartBlock() >= 0 ? settings.getStartBlock() : Math.max(0, safeHead);
+        long read = 0;
+        while (next <= safeHead && read < settings.getMaxBlocksPerRun()) {
+            long to = Math.min(Math.min(safeHead, next + range - 1), next + settings.getMaxBlocksPerRun() - read - 1);
+            int span = (int) (to - next + 1);
+            List<EthLog.LogObject> logs;
+            try {
+                logs = getLogs(next, to);
+            } catch (Exception e) {
+                if (span <= settings.getMinRange() || !isRangeProblem(e)) {
+                    throw e;
+                }
+                range = Math.max(settings.getMinRange(), span / 2);
+                rangeReductions.incrementAndGet();
+                log.debug("eth_getLogs over {} blocks failed ({}), retrying with {}", span, e.getMessage(), range);
+                continue;
+            }
+            store(logs, to);
+            adapt(logs.size(), span);
+            read += span;
+            next = to + 1;
+        }
+        return read;
+    }
+
+    // Transfer logs in from .. to that may involve a managed address, in chain order
+    private List<EthLog.LogObject> getLogs(long from, long to) throws Exception {
+        List<EthFilter> filters = new ArrayList<>(2);
+        topicFiltered = addressRegistry.size() <= settings.getTopicFilterMaxAddresses();
+        if (topicFiltered) {
+            String[] topics = addressRegistry.addresses().stream().map(TransferLogIngester::topic).toArray(String[]::new);
+            if (topics.length == 0) {
+                return List.of();
+            }
+            // Topics are matched by position, so sent and received transfers need a query each
+            filters.add(filter(from, to).addSingleTopic(TRANSFER_TOPIC).addOptionalTopics(topics));
+            filters.add(filter(from, to).addSingleTopic(TRANSFER_TOPIC).addNullTopic().addOptionalTopics(topics));
+        } else {
+            filters.add(filter(from, to).addSingleTopic(TRANSFER_TOPIC));
+        }
+
+        List<CompletableFuture<EthLog>> requests = new ArrayList<>(filters.size());
+        for (EthFilter filter : filters) {
+            requests.add(web3j.ethGetLogs(filter).sendAsync());
+            queries.incrementAndGet();
+        }
+        // A transfer between two managed wallets is returned by both queries
+        Map<String, EthLog.LogObject> logs = new LinkedHashMap<>();
+        for (CompletableFuture<EthLog> request : requests) {
+            EthLog response;
+            try {
+                response = request.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof Exception ? (Exception) cause : e;
+            }
+            if (response.hasError()) {
+                throw new LogQueryException(response.getError().getMessage());
+            }
+            for (EthLog.LogResult<?> result : response.getLogs()) {
+                if (result instanceof EthLog.LogObject entry) {
+                    logs.putIfAbsent(entry.getTransactionHash() + ":" + entry.getLogIndexRaw(), entry);
+                }
+            }
+        }
+        List<EthLog.LogObject> ordered = new ArrayList<>(logs.values());
+        if (filters.size() > 1) {
+            ordered.sort(Comparator.comparing(EthLog.LogObject::getBlockNumber).thenComparing(EthLog.LogObject::getLogIndex));
+        }
+        return ordered;
+    }
+
+    private void store(List<EthLog.LogObject> logs, long to) {
+        List<TokenTransfer> matches = new ArrayList<>();
+        for (EthLog.LogObject entry : logs) {
+            // ERC-721 Transfer has the same signature with the token id as a fourth topic
+            List<String> topics = entry.getTopics();
+            String data = entry.getData();
+            if (entry.isRemoved() || topics == null || topics.size() != 3 || data == null || data.length() != 66) {
+                continue;
+            }
+            String from = address(topics.get(1));
+            String recipient = address(topics.get(2));
+            String token = entry.getAddress().toLowerCase();
+            BigDecimal amount = new BigDecimal(Numeric.toBigInt(data));
+            int logIndex = entry.getLogIndex().intValueExact();
+            long block = entry.getBlockNumber().longValueExact();
+            if (addressRegistry.contains(from)) {
+                matches.add(new TokenTransfer(from, WalletTransaction.Direction.OUT, recipient, token,
+                        entry.getTransactionHash(), logIndex, block, amount));
+            }
+            if (addressRegistry.contains(recipient)) {
+                matches.add(new TokenTransfer(recipient, WalletTransaction.Direction.IN, from, token,
+                        entry.getTransactionHash(), logIndex, block, amount));
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            tokenTransferRepository.saveAll(matches);
+            syncCheckpointRepository.save(new SyncCheckpoint(CHECKPOINT, to));
+        });
+        checkpoint = to;
+        logsRead.addAndGet(logs.size());
+        transfersIndexed.addAndGet(matches.size());
+    }
+
+    // Aim for responses of about targetLogs; only a full-range response says the range could be larger
+    private void adapt(int logCount, int span) {
+        if (logCount > settings.getTargetLogs()) {
+            range = Math.max(settings.getMinRange(), span / 2);
+        } else if (logCount < settings.getTargetLogs() / 2 && span >= range) {
+            range = (int) Math.min(settings.getMaxRange(), 2L * range);
+        }
+    }
+
+    // Node errors and timeouts are what providers return for a range that is too large; connection failures are not
+    private static boolean isRangeProblem(Throwable e) {
+        while ((e instanceof CompletionException || e instanceof ExecutionException || e instanceof UncheckedIOException)
+                && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e instanceof LogQueryException || e instanceof HttpTimeoutException || e instanceof SocketTimeoutException
+                || e instanceof TimeoutException || e instanceof ClientConnectionException;
+    }
+
+    private static EthFilter filter(long from, long to) {
+        return new EthFilter(DefaultBlockParameter.valueOf(BigInteger.valueOf(from)),
+                DefaultBlockParameter.valueOf(BigInteger.valueOf(to)), Collections.emptyList());
+    }
+
+    // Indexed address parameters are left-padded to 32 bytes
+    static String topic(String address) {
+        return "0x000000000000000000000000" + address.substring(2).toLowerCase();
+    }
+
+    private static String address(String topic) {
+        return "0x" + topic.substring(topic.length() - 40).toLowerCase();
+    }
+
+    public Map<String, Object> getStats() {
+        Long last = checkpoint;
+        long safeHead = lastSafeHead;
+        // HashMap: checkpoint and safeHead are null until the first run
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", settings.isEnabled());
+        stats.put("checkpoint", last);
+        stats.put("safeHead", safeHead >= 0 ? safeHead : null);
+        stats.put("lag", last != null && safeHead >= 0 ? Math.max(0, safeHead - last) : null);
+        stats.put("range", range);
+        stats.put("topicFiltered", topicFiltered);
+        stats.put("queries", queries.get());
+        stats.put("logsRead", logsRead.get());
+        stats.put("transfersIndexed", transfersIndexed.get());
+        stats.put("rangeReductions", rangeReductions.get());
+        return stats;
+    }
+
+    // An error response to eth_getLogs, typically a range or result-count limit
+    private static final class LogQueryException extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+
+        LogQueryException(String message) {
+            super("eth_getLogs failed: " + message);
+        }
+    }
+}
@@ -1,15 +1,26 @@
 package com.web3.web3j.service;
 
+import com.web3.web3j.DTO.BulkWalletResult;
+import com.web3.web3j.DTO.CursorPage;
 import com.web3.web3j.DTO.UpdateUser;
+import com.web3.web3j.DTO.WalletSummary;
+import com.web3.web3j.model.HdWalletRoot;
 import com.web3.web3j.model.UserAccount;
 import com.web3.web3j.model.WalletEntity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.web3j.crypto.Credentials;
 import org.web3j.protocol.core.methods.response.TransactionReceipt;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import com.web3.web3j.repository.UserAccountRepository;
 
 @Service
@@ -17,16 +28,47 @@ public class UserService {
     private final UserAccountRepository userRepository;
     private final WalletService walletService;
     private final BlockchainService blockchainService;
+    private final WalletSessionStore sessionStore;
 
-    public UserService(UserAccountRepository userRepository, WalletService walletService, BlockchainService blockchainService) {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public UserService(UserAccountRepository userRepository, WalletService walletService, BlockchainService blockchainService,
+                       WalletSessionStore sessionStore) {
         this.userRepository = userRepository;
         this.walletService = walletService;
         this.blockchainService = blockchainService;
+        this.sessionStore = sessionStore;
     }
 
-    // Get all users
-    public Iterable<UserAccount> getAllUsers() {
-        return userRepository.findAll();
+    // One keyset page of users ordered by id; the cursor is the last id of the previous page
+    public CursorPage<UserAccount> getUsersPage(String cursor, int limit) {
+        long afterId;
+        try {
+            afterId = cursor == null || cursor.isEmpty() ? 0 : Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        int pageSize = CursorPage.limit(limit);
+        // Ask for one extra row to learn whether another page exists
+        List<UserAccount> rows = userRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(pageSize + 1));
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null);
+        }
+        List<UserAccount> items = rows.subList(0, pageSize);
+        return new CursorPage<>(items, String.valueOf(items.get(pageSize - 1).getId()));
+    }
+
+    // Hand every user to the action straight off a forward-only cursor, detaching each one
+    // afterwards so the persistence context does not grow with the table
+    @Transactional(readOnly = true)
+    public void forEachUser(Consumer<UserAccount> action) {
+        try (Stream<UserAccount> users = userRepository.streamAll()) {
+            users.forEach(user -> {
+                action.accept(user);
+                entityManager.detach(user);
+            });
+        }
     }
 
     // Create a new user account
@@ -66,7 +108,9 @@ public class UserService {
 
     // Delete user
     public void deleteUser(Long userId) {
-        userRepository.deleteById(userId);
+        List<WalletSummary> wallets = walletService.getWalletsForUser(userId);
+        walletService.deleteUserWithWallets(userId);
+        walletService.forgetAddresses(wallets.stream().map(WalletSummary::getAddress).toList());
     }
 
     // Create a new wallet for a user
@@ -74,46 +118,100 @@ public class UserService {
         return walletService.createWalletForUser(userId, password, walletName);
     }
 
+    // Create many wallets for a user in one request
+    public List<BulkWalletResult> createWalletsForUser(Long userId, String password, List<String> walletNames) throws Exception {
+        return walletService.createWalletsForUser(userId, password, walletNames);
+    }
+
+    // Create the HD root (encrypted master key) for a user
+    public HdWalletRoot createHdRootForUser(Long userId, String password) throws Exception {
+        return walletService.createHdRoot(userId, password);
+    }
+
+    // Issue the next HD-derived wallet for a user
+    public WalletEntity createHdWalletForUser(Long userId, String walletName) {
+        return walletService.createHdWalletForUser(userId, walletName);
+    }
+
     // Get all wallets for a user
-    public List<WalletEntity> getUserWallets(Long userId) {
+    public List<WalletSummary> getUserWallets(Long userId) {
         return walletService.getWalletsForUser(userId);
     }
 
-    // Get balance for a specific wallet
-    public BigDecimal getWalletBalance(Long walletId) throws Exception {
-        Optional<WalletEntity> wallet = walletService.getWalletById(walletId);
-        if (wallet.isEmpty()) {
-            throw new RuntimeException("Wallet not found");
-        }
-        return blockchainService.getEtherBalance(wallet.get().getAddress());
+    // One keyset page of a user's wallets, newest first
+    public CursorPage<WalletSummary> getUserWalletsPage(Long userId, String cursor, int limit) {
+        return walletService.getWalletsPage(userId, cursor, limit);
     }
 
-    // Send ETH from a user's wallet
-    public TransactionReceipt sendEtherFromWallet(Long walletId, String password, String toAddress, BigDecimal amountEther) throws Exception {
-        Optional<Credentials> credentials = walletService.loadCredentials(walletId, password);
-        if (credentials.isEmpty()) {
-            throw new RuntimeException("Invalid wallet or password");
-        }
+    // Stream all wallets of a user, newest first
+    public void forEachUserWallet(Long userId, Consumer<WalletSummary> action) {
+        walletService.forEachWalletOfUser(userId, action);
+    }
+
+    // Balance of a wallet; only the address lookup runs on the calling thread
+    public CompletableFuture<BigDecimal> getWalletBalanceAsync(Long walletId) {
+        return walletService.getWalletAddress(walletId)
+                .map(blockchainService::getEtherBalanceAsync)
+                .orElseGet(() -> CompletableFuture.failedFuture(new RuntimeException("Wallet not found")));
+    }
 
+    // Send ETH from a user's wallet: completes with the receipt once mined
+    public CompletableFuture<TransactionReceipt> sendEtherFromWalletAsync(Long walletId, String password, String sessionToken, String toAddress, BigDecimal amountEther) {
         if (!blockchainService.isValidAddress(toAddress)) {
-            throw new IllegalArgumentException("Invalid destination address");
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Invalid destination address"));
         }
+        return requireCredentialsAsync(walletId, password, sessionToken)
+                .thenCompose(credentials -> blockchainService.sendEtherAsync(credentials, toAddress, amountEther));
+    }
 
-        return blockchainService.sendEther(credentials.get(), toAddress, amountEther);
+    // Broadcast an ETH transfer from a user's wallet: completes once the node accepts the transaction
+    public CompletableFuture<TrackedTransaction> submitEtherFromWalletAsync(Long walletId, String password, String sessionToken, String toAddress, BigDecimal amountEther) {
+        if (!blockchainService.isValidAddress(toAddress)) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Invalid destination address"));
+        }
+        return requireCredentialsAsync(walletId, password, sessionToken)
+                .thenCompose(credentials -> blockchainService.submitEtherAsync(credentials, toAddress, amountEther));
     }
 
-    // Transfer ERC20 tokens from a user's wallet
-    public TransactionReceipt transferERC20FromWallet(Long walletId, String password, String contractAddress, String toAddress, BigInteger amount) throws Exception {
-        Optional<Credentials> credentials = walletService.loadCredentials(walletId, password);
-        if (credentials.isEmpty()) {
-            throw new RuntimeException("Invalid wallet or password");
+    // Transfer ERC20 tokens from a user's wallet: completes with the receipt once mined
+    public CompletableFuture<TransactionReceipt> transferERC20FromWalletAsync(Long walletId, String password, String sessionToken, String contractAddress, String toAddress, BigInteger amount) {
+        if (!blockchainService.isValidAddress(toAddress) || !blockchainService.isValidAddress(contractAddress)) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Invalid address"));
         }
+        return requireCredentialsAsync(walletId, password, sessionToken)
+                .thenCompose(credentials -> blockchainService.transferERC20Async(credentials, contractAddress, toAddress, amount));
+    }
 
+    // Broadcast an ERC20 transfer from a user's wallet: completes once the node accepts the transaction
+    public CompletableFuture<TrackedTransaction> submitERC20FromWalletAsync(Long walletId, String password, String sessionToken, String contractAddress, String toAddress, BigInteger amount) {
         if (!blockchainService.isValidAddress(toAddress) || !blockchainService.isValidAddress(contractAddress)) {
-            throw new IllegalArgumentException("Invalid address");
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Invalid address"));
         }
+        return requireCredentialsAsync(walletId, password, sessionToken)
+                .thenCompose(credentials -> blockchainService.submitERC20Async(credentials, contractAddress, toAddress, amount));
+    }
+
+    // Decrypt a wallet once and keep its key in a short-lived session
+    public WalletSessionStore.UnlockedSession unlockWallet(Long walletId, String password) {
+        Credentials credentials = walletService.loadCredentials(walletId, password)
+                .orElseThrow(() -> new RuntimeException("Invalid wallet or password"));
+        return sessionStore.open(walletId, credentials);
+    }
 
-        return blockchainService.transferERC20(credentials.get(), contractAddress, toAddress, amount);
+    // End an unlocked session early
+    public boolean lockWallet(String sessionToken) {
+        return sessionStore.close(sessionToken);
+    }
+
+    // A session token skips the keystore KDF; otherwise the keystore is decrypted on the KDF executor, not the caller's thread
+    private CompletableFuture<Credentials> requireCredentialsAsync(Long walletId, String password, String sessionToken) {
+        if (sessionToken != null) {
+            return sessionStore.resolve(sessionToken, walletId)
+                    .map(CompletableFuture::completedFuture)
+                    .orElseGet(() -> CompletableFuture.failedFuture(new RuntimeException("Invalid or expired session")));
+        }
+        return walletService.loadCredentialsAsync(walletId, password)
+                .thenApply(credentials -> credentials.orElseThrow(() -> new RuntimeException("Invalid wallet or password")));
     }
 
     // Get user by ID
@@ -127,7 +225,7 @@ public class UserService {
     }
 
     // Update wallet name
-    public Optional<WalletEntity> updateWalletName(Long walletId, String newName) {
+    public Optional<WalletSummary> updateWalletName(Long walletId, String newName) {
         return walletService.updateWalletName(walletId, newName);
     }
 
@@ -0,0 +1,59 @@
+package com.web3.web3j.service;
+
+import com.web3.web3j.DTO.WalletExportRow;
+import com.web3.web3j.config.WalletProperties;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.function.Consumer;
+
+/**
+ * Full-table export of managed wallets for reconciliation. Rows are read through a forward-only
+ * Hibernate scroll with a fixed JDBC fetch size and handed to the caller one at a time, so the
+ * export needs the same memory for a thousand rows as for millions. The query selects a
+ * projection, never the keystore column.
+ */
+@Service
+public class WalletExportService {
+
+    private static final String EXPORT_QUERY = "select new com.web3.web3j.DTO.WalletExportRow("
+            + "w.id, w.address, w.user.id, w.walletName, w.createdAt) from WalletEntity w order by w.id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final WalletProperties.Export settings;
+
+    public WalletExportService(WalletProperties properties) {
+        this.settings = properties.getExport();
+    }
+
+    /**
+     * Hand every wallet row to {@code action} in id order.
+     * @return number of rows exported
+     */
+    @Transactional(readOnly = true)
+    public long forEachWallet(Consumer<WalletExportRow> action) {
+        Session session = entityManager.unwrap(Session.class);
+        int fetchSize = Math.max(1, settings.getFetchSize());
+        long count = 0;
+        try (ScrollableResults<WalletExportRow> rows = session.createQuery(EXPORT_QUERY, WalletExportRow.class)
+                .setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (rows.next()) {
+                action.accept(rows.get());
+                // Keep the session empty so nothing accumulates across a long export
+                if (++count % fetchSize == 0) {
+                    session.clear();
+                }
+            }
+        }
+        return count;
+    }
+}
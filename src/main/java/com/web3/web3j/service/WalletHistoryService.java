@@ -0,0 +1,102 @@
+package com.web3.web3j.service;
+
+import com.web3.web3j.DTO.CursorPage;
+import com.web3.web3j.model.TokenTransfer;
+import com.web3.web3j.model.WalletTransaction;
+import com.web3.web3j.repository.TokenTransferRepository;
+import com.web3.web3j.repository.WalletTransactionRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Transaction history of managed wallets, read from the tables the {@link BlockScanner} and the
+ * {@link TransferLogIngester} fill. No node calls: deposits and withdrawals are local database reads.
+ */
+@Service
+public class WalletHistoryService {
+
+    private final WalletTransactionRepository walletTransactionRepository;
+    private final TokenTransferRepository tokenTransferRepository;
+    private final WalletService walletService;
+
+    public WalletHistoryService(WalletTransactionRepository walletTransactionRepository,
+                                TokenTransferRepository tokenTransferRepository, WalletService walletService) {
+        this.walletTransactionRepository = walletTransactionRepository;
+        this.tokenTransferRepository = tokenTransferRepository;
+        this.walletService = walletService;
+    }
+
+    /**
+     * One keyset page of a wallet's transactions, newest block first. The cursor encodes the
+     * (blockNumber, id) of the last row of the previous page.
+     * @return empty if the wallet does not exist
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public Optional<CursorPage<WalletTransaction>> getHistoryPage(Long walletId, String cursor, int limit) {
+        return walletService.getWalletAddress(walletId).map(address -> getHistoryPage(address, cursor, limit));
+    }
+
+    public CursorPage<WalletTransaction> getHistoryPage(String address, String cursor, int limit) {
+        String key = address.toLowerCase();
+        return page(cursor, limit,
+                (after, rows) -> after == null ? walletTransactionRepository.findPage(key, rows)
+                        : walletTransactionRepository.findPageAfter(key, after[0], after[1], rows),
+                WalletTransaction::getBlockNumber, WalletTransaction::getId);
+    }
+
+    /**
+     * One keyset page of a wallet's ERC-20 transfers, newest block first, with the same cursor scheme.
+     * @return empty if the wallet does not exist
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public Optional<CursorPage<TokenTransfer>> getTokenTransferPage(Long walletId, String cursor, int limit) {
+        return walletService.getWalletAddress(walletId).map(address -> getTokenTransferPage(address, cursor, limit));
+    }
+
+    public CursorPage<TokenTransfer> getTokenTransferPage(String address, String cursor, int limit) {
+        String key = address.toLowerCase();
+        return page(cursor, limit,
+                (after, rows) -> after == null ? tokenTransferRepository.findPage(key, rows)
+                        : tokenTransferRepository.findPageAfter(key, after[0], after[1], rows),
+                TokenTransfer::getBlockNumber, TokenTransfer::getId);
+    }
+
+    // query gets the (blockNumber, id) after which to start, or null for the first page
+    private static <T> CursorPage<T> page(String cursor, int limit, BiFunction<long[], Limit, List<T>> query,
+                                          Function<T, Long> blockNumber, Function<T, Long> id) {
+        int pageSize = CursorPage.limit(limit);
+        long[] after = cursor == null || cursor.isEmpty() ? null : decodeCursor(cursor);
+        // Ask for one extra row to learn whether another page exists
+        List<T> rows = query.apply(after, Limit.of(pageSize + 1));
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, pageSize);
+        T last = items.get(pageSize - 1);
+        return new CursorPage<>(items, encodeCursor(blockNumber.apply(last), id.apply(last)));
+    }
+
+    private static String encodeCursor(Long blockNumber, Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((blockNumber + "," + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long[] decodeCursor(String cursor) {
+        try {
+            String[] key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(",");
+            if (key.length != 2) {
+                throw new IllegalArgumentException();
+            }
+            return new long[] { Long.parseLong(key[0]), Long.parseLong(key[1]) };
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -1,36 +1,70 @@
 package com.web3.web3j.service;
 
+import com.web3.web3j.DTO.BulkWalletResult;
+import com.web3.web3j.DTO.CursorPage;
+import com.web3.web3j.DTO.WalletSummary;
+import com.web3.web3j.config.WalletProperties;
+import com.web3.web3j.model.HdWalletRoot;
 import com.web3.web3j.model.UserAccount;
 import com.web3.web3j.model.WalletEntity;
+import com.web3.web3j.repository.HdWalletRootRepository;
 import com.web3.web3j.repository.UserAccountRepository;
 import com.web3.web3j.repository.WalletRepository;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.web3j.crypto.Bip32ECKeyPair;
 import org.web3j.crypto.Credentials;
 import org.web3j.crypto.ECKeyPair;
+import org.web3j.crypto.Keys;
 import org.web3j.crypto.Wallet;
 import org.web3j.crypto.WalletFile;
-import org.web3j.crypto.WalletUtils;
+import org.web3j.utils.Numeric;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.nio.charset.StandardCharsets;
-import java.nio.file.*;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class WalletService {
 
     private final WalletRepository walletRepository;
     private final UserAccountRepository userRepository;
+    private final HdWalletRootRepository hdRootRepository;
+    private final WalletProperties walletProperties;
+    private final KdfExecutor kdfExecutor;
+    private final ManagedAddressRegistry addressRegistry;
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SecureRandom secureRandom = new SecureRandom();
 
-    public WalletService(WalletRepository walletRepository, UserAccountRepository userRepository) {
+    public WalletService(WalletRepository walletRepository, UserAccountRepository userRepository,
+                         HdWalletRootRepository hdRootRepository, WalletProperties walletProperties, KdfExecutor kdfExecutor,
+                         ManagedAddressRegistry addressRegistry) {
         this.walletRepository = walletRepository;
         this.userRepository = userRepository;
+        this.hdRootRepository = hdRootRepository;
+        this.walletProperties = walletProperties;
+        this.kdfExecutor = kdfExecutor;
+        this.addressRegistry = addressRegistry;
     }
 
     /**
      * Create a new wallet for a user. The password encrypts the keystore JSON.
+     * The key pair and keystore are built in memory with the configured scrypt profile,
+     * and the address is derived from the key pair rather than by decrypting the keystore again.
+     * The scrypt run goes through the {@link KdfExecutor}, which rejects the call when saturated.
      * @param userId The user ID
      * @param password Password to encrypt the wallet
      * @param walletName Optional name for the wallet
@@ -40,35 +74,135 @@ public class WalletService {
         UserAccount user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        // Create temporary directory for keystore generation
-        Path tmpDir = Files.createTempDirectory("keystore");
-        try {
-            // Generate new wallet file in temporary directory
-            String fileName = WalletUtils.generateFullNewWalletFile(password, tmpDir.toFile());
-            Path walletFile = tmpDir.resolve(fileName);
-
-            // Read the keystore JSON content
-            String keystoreJson = Files.readString(walletFile, StandardCharsets.UTF_8);
-
-            // Parse JSON to WalletFile object and decrypt to validate
-            WalletFile walletFileObj = objectMapper.readValue(keystoreJson, WalletFile.class);
-            ECKeyPair keyPair = Wallet.decrypt(password, walletFileObj);
-            Credentials credentials = Credentials.create(keyPair);
-            String address = credentials.getAddress();
-
-            // Create and save wallet entity
-            WalletEntity walletEntity = new WalletEntity(user, address, walletName, keystoreJson);
-            return walletRepository.save(walletEntity);
-
-        } finally {
-            // Clean up temporary files
-            try (DirectoryStream<Path> ds = Files.newDirectoryStream(tmpDir)) {
-                for (Path p : ds) {
-                    Files.deleteIfExists(p);
+        WalletEntity walletEntity = kdfExecutor.run(kdfExecutor.memoryForConfiguredProfile(),
+                () -> newKeystoreWallet(user, password, walletName));
+        WalletEntity saved = walletRepository.save(walletEntity);
+        addressRegistry.add(saved.getAddress());
+        return saved;
+    }
+
+    /**
+     * Create many wallets for a user with the same password. Keystores are encrypted in parallel
+     * on the {@link KdfExecutor}, then persisted with {@code saveAll} in chunks so Hibernate can
+     * batch the INSERTs. Every requested wallet gets its own result; one failure does not abort the rest.
+     * @param userId The user ID
+     * @param password Password to encrypt every keystore
+     * @param walletNames One entry per wallet (entries may be null)
+     * @return Per-wallet results in request order
+     */
+    public List<BulkWalletResult> createWalletsForUser(Long userId, String password, List<String> walletNames) throws Exception {
+        UserAccount user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        if (walletNames.size() > walletProperties.getBulk().getMaxWallets()) {
+            throw new IllegalArgumentException("At most " + walletProperties.getBulk().getMaxWallets() + " wallets per request");
+        }
+
+        List<Callable<WalletEntity>> jobs = new ArrayList<>(walletNames.size());
+        List<BulkWalletResult> results = new ArrayList<>(walletNames.size());
+        for (int i = 0; i < walletNames.size(); i++) {
+            String walletName = walletNames.get(i);
+            jobs.add(() -> newKeystoreWallet(user, password, walletName));
+            results.add(new BulkWalletResult(i, walletName));
+        }
+        List<CompletableFuture<WalletEntity>> futures = kdfExecutor.runAll(kdfExecutor.memoryForConfiguredProfile(), jobs);
+
+        // Collect generated wallets, remembering which result each belongs to
+        List<WalletEntity> generated = new ArrayList<>();
+        List<BulkWalletResult> pending = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                generated.add(futures.get(i).join());
+                pending.add(results.get(i));
+            } catch (CompletionException e) {
+                results.get(i).failed(e.getCause().getMessage());
+            }
+        }
+
+        int batchSize = Math.max(1, walletProperties.getBulk().getInsertBatchSize());
+        for (int from = 0; from < generated.size(); from += batchSize) {
+            int to = Math.min(from + batchSize, generated.size());
+            try {
+                List<WalletEntity> saved = walletRepository.saveAll(generated.subList(from, to));
+                for (int i = 0; i < saved.size(); i++) {
+                    pending.get(from + i).created(saved.get(i).getId(), saved.get(i).getAddress());
+                    addressRegistry.add(saved.get(i).getAddress());
                 }
-            } catch (Exception ignore) {}
-            Files.deleteIfExists(tmpDir);
+            } catch (Exception e) {
+                for (int i = from; i < to; i++) {
+                    pending.get(i).failed("Failed to save wallet: " + e.getMessage());
+                }
+            }
+        }
+        return results;
+    }
+
+    // Generate a key pair and encrypt it with the configured scrypt profile (runs on the KDF executor)
+    private WalletEntity newKeystoreWallet(UserAccount user, String password, String walletName) throws Exception {
+        WalletProperties.Kdf kdf = walletProperties.getKdf();
+        ECKeyPair keyPair = Keys.createEcKeyPair();
+        WalletFile walletFile = Wallet.create(password, keyPair, kdf.effectiveN(), kdf.effectiveP());
+        String keystoreJson = objectMapper.writeValueAsString(walletFile);
+        String address = Credentials.create(keyPair).getAddress();
+
+        WalletEntity walletEntity = new WalletEntity(user, address, walletName, keystoreJson);
+        walletEntity.setKdfProfile(kdf.getProfile().name().toLowerCase());
+        return walletEntity;
+    }
+
+    /**
+     * Create the HD root for a user: a fresh random seed whose BIP-44 external chain key is
+     * encrypted with the password (one KDF run). The seed itself is not kept.
+     * @param userId The user ID
+     * @param password Password to encrypt the chain key
+     * @return Created HdWalletRoot
+     */
+    public HdWalletRoot createHdRoot(Long userId, String password) throws Exception {
+        UserAccount user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        if (hdRootRepository.findByUserId(userId).isPresent()) {
+            throw new IllegalArgumentException("User already has an HD wallet root");
         }
+
+        byte[] seed = new byte[64];
+        secureRandom.nextBytes(seed);
+        Bip32ECKeyPair chain = HdKeyDerivation.externalChain(seed);
+        Arrays.fill(seed, (byte) 0);
+
+        WalletProperties.Kdf kdf = walletProperties.getKdf();
+        WalletFile walletFile = kdfExecutor.run(kdfExecutor.memoryForConfiguredProfile(),
+                () -> Wallet.create(password, chain, kdf.effectiveN(), kdf.effectiveP()));
+
+        HdWalletRoot root = new HdWalletRoot(user, objectMapper.writeValueAsString(walletFile),
+                Numeric.toHexString(chain.getPublicKeyPoint().getEncoded(true)),
+                Numeric.toHexString(chain.getChainCode()));
+        root.setKdfProfile(kdf.getProfile().name().toLowerCase());
+        return hdRootRepository.save(root);
+    }
+
+    /**
+     * Issue the next HD wallet for a user. Only the child index and address are stored;
+     * the address comes from public derivation, so no password or KDF run is needed.
+     * @param userId The user ID
+     * @param walletName Optional name for the wallet
+     * @return Created WalletEntity
+     */
+    @Transactional
+    public WalletEntity createHdWalletForUser(Long userId, String walletName) {
+        HdWalletRoot root = hdRootRepository.findByUserIdForUpdate(userId)
+                .orElseThrow(() -> new RuntimeException("User has no HD wallet root"));
+        int index = root.getNextIndex();
+        String address = HdKeyDerivation.childAddress(
+                Numeric.hexStringToByteArray(root.getPublicKey()), Numeric.hexStringToByteArray(root.getChainCode()), index);
+        root.setNextIndex(index + 1);
+        hdRootRepository.save(root);
+
+        WalletEntity walletEntity = new WalletEntity(root.getUser(), address, walletName, null);
+        walletEntity.setHdRoot(root);
+        walletEntity.setDerivationIndex(index);
+        walletEntity.setKdfProfile(root.getKdfProfile());
+        WalletEntity saved = walletRepository.save(walletEntity);
+        addressRegistry.add(saved.getAddress());
+        return saved;
     }
 
     /**
@@ -76,56 +210,180 @@ public class WalletService {
      * @param walletId The wallet ID
      * @param password The password used to encrypt the wallet
      * @return Credentials if successful, empty if wallet not found or wrong password
+     * @throws RejectedExecutionException if the KDF executor is saturated
      */
     public Optional<Credentials> loadCredentials(Long walletId, String password) {
-        return walletRepository.findById(walletId).map(wallet -> {
-            try {
-                // Parse JSON string to WalletFile object
-                WalletFile walletFile = objectMapper.readValue(wallet.getKeystoreJson(), WalletFile.class);
-                ECKeyPair keyPair = Wallet.decrypt(password, walletFile);
-                return Credentials.create(keyPair);
-            } catch (Exception e) {
-                // Wrong password or corrupted keystore
-                return null;
+        try {
+            return loadCredentialsAsync(walletId, password).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
             }
-        });
+            throw e;
+        }
+    }
+
+    /**
+     * Non-blocking {@link #loadCredentials}: the wallet row is read on the calling thread and the
+     * keystore is decrypted on the {@link KdfExecutor}, so the caller's thread is not held for the
+     * KDF. The future fails with {@link RejectedExecutionException} if the executor is saturated.
+     */
+    public CompletableFuture<Optional<Credentials>> loadCredentialsAsync(Long walletId, String password) {
+        Optional<WalletEntity> found = walletRepository.findWithHdRootById(walletId);
+        if (found.isEmpty()) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        WalletEntity wallet = found.get();
+
+        // HD wallets are unlocked through their root's keystore, then derived by index.
+        // The root comes fetched with the wallet, so this works with or without an open persistence context.
+        HdWalletRoot root = wallet.getHdRoot();
+        byte[] chainCode = root != null ? Numeric.hexStringToByteArray(root.getChainCode()) : null;
+        Integer derivationIndex = wallet.getDerivationIndex();
+        WalletFile walletFile;
+        try {
+            // Parse JSON string to WalletFile object
+            walletFile = objectMapper.readValue(root != null ? root.getKeystoreJson() : wallet.getKeystoreJson(), WalletFile.class);
+        } catch (Exception e) {
+            // Corrupted keystore
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+
+        return kdfExecutor.submit(KdfExecutor.memoryFor(walletFile), () -> Wallet.decrypt(password, walletFile))
+                .handle((keyPair, error) -> {
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                        // Overloaded, not a bad password: let the caller report it as such
+                        if (cause instanceof RejectedExecutionException rejected) {
+                            throw rejected;
+                        }
+                        // Wrong password
+                        return Optional.empty();
+                    }
+                    ECKeyPair key = chainCode != null ? HdKeyDerivation.childKeyPair(keyPair, chainCode, derivationIndex) : keyPair;
+                    return Optional.of(Credentials.create(key));
+                });
     }
 
     /**
-     * Get all wallets for a user
+     * Get all wallets for a user (summary columns only, no keystore)
      */
-    public List<WalletEntity> getWalletsForUser(Long userId) {
-        return walletRepository.findAllByUserIdOrderByCreatedAtDesc(userId);
+    public List<WalletSummary> getWalletsForUser(Long userId) {
+        return walletRepository.findSummariesByUserId(userId);
+    }
+
+    /**
+     * One keyset page of a user's wallets, newest first. The cursor encodes the (createdAt, id)
+     * of the last row of the previous page, so each page is an index range scan with no OFFSET.
+     * @param cursor null for the first page, otherwise the previous page's nextCursor
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public CursorPage<WalletSummary> getWalletsPage(Long userId, String cursor, int limit) {
+        int pageSize = CursorPage.limit(limit);
+        // Ask for one extra row to learn whether another page exists
+        List<WalletSummary> rows;
+        if (cursor == null || cursor.isEmpty()) {
+            rows = walletRepository.findSummaryPage(userId, Limit.of(pageSize + 1));
+        } else {
+            String[] key = decodeWalletCursor(cursor);
+            rows = walletRepository.findSummaryPageAfter(userId, Instant.parse(key[0]), Long.valueOf(key[1]), Limit.of(pageSize + 1));
+        }
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null);
+        }
+        List<WalletSummary> items = rows.subList(0, pageSize);
+        WalletSummary last = items.get(pageSize - 1);
+        return new CursorPage<>(items, encodeWalletCursor(last.getCreatedAt(), last.getId()));
+    }
+
+    /**
+     * Hand every wallet of a user to {@code action}, newest first, straight off a forward-only
+     * cursor. Projections are not managed entities, so memory stays flat however many rows there are.
+     */
+    @Transactional(readOnly = true)
+    public void forEachWalletOfUser(Long userId, Consumer<WalletSummary> action) {
+        try (Stream<WalletSummary> wallets = walletRepository.streamSummariesByUserId(userId)) {
+            wallets.forEach(action);
+        }
+    }
+
+    private static String encodeWalletCursor(Instant createdAt, Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((createdAt + "," + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeWalletCursor(String cursor) {
+        try {
+            String[] key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(",");
+            if (key.length != 2) {
+                throw new IllegalArgumentException();
+            }
+            Instant.parse(key[0]);
+            Long.parseLong(key[1]);
+            return key;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
     }
 
     /**
      * Get a specific wallet by ID
      */
-    public Optional<WalletEntity> getWalletById(Long walletId) {
-        return walletRepository.findById(walletId);
+    public Optional<WalletSummary> getWalletById(Long walletId) {
+        return walletRepository.findSummaryById(walletId);
+    }
+
+    /**
+     * Get just the address of a wallet
+     */
+    public Optional<String> getWalletAddress(Long walletId) {
+        return walletRepository.findAddressById(walletId);
     }
 
     /**
      * Find wallet by Ethereum address
      */
-    public Optional<WalletEntity> getWalletByAddress(String address) {
-        return walletRepository.findByAddress(address);
+    public Optional<WalletSummary> getWalletByAddress(String address) {
+        return walletRepository.findSummaryByAddress(address);
     }
 
     /**
      * Delete a wallet (be careful - this permanently removes access to funds!)
      */
     public void deleteWallet(Long walletId) {
+        Optional<String> address = walletRepository.findAddressById(walletId);
         walletRepository.deleteById(walletId);
+        address.ifPresent(addressRegistry::remove);
     }
 
     /**
-     * Update wallet name
+     * Delete a user together with their wallets and HD root. Rows go in foreign-key order:
+     * wallets derived from the root, then the root, then the user, which cascades to the rest.
      */
-    public Optional<WalletEntity> updateWalletName(Long walletId, String newName) {
-        return walletRepository.findById(walletId).map(wallet -> {
-            wallet.setWalletName(newName);
-            return walletRepository.save(wallet);
+    @Transactional
+    public void deleteUserWithWallets(Long userId) {
+        hdRootRepository.findByUserId(userId).ifPresent(root -> {
+            walletRepository.deleteByHdRootId(root.getId());
+            hdRootRepository.delete(root);
         });
+        userRepository.deleteById(userId);
+    }
+
+    /**
+     * Stop watching addresses whose wallets were removed along with their user
+     */
+    public void forgetAddresses(List<String> addresses) {
+        addressRegistry.removeAll(addresses);
+    }
+
+    /**
+     * Update wallet name with a single UPDATE, without loading the keystore
+     */
+    @Transactional
+    public Optional<WalletSummary> updateWalletName(Long walletId, String newName) {
+        if (walletRepository.updateWalletName(walletId, newName) == 0) {
+            return Optional.empty();
+        }
+        return walletRepository.findSummaryById(walletId);
     }
 }
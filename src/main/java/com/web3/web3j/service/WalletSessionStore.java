@@ -0,0 +1,156 @@
+package com.web3.web3j.service;
+
+import com.web3.web3j.config.WalletProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.web3j.crypto.Credentials;
+import org.web3j.crypto.ECKeyPair;
+import org.web3j.utils.Numeric;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Holds decrypted wallet keys for a short time behind an opaque session token, so repeated
+ * sends from the same wallet skip the keystore KDF. The store is bounded by size and TTL, and
+ * the private key bytes are zeroed when a session expires, is evicted, or is closed.
+ */
+@Service
+public class WalletSessionStore {
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final WalletProperties.Session settings;
+    private final SecureRandom random = new SecureRandom();
+    // Insertion ordered, so the first entry is always the oldest session
+    private final Map<String, Session> sessions = new LinkedHashMap<>();
+
+    public WalletSessionStore(WalletProperties properties) {
+        this.settings = properties.getSession();
+    }
+
+    /**
+     * Store credentials for a wallet and return the new session.
+     */
+    public UnlockedSession open(Long walletId, Credentials credentials) {
+        byte[] tokenBytes = new byte[TOKEN_BYTES];
+        random.nextBytes(tokenBytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(tokenBytes);
+        Instant expiresAt = Instant.now().plusSeconds(settings.getTtlSeconds());
+
+        ECKeyPair keyPair = credentials.getEcKeyPair();
+        Session session = new Session(walletId,
+                Numeric.toBytesPadded(keyPair.getPrivateKey(), 32), keyPair.getPublicKey(), expiresAt);
+
+        synchronized (sessions) {
+            sessions.put(token, session);
+            Iterator<Session> oldest = sessions.values().iterator();
+            while (sessions.size() > settings.getMaxSessions() && oldest.hasNext()) {
+                oldest.next().wipe();
+                oldest.remove();
+            }
+        }
+        return new UnlockedSession(token, walletId, expiresAt);
+    }
+
+    /**
+     * Credentials for a live session, only if it was opened for the given wallet.
+     */
+    public Optional<Credentials> resolve(String token, Long walletId) {
+        synchronized (sessions) {
+            Session session = sessions.get(token);
+            if (session == null || !session.walletId.equals(walletId)) {
+                return Optional.empty();
+            }
+            if (session.isExpired(Instant.now())) {
+                sessions.remove(token).wipe();
+                return Optional.empty();
+            }
+            return Optional.of(session.toCredentials());
+        }
+    }
+
+    /**
+     * Close a session and wipe its key. Returns false if the token was unknown.
+     */
+    public boolean close(String token) {
+        synchronized (sessions) {
+            Session session = sessions.remove(token);
+            if (session == null) {
+                return false;
+            }
+            session.wipe();
+            return true;
+        }
+    }
+
+    public int size() {
+        synchronized (sessions) {
+            return sessions.size();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${wallets.session.purge-interval-ms:30000}")
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        synchronized (sessions) {
+            sessions.values().removeIf(session -> {
+                if (session.isExpired(now)) {
+                    session.wipe();
+                    return true;
+                }
+                return false;
+            });
+        }
+    }
+
+    public static class UnlockedSession {
+        private final String token;
+        private final Long walletId;
+        private final Instant expiresAt;
+
+        UnlockedSession(String token, Long walletId, Instant expiresAt) {
+            this.token = token;
+            this.walletId = walletId;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getToken() { return token; }
+        public Long getWalletId() { return walletId; }
+        public Instant getExpiresAt() { return expiresAt; }
+    }
+
+    private static final class Session {
+        final Long walletId;
+        final byte[] privateKey;
+        final BigInteger publicKey;
+        final Instant expiresAt;
+
+        Session(Long walletId, byte[] privateKey, BigInteger publicKey, Instant expiresAt) {
+            this.walletId = walletId;
+            this.privateKey = privateKey;
+            this.publicKey = publicKey;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(Instant now) {
+            return !now.isBefore(expiresAt);
+        }
+
+        // Rebuilding from the stored public key avoids an EC multiplication on every use
+        Credentials toCredentials() {
+            return Credentials.create(new ECKeyPair(new BigInteger(1, privateKey), publicKey));
+        }
+
+        void wipe() {
+            Arrays.fill(privateKey, (byte) 0);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.web3.web3j.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.methods.response.EthGetBalance;
+import org.web3j.protocol.core.methods.response.EthSendTransaction;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CoalescingWeb3jServiceTest {
+
+    private static final String ADDRESS_A = "0x00000000000000000000000000000000000000a1";
+    private static final String ADDRESS_B = "0x00000000000000000000000000000000000000b2";
+
+    @Mock
+    Web3jService node;
+
+    BlockchainProperties properties = new BlockchainProperties();
+
+    CoalescingWeb3jService service;
+    Web3j web3j;
+
+    // Futures handed out by the node, completed by each test
+    List<CompletableFuture<EthGetBalance>> nodeCalls = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        service = new CoalescingWeb3jService(node, properties);
+        web3j = Web3j.build(service);
+        lenient().when(node.sendAsync(any(), eq(EthGetBalance.class))).thenAnswer(invocation -> {
+            CompletableFuture<EthGetBalance> future = new CompletableFuture<>();
+            synchronized (nodeCalls) {
+                nodeCalls.add(future);
+            }
+            return future;
+        });
+    }
+
+    private static EthGetBalance balance(String hex) {
+        EthGetBalance response = new EthGetBalance();
+        response.setResult(hex);
+        return response;
+    }
+
+    private CompletableFuture<EthGetBalance> getBalance(String address) {
+        return web3j.ethGetBalance(address, DefaultBlockParameterName.LATEST).sendAsync();
+    }
+
+    @Test
+    void sendAsync_identicalConcurrentReads_shareOneCall() throws Exception {
+        List<CompletableFuture<EthGetBalance>> callers = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            callers.add(getBalance(ADDRESS_A));
+        }
+
+        assertEquals(1, nodeCalls.size());
+        nodeCalls.get(0).complete(balance("0x2a"));
+        for (CompletableFuture<EthGetBalance> caller : callers) {
+            assertEquals(42, caller.get(5, TimeUnit.SECONDS).getBalance().intValue());
+        }
+        assertEquals(9L, service.getStats().get("coalesced"));
+        assertEquals(0, service.getStats().get("inFlight"));
+    }
+
+    @Test
+    void sendAsync_differentParamsOrBlockTag_areNotShared() {
+        getBalance(ADDRESS_A);
+        getBalance(ADDRESS_B);
+        web3j.ethGetBalance(ADDRESS_A, DefaultBlockParameterName.PENDING).sendAsync();
+
+        assertEquals(3, nodeCalls.size());
+    }
+
+    @Test
+    void sendAsync_afterCompletion_asksTheNodeAgain() throws Exception {
+        CompletableFuture<EthGetBalance> first = getBalance(ADDRESS_A);
+        nodeCalls.get(0).complete(balance("0x1"));
+        first.get(5, TimeUnit.SECONDS);
+
+        CompletableFuture<EthGetBalance> second = getBalance(ADDRESS_A);
+        nodeCalls.get(1).complete(balance("0x2"));
+
+        assertEquals(2, second.get(5, TimeUnit.SECONDS).getBalance().intValue());
+        assertEquals(2, nodeCalls.size());
+    }
+
+    @Test
+    void sendAsync_failureReachesEveryCaller() {
+        CompletableFuture<EthGetBalance> first = getBalance(ADDRESS_A);
+        CompletableFuture<EthGetBalance> second = getBalance(ADDRESS_A);
+        nodeCalls.get(0).completeExceptionally(new ConnectException("refused"));
+
+        for (CompletableFuture<EthGetBalance> caller : List.of(first, second)) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> caller.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(ConnectException.class, e.getCause());
+        }
+    }
+
+    @Test
+    void sendAsync_oneCallerCancelling_doesNotAffectOthers() throws Exception {
+        CompletableFuture<EthGetBalance> first = getBalance(ADDRESS_A);
+        CompletableFuture<EthGetBalance> second = getBalance(ADDRESS_A);
+
+        first.cancel(true);
+        nodeCalls.get(0).complete(balance("0x5"));
+
+        assertFalse(nodeCalls.get(0).isCancelled());
+        assertEquals(5, second.get(5, TimeUnit.SECONDS).getBalance().intValue());
+    }
+
+    @Test
+    void send_blockingCallersAreCoalescedToo() throws Exception {
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<EthGetBalance>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(callers.submit(() -> web3j.ethGetBalance(ADDRESS_A, DefaultBlockParameterName.LATEST).send()));
+            }
+            Thread.sleep(200);
+            assertEquals(1, nodeCalls.size());
+
+            nodeCalls.get(0).complete(balance("0x9"));
+            for (Future<EthGetBalance> result : results) {
+                assertEquals(9, result.get(5, TimeUnit.SECONDS).getBalance().intValue());
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void send_rawTransactionIsNeverShared() throws Exception {
+        when(node.send(any(), eq(EthSendTransaction.class))).thenReturn(new EthSendTransaction());
+
+        web3j.ethSendRawTransaction("0xf86c").send();
+        web3j.ethSendRawTransaction("0xf86c").send();
+
+        verify(node, times(2)).send(any(), eq(EthSendTransaction.class));
+    }
+
+    @Test
+    void sendAsync_disabled_passesEveryCallThrough() {
+        properties.getCoalesce().setEnabled(false);
+
+        getBalance(ADDRESS_A);
+        getBalance(ADDRESS_A);
+
+        assertEquals(2, nodeCalls.size());
+    }
+
+    @Test
+    void send_nodeFailure_isRethrownAsIOException() {
+        CompletableFuture<EthGetBalance> failed = CompletableFuture.failedFuture(new IOException("down"));
+        when(node.sendAsync(any(), eq(EthGetBalance.class))).thenReturn(failed);
+
+        IOException e = assertThrows(IOException.class,
+                () -> web3j.ethGetBalance(ADDRESS_A, DefaultBlockParameterName.LATEST).send());
+        assertEquals("down", e.getMessage());
+    }
+}
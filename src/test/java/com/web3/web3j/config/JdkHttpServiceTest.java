@@ -0,0 +1,175 @@
+package com.web3.web3j.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.BatchResponse;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.methods.response.EthBlockNumber;
+import org.web3j.protocol.core.methods.response.EthGetBalance;
+import org.web3j.protocol.exceptions.ClientConnectionException;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdkHttpServiceTest {
+
+    ObjectMapper objectMapper = new ObjectMapper();
+
+    HttpServer server;
+
+    BlockchainProperties.Http settings = new BlockchainProperties.Http();
+
+    // Handler behaviour per test
+    volatile int status = 200;
+    CountDownLatch release = new CountDownLatch(0);
+    AtomicInteger inFlight = new AtomicInteger();
+    AtomicInteger maxInFlight = new AtomicInteger();
+
+    JdkHttpService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (service != null) {
+            service.close();
+        }
+        server.stop(0);
+    }
+
+    private JdkHttpService newService() {
+        service = new JdkHttpService("http://127.0.0.1:" + server.getAddress().getPort(), settings);
+        return service;
+    }
+
+    // Answers eth_blockNumber with 0x10 and eth_getBalance with the last byte of the address;
+    // batches are answered in reverse order
+    private void handle(HttpExchange exchange) throws IOException {
+        int now = inFlight.incrementAndGet();
+        maxInFlight.accumulateAndGet(now, Math::max);
+        try {
+            release.await(5, TimeUnit.SECONDS);
+            JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+            String body;
+            if (request.isArray()) {
+                List<String> responses = new ArrayList<>();
+                for (JsonNode call : request) {
+                    responses.add(0, answer(call));
+                }
+                body = "[" + String.join(",", responses) + "]";
+            } else {
+                body = answer(request);
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, bytes.length);
+            exchange.getResponseBody().write(bytes);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private String answer(JsonNode call) {
+        String result = "eth_getBalance".equals(call.get("method").asText())
+                ? "0x" + call.get("params").get(0).asText().substring(40)
+                : "0x10";
+        return "{\"jsonrpc\":\"2.0\",\"id\":" + call.get("id").asLong() + ",\"result\":\"" + result + "\"}";
+    }
+
+    @Test
+    void sendAndSendAsync_parseResponses() throws Exception {
+        Web3j web3j = Web3j.build(newService());
+
+        assertEquals(16, web3j.ethBlockNumber().send().getBlockNumber().intValue());
+        EthBlockNumber async = web3j.ethBlockNumber().sendAsync().get(5, TimeUnit.SECONDS);
+        assertEquals(16, async.getBlockNumber().intValue());
+    }
+
+    @Test
+    void sendBatchAsync_typesOutOfOrderResponsesById() throws Exception {
+        Web3j web3j = Web3j.build(newService());
+        BatchResponse response = web3j.newBatch()
+                .add(web3j.ethGetBalance("0x00000000000000000000000000000000000000a1", DefaultBlockParameterName.LATEST))
+                .add(web3j.ethGetBalance("0x00000000000000000000000000000000000000b2", DefaultBlockParameterName.LATEST))
+                .sendAsync().get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, response.getResponses().size());
+        EthGetBalance first = (EthGetBalance) response.getResponses().get(0);
+        assertEquals(response.getRequests().get(1).getId(), first.getId());
+        assertEquals(0xb2, first.getBalance().intValue());
+    }
+
+    @Test
+    void sendAsync_capsConcurrentRequestsAndQueuesTheRest() throws Exception {
+        settings.setMaxConcurrentRequests(2);
+        release = new CountDownLatch(1);
+        Web3j web3j = Web3j.build(newService());
+
+        List<CompletableFuture<EthBlockNumber>> calls = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            calls.add(web3j.ethBlockNumber().sendAsync());
+        }
+        Thread.sleep(200);
+        assertEquals(2, inFlight.get());
+
+        release.countDown();
+        for (CompletableFuture<EthBlockNumber> call : calls) {
+            assertEquals(16, call.get(5, TimeUnit.SECONDS).getBlockNumber().intValue());
+        }
+        assertEquals(2, maxInFlight.get());
+    }
+
+    @Test
+    void sendAsync_cancelReleasesTheConnectionSlot() throws Exception {
+        settings.setMaxConcurrentRequests(1);
+        release = new CountDownLatch(1);
+        Web3j web3j = Web3j.build(newService());
+
+        CompletableFuture<EthBlockNumber> abandoned = web3j.ethBlockNumber().sendAsync();
+        Thread.sleep(200);
+        abandoned.cancel(true);
+        CompletableFuture<EthBlockNumber> next = web3j.ethBlockNumber().sendAsync();
+        Thread.sleep(200);
+
+        // The stub is still holding the cancelled call, but the slot was handed to the next one
+        assertEquals(2, inFlight.get());
+        release.countDown();
+        assertEquals(16, next.get(5, TimeUnit.SECONDS).getBlockNumber().intValue());
+    }
+
+    @Test
+    void sendAsync_failsOnHttpError() {
+        status = 503;
+        Web3j web3j = Web3j.build(newService());
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> web3j.ethBlockNumber().sendAsync().get(5, TimeUnit.SECONDS));
+        assertInstanceOf(ClientConnectionException.class, e.getCause());
+    }
+}
@@ -0,0 +1,306 @@
+package com.web3.web3j.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.methods.response.EthBlockNumber;
+import org.web3j.protocol.core.methods.response.EthGetBalance;
+import org.web3j.protocol.core.methods.response.EthSendTransaction;
+import org.web3j.protocol.exceptions.ClientConnectionException;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PooledWeb3jServiceTest {
+
+    @Mock
+    Web3jService nodeA;
+
+    @Mock
+    Web3jService nodeB;
+
+    BlockchainProperties properties = new BlockchainProperties();
+    BlockchainProperties.Pool settings = properties.getPool();
+    BlockchainProperties.Hedge hedge = properties.getHedge();
+
+    // Futures handed out by the nodes for eth_getBalance, completed by each test
+    Map<Web3jService, CompletableFuture<EthGetBalance>> balanceCalls = new ConcurrentHashMap<>();
+
+    PooledWeb3jService pool;
+    Web3j web3j;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, Web3jService> nodes = new LinkedHashMap<>();
+        nodes.put("a", nodeA);
+        nodes.put("b", nodeB);
+        pool = new PooledWeb3jService(nodes, properties);
+        web3j = Web3j.build(pool);
+    }
+
+    private static EthBlockNumber blockNumber(String hex) {
+        EthBlockNumber response = new EthBlockNumber();
+        response.setResult(hex);
+        return response;
+    }
+
+    private void stubPendingBalances() {
+        for (Web3jService node : List.of(nodeA, nodeB)) {
+            lenient().when(node.sendAsync(any(), eq(EthGetBalance.class))).thenAnswer(invocation -> {
+                CompletableFuture<EthGetBalance> future = new CompletableFuture<>();
+                balanceCalls.put(node, future);
+                return future;
+            });
+        }
+    }
+
+    private static EthGetBalance balance(String hex) {
+        EthGetBalance response = new EthGetBalance();
+        response.setResult(hex);
+        return response;
+    }
+
+    private CompletableFuture<EthGetBalance> getBalance() {
+        return web3j.ethGetBalance("0x00000000000000000000000000000000000000a1", DefaultBlockParameterName.LATEST).sendAsync();
+    }
+
+    private CompletableFuture<EthGetBalance> awaitCall(Web3jService node) throws InterruptedException {
+        for (int i = 0; i < 100 && !balanceCalls.containsKey(node); i++) {
+            Thread.sleep(10);
+        }
+        return balanceCalls.get(node);
+    }
+
+    private static Map<String, Object> stats(PooledWeb3jService pool, String url) {
+        return pool.getNodeStats().stream().filter(s -> url.equals(s.get("url"))).findFirst().orElseThrow();
+    }
+
+    @Test
+    void send_readFailsOverToAnotherNode() throws Exception {
+        when(nodeA.send(any(), eq(EthBlockNumber.class))).thenThrow(new ConnectException("refused"));
+        when(nodeB.send(any(), eq(EthBlockNumber.class))).thenReturn(blockNumber("0x10"));
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(16, web3j.ethBlockNumber().send().getBlockNumber().intValue());
+        }
+        assertEquals(0L, stats(pool, "b").get("failures"));
+    }
+
+    @Test
+    void send_ejectsNodeAfterConsecutiveFailures() throws Exception {
+        settings.setFailureThreshold(2);
+        when(nodeA.send(any(), eq(EthBlockNumber.class))).thenThrow(new ClientConnectionException("HTTP 502"));
+        // Node b is slow, so a is preferred until it has failed twice
+        when(nodeB.send(any(), eq(EthBlockNumber.class))).thenAnswer(invocation -> {
+            Thread.sleep(5);
+            return blockNumber("0x10");
+        });
+
+        for (int i = 0; i < 20; i++) {
+            web3j.ethBlockNumber().send();
+        }
+
+        verify(nodeA, times(2)).send(any(), eq(EthBlockNumber.class));
+        assertEquals(false, stats(pool, "a").get("healthy"));
+        assertEquals(1L, stats(pool, "a").get("ejections"));
+    }
+
+    @Test
+    void send_rawTransactionIsNotRetried() throws Exception {
+        when(nodeA.send(any(), eq(EthSendTransaction.class))).thenThrow(new IOException("timeout"));
+        lenient().when(nodeB.send(any(), eq(EthSendTransaction.class))).thenThrow(new IOException("timeout"));
+
+        assertThrows(IOException.class, () -> web3j.ethSendRawTransaction("0xf86c").send());
+        assertThrows(IOException.class, () -> web3j.ethSendRawTransaction("0xf86c").send());
+
+        // One node per submission, never both
+        int a = mockingDetails(nodeA).getInvocations().size();
+        int b = mockingDetails(nodeB).getInvocations().size();
+        assertEquals(2, a + b);
+    }
+
+    @Test
+    void send_allNodesFailing_throwsLastError() throws Exception {
+        when(nodeA.send(any(), eq(EthBlockNumber.class))).thenThrow(new IOException("down"));
+        when(nodeB.send(any(), eq(EthBlockNumber.class))).thenThrow(new IOException("down"));
+
+        IOException e = assertThrows(IOException.class, () -> web3j.ethBlockNumber().send());
+        assertEquals("down", e.getMessage());
+    }
+
+    @Test
+    void send_failuresWhileEjectedDoNotEjectAgain() throws Exception {
+        settings.setFailureThreshold(1);
+        settings.setEjectionMs(60_000);
+        when(nodeA.send(any(), eq(EthBlockNumber.class))).thenThrow(new IOException("down"));
+        when(nodeB.send(any(), eq(EthBlockNumber.class))).thenThrow(new IOException("down"));
+
+        // Every node is ejected, so each call still goes to them, but must not restart the ejection
+        for (int i = 0; i < 10; i++) {
+            assertThrows(IOException.class, () -> web3j.ethBlockNumber().send());
+        }
+
+        assertEquals(1L, stats(pool, "a").get("ejections"));
+        assertEquals(1L, stats(pool, "b").get("ejections"));
+    }
+
+    @Test
+    void send_failedProbationCallEjectsOnceMore() throws Exception {
+        settings.setFailureThreshold(2);
+        settings.setEjectionMs(50);
+        PooledWeb3jService single = new PooledWeb3jService(Map.of("a", nodeA), properties);
+        Web3j singleWeb3j = Web3j.build(single);
+        when(nodeA.send(any(), eq(EthBlockNumber.class))).thenThrow(new IOException("down"));
+
+        for (int i = 0; i < 6; i++) {
+            assertThrows(IOException.class, () -> singleWeb3j.ethBlockNumber().send());
+        }
+        assertEquals(1L, stats(single, "a").get("ejections"));
+
+        // The first call after the ejection ends is on probation
+        Thread.sleep(80);
+        assertThrows(IOException.class, () -> singleWeb3j.ethBlockNumber().send());
+        assertThrows(IOException.class, () -> singleWeb3j.ethBlockNumber().send());
+        assertEquals(2L, stats(single, "a").get("ejections"));
+        assertEquals(false, stats(single, "a").get("healthy"));
+    }
+
+    @Test
+    void send_prefersTheFasterNode() throws Exception {
+        when(nodeA.send(any(), eq(EthBlockNumber.class))).thenAnswer(invocation -> {
+            Thread.sleep(20);
+            return blockNumber("0x1");
+        });
+        when(nodeB.send(any(), eq(EthBlockNumber.class))).thenReturn(blockNumber("0x1"));
+
+        for (int i = 0; i < 30; i++) {
+            web3j.ethBlockNumber().send();
+        }
+
+        // With two nodes both are always compared, so after one sample each the slow node gets nothing
+        assertEquals(1L, stats(pool, "a").get("requests"));
+        assertEquals(29L, stats(pool, "b").get("requests"));
+    }
+
+    @Test
+    void sendAsync_readFailsOverToAnotherNode() throws Exception {
+        lenient().when(nodeA.sendAsync(any(), eq(EthBlockNumber.class)))
+                .thenReturn(CompletableFuture.failedFuture(new ConnectException("refused")));
+        lenient().when(nodeB.sendAsync(any(), eq(EthBlockNumber.class)))
+                .thenReturn(CompletableFuture.completedFuture(blockNumber("0x20")));
+
+        for (int i = 0; i < 3; i++) {
+            EthBlockNumber response = web3j.ethBlockNumber().sendAsync().get(5, TimeUnit.SECONDS);
+            assertEquals(32, response.getBlockNumber().intValue());
+        }
+    }
+
+    @Test
+    void sendAsync_rawTransactionIsNotRetried() {
+        lenient().when(nodeA.sendAsync(any(), eq(EthSendTransaction.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IOException("timeout")));
+        lenient().when(nodeB.sendAsync(any(), eq(EthSendTransaction.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IOException("timeout")));
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> web3j.ethSendRawTransaction("0xf86c").sendAsync().get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IOException.class, e.getCause());
+        int a = mockingDetails(nodeA).getInvocations().size();
+        int b = mockingDetails(nodeB).getInvocations().size();
+        assertEquals(1, a + b);
+    }
+
+    @Test
+    void sendAsync_slowBalanceRead_isHedgedAndLoserCancelled() throws Exception {
+        hedge.setInitialDelayMs(20);
+        stubPendingBalances();
+
+        CompletableFuture<EthGetBalance> result = getBalance();
+        Web3jService primary = balanceCalls.containsKey(nodeA) ? nodeA : nodeB;
+        Web3jService secondary = primary == nodeA ? nodeB : nodeA;
+        CompletableFuture<EthGetBalance> hedgeCall = awaitCall(secondary);
+        assertNotNull(hedgeCall, "hedge was not sent");
+
+        hedgeCall.complete(balance("0x2a"));
+
+        assertEquals(42, result.get(5, TimeUnit.SECONDS).getBalance().intValue());
+        assertTrue(balanceCalls.get(primary).isCancelled());
+        assertEquals(1L, pool.getHedgeStats().get("fired"));
+        assertEquals(1L, pool.getHedgeStats().get("won"));
+        assertEquals(0L, stats(pool, primary == nodeA ? "a" : "b").get("failures"));
+    }
+
+    @Test
+    void sendAsync_fastBalanceRead_isNotHedged() throws Exception {
+        hedge.setInitialDelayMs(100);
+        stubPendingBalances();
+
+        CompletableFuture<EthGetBalance> result = getBalance();
+        balanceCalls.values().iterator().next().complete(balance("0x1"));
+        assertEquals(1, result.get(5, TimeUnit.SECONDS).getBalance().intValue());
+        Thread.sleep(200);
+
+        assertEquals(1, balanceCalls.size());
+        assertEquals(1L, pool.getHedgeStats().get("eligible"));
+        assertEquals(0L, pool.getHedgeStats().get("fired"));
+    }
+
+    @Test
+    void sendAsync_balanceReadFailingBeforeHedgeDelay_isRetriedAtOnce() throws Exception {
+        hedge.setInitialDelayMs(10_000);
+        stubPendingBalances();
+
+        CompletableFuture<EthGetBalance> result = getBalance();
+        Web3jService primary = balanceCalls.keySet().iterator().next();
+        balanceCalls.get(primary).completeExceptionally(new ConnectException("refused"));
+        CompletableFuture<EthGetBalance> retry = awaitCall(primary == nodeA ? nodeB : nodeA);
+        retry.complete(balance("0x7"));
+
+        assertEquals(7, result.get(5, TimeUnit.SECONDS).getBalance().intValue());
+        assertEquals(0L, pool.getHedgeStats().get("fired"));
+    }
+
+    @Test
+    void send_blockNumberIsNeverHedged() throws Exception {
+        hedge.setInitialDelayMs(1);
+        lenient().when(nodeA.send(any(), eq(EthBlockNumber.class))).thenAnswer(invocation -> {
+            Thread.sleep(50);
+            return blockNumber("0x1");
+        });
+        lenient().when(nodeB.send(any(), eq(EthBlockNumber.class))).thenAnswer(invocation -> {
+            Thread.sleep(50);
+            return blockNumber("0x1");
+        });
+
+        web3j.ethBlockNumber().send();
+
+        assertEquals(1, mockingDetails(nodeA).getInvocations().size() + mockingDetails(nodeB).getInvocations().size());
+        assertEquals(0L, pool.getHedgeStats().get("eligible"));
+    }
+
+    @Test
+    void getNodeStats_listsNodesInConfigurationOrder() {
+        List<Map<String, Object>> stats = pool.getNodeStats();
+
+        assertEquals(List.of("a", "b"), stats.stream().map(s -> s.get("url")).toList());
+        assertEquals(true, stats.get(0).get("healthy"));
+    }
+}
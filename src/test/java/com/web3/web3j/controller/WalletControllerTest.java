@@ -0,0 +1,113 @@
+package com.web3.web3j.controller;
+
+import com.web3.web3j.DTO.WalletExportRow;
+import com.web3.web3j.model.UserAccount;
+import com.web3.web3j.model.WalletEntity;
+import com.web3.web3j.repository.WalletRepository;
+import com.web3.web3j.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Streams real rows from the in-memory H2 database through the export endpoints
+@SpringBootTest
+class WalletControllerTest {
+
+    static final String KEYSTORE = "{\"crypto\":\"SECRET-KEYSTORE\"}";
+    static final String HOT = "0x00000000000000000000000000000000000000e1";
+    static final String COLD = "0x00000000000000000000000000000000000000e2";
+
+    @Autowired
+    WebApplicationContext context;
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    WalletRepository walletRepository;
+
+    MockMvc mockMvc;
+
+    UserAccount user;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        user = userService.createUser("export-owner", "export-owner@example.com");
+        walletRepository.save(new WalletEntity(user, HOT, "hot", KEYSTORE));
+        walletRepository.save(new WalletEntity(user, COLD, "cold, \"offline\"", KEYSTORE));
+    }
+
+    @AfterEach
+    void tearDown() {
+        userService.deleteUser(user.getId());
+    }
+
+    // Run the request, let the StreamingResponseBody finish, and return what it wrote
+    private String stream(String path, String format) throws Exception {
+        MvcResult started = mockMvc.perform(get(path).param("format", format))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private List<String> linesOf(String body, String address) {
+        return body.lines().filter(line -> line.contains(address)).toList();
+    }
+
+    @Test
+    void exportNdjson_writesOneObjectPerWalletWithoutKeystore() throws Exception {
+        String body = stream("/wallets/export", "ndjson");
+
+        assertFalse(body.contains("keystore"), body);
+        assertFalse(body.contains("SECRET-KEYSTORE"));
+        List<String> hot = linesOf(body, HOT);
+        assertEquals(1, hot.size());
+        assertTrue(hot.get(0).startsWith("{") && hot.get(0).contains("\"userId\":" + user.getId()), hot.get(0));
+        assertEquals(1, linesOf(body, COLD).size());
+    }
+
+    @Test
+    void exportCsv_writesHeaderAndQuotedRowsWithoutKeystore() throws Exception {
+        String body = stream("/wallets/export", "csv");
+
+        assertEquals(WalletExportRow.CSV_HEADER, body.lines().findFirst().orElseThrow());
+        assertFalse(body.contains("keystore"), body);
+        assertFalse(body.contains("SECRET-KEYSTORE"));
+        String cold = linesOf(body, COLD).get(0);
+        assertTrue(cold.contains("," + COLD + "," + user.getId() + ",\"cold, \"\"offline\"\"\","), cold);
+        assertEquals(1, linesOf(body, HOT).size());
+    }
+
+    @Test
+    void userWalletsNdjson_streamsOnlyThatUsersWalletsWithoutKeystore() throws Exception {
+        String body = stream("/wallets/users/" + user.getId() + "/wallets", "ndjson");
+
+        assertFalse(body.contains("keystore"), body);
+        assertFalse(body.contains("SECRET-KEYSTORE"));
+        assertEquals(2, body.lines().count());
+        assertEquals(1, linesOf(body, HOT).size());
+        assertEquals(1, linesOf(body, COLD).size());
+    }
+
+    @Test
+    void export_rejectsUnknownFormat() throws Exception {
+        mockMvc.perform(get("/wallets/export").param("format", "xml")).andExpect(status().isBadRequest());
+    }
+}
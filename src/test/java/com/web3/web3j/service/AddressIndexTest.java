@@ -0,0 +1,94 @@
+package com.web3.web3j.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AddressIndexTest {
+
+    private static String address(Random random) {
+        StringBuilder hex = new StringBuilder("0x");
+        for (int i = 0; i < 40; i++) {
+            hex.append(Character.forDigit(random.nextInt(16), 16));
+        }
+        return hex.toString();
+    }
+
+    @Test
+    void contains_isCaseInsensitiveAndRejectsMalformedInput() {
+        AddressIndex index = new AddressIndex(0);
+        String address = "0x52908400098527886E0F7030069857D2E4169EE7";
+
+        assertTrue(index.add(address));
+        assertFalse(index.add(address.toLowerCase()));
+
+        assertTrue(index.contains(address.toLowerCase()));
+        assertTrue(index.contains("0X52908400098527886e0f7030069857d2e4169ee7"));
+        assertFalse(index.contains("0x52908400098527886e0f7030069857d2e4169ee8"));
+        assertFalse(index.contains(null));
+        assertFalse(index.contains("0x52908400098527886e0f7030069857d2e4169ee"));
+        assertFalse(index.contains("0x52908400098527886e0f7030069857d2e4169eeg"));
+        assertThrows(IllegalArgumentException.class, () -> index.add("0x1234"));
+        assertEquals(1, index.size());
+        assertEquals(List.of(address.toLowerCase()), index.toList());
+    }
+
+    @Test
+    void growsPastItsInitialCapacityWithoutLosingEntries() {
+        Random random = new Random(1);
+        AddressIndex index = new AddressIndex(0);
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < 20_000; i++) {
+            String address = address(random);
+            assertEquals(expected.add(address), index.add(address));
+        }
+
+        assertEquals(expected.size(), index.size());
+        expected.forEach(address -> assertTrue(index.contains(address), address));
+        for (int i = 0; i < 20_000; i++) {
+            String address = address(random);
+            assertEquals(expected.contains(address), index.contains(address));
+        }
+        // 24 bytes a slot plus 2 bytes of Bloom filter, at least a quarter full after growth
+        assertTrue(index.memoryBytes() <= 4 * 26L * expected.size(), "" + index.memoryBytes());
+    }
+
+    @Test
+    void removedSlotsAreReusedAndDoNotBreakProbeChains() {
+        Random random = new Random(2);
+        AddressIndex index = new AddressIndex(1_000);
+        long memory = index.memoryBytes();
+        Set<String> live = new HashSet<>();
+        // Churn many times the capacity through the table
+        for (int i = 0; i < 50_000; i++) {
+            String address = address(random);
+            index.add(address);
+            live.add(address);
+            if (live.size() > 500) {
+                String gone = live.iterator().next();
+                assertTrue(index.remove(gone));
+                assertFalse(index.remove(gone));
+                live.remove(gone);
+                assertFalse(index.contains(gone));
+            }
+        }
+
+        assertEquals(live, new HashSet<>(index.toList()));
+        live.forEach(address -> assertTrue(index.contains(address), address));
+        // Deleted slots are reclaimed by rebuilding at the same size, not by growing
+        assertEquals(memory, index.memoryBytes());
+    }
+
+    @Test
+    void capacityFor_keepsTheTableAtMostHalfFull() {
+        assertEquals(16, AddressIndex.capacityFor(0));
+        assertEquals(16, AddressIndex.capacityFor(8));
+        assertEquals(32, AddressIndex.capacityFor(9));
+        assertEquals(2048, AddressIndex.capacityFor(1_000));
+    }
+}
@@ -0,0 +1,72 @@
+package com.web3.web3j.service;
+
+import com.web3.web3j.config.BlockchainProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.web3j.protocol.Web3j;
+
+import java.math.BigInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class BalanceCacheTest {
+
+    BlockchainProperties properties = new BlockchainProperties();
+
+    BlockHeadTracker headTracker;
+
+    BalanceCache cache;
+
+    @BeforeEach
+    void setUp() {
+        headTracker = new BlockHeadTracker(mock(Web3j.class), properties);
+        headTracker.onNewHead(BigInteger.TEN);
+        cache = new BalanceCache(headTracker, properties);
+    }
+
+    @Test
+    void get_isCaseInsensitiveAndCountsHitsAndMisses() {
+        assertTrue(cache.get("0xAB").isEmpty());
+        cache.put("0xAB", BigInteger.ONE, BigInteger.TEN);
+
+        assertEquals(BigInteger.ONE, cache.get("0xab").orElseThrow());
+        assertEquals(1L, cache.getStats().get("hits"));
+        assertEquals(1L, cache.getStats().get("misses"));
+    }
+
+    @Test
+    void newHead_invalidatesOlderEntries() {
+        cache.put("0xab", BigInteger.ONE, BigInteger.TEN);
+        headTracker.onNewHead(BigInteger.valueOf(11));
+        assertTrue(cache.get("0xab").isEmpty());
+    }
+
+    @Test
+    void put_skipsValueReadBeforeLatestHead() {
+        BigInteger tag = cache.currentBlock();
+        headTracker.onNewHead(BigInteger.valueOf(11));
+        cache.put("0xab", BigInteger.ONE, tag);
+        assertTrue(cache.get("0xab").isEmpty());
+    }
+
+    @Test
+    void put_evictsLeastRecentlyUsedBeyondMaxSize() {
+        properties.getBalanceCache().setMaxSize(2);
+        cache.put("0x1", BigInteger.ONE, BigInteger.TEN);
+        cache.put("0x2", BigInteger.ONE, BigInteger.TEN);
+        cache.get("0x1");
+        cache.put("0x3", BigInteger.ONE, BigInteger.TEN);
+
+        assertTrue(cache.get("0x2").isEmpty());
+        assertTrue(cache.get("0x1").isPresent());
+        assertEquals(1L, cache.getStats().get("evictions"));
+    }
+
+    @Test
+    void get_expiresEntriesAfterTtl() {
+        properties.getBalanceCache().setTtlSeconds(-1);
+        cache.put("0xab", BigInteger.ONE, BigInteger.TEN);
+        assertTrue(cache.get("0xab").isEmpty());
+    }
+}
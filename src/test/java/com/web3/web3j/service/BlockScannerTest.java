@@ -0,0 +1,285 @@
+package com.web3.web3j.service;
+
+import com.web3.web3j.config.BlockchainProperties;
+import com.web3.web3j.model.ScannedBlock;
+import com.web3.web3j.model.WalletTransaction;
+import com.web3.web3j.repository.ScannedBlockRepository;
+import com.web3.web3j.repository.WalletRepository;
+import com.web3.web3j.repository.WalletTransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.methods.response.EthBlock;
+import org.web3j.protocol.core.methods.response.EthBlockNumber;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BlockScannerTest {
+
+    private static final String WALLET_A = "0x00000000000000000000000000000000000000a1";
+    private static final String WALLET_B = "0x00000000000000000000000000000000000000b2";
+    private static final String OUTSIDER = "0x00000000000000000000000000000000000000c3";
+    private static final String STRANGER = "0x00000000000000000000000000000000000000d4";
+
+    @Mock
+    Web3jService service;
+
+    @Mock
+    WalletRepository walletRepository;
+
+    @Mock
+    ScannedBlockRepository scannedBlockRepository;
+
+    @Mock
+    WalletTransactionRepository walletTransactionRepository;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    BlockchainProperties properties = new BlockchainProperties();
+
+    BlockHeadTracker headTracker;
+
+    ManagedAddressRegistry addressRegistry;
+
+    BlockScanner scanner;
+
+    // The node's chain, by block number
+    Map<Long, EthBlock.Block> chain = new TreeMap<>();
+    List<Long> fetched = new ArrayList<>();
+    // When set, every block fetch waits on this instead of answering
+    volatile CompletableFuture<EthBlock> stalledFetch;
+
+    // The two tables
+    TreeMap<Long, ScannedBlock> scannedBlocks = new TreeMap<>();
+    List<WalletTransaction> walletTransactions = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        Web3j web3j = Web3j.build(service);
+        headTracker = new BlockHeadTracker(web3j, properties);
+        addressRegistry = new ManagedAddressRegistry(walletRepository);
+        scanner = new BlockScanner(web3j, headTracker, addressRegistry, scannedBlockRepository, walletTransactionRepository,
+                new TransactionTemplate(transactionManager), properties);
+        properties.getScanner().setStartBlock(1);
+
+        lenient().when(walletRepository.streamAllAddresses()).thenReturn(Stream.of(WALLET_A, WALLET_B));
+        lenient().when(service.sendAsync(any(Request.class), any())).thenAnswer(invocation -> {
+            Request<?, ?> request = invocation.getArgument(0);
+            assertEquals("eth_getBlockByNumber", request.getMethod());
+            long number = Long.decode((String) request.getParams().get(0));
+            synchronized (fetched) {
+                fetched.add(number);
+            }
+            if (stalledFetch != null) {
+                return stalledFetch;
+            }
+            EthBlock response = new EthBlock();
+            response.setResult(chain.get(number));
+            return CompletableFuture.completedFuture(response);
+        });
+
+        lenient().when(scannedBlockRepository.findTopByOrderByBlockNumberDesc())
+                .thenAnswer(invocation -> Optional.ofNullable(scannedBlocks.isEmpty() ? null : scannedBlocks.lastEntry().getValue()));
+        lenient().when(scannedBlockRepository.findById(anyLong()))
+                .thenAnswer(invocation -> Optional.ofNullable(scannedBlocks.get((Long) invocation.getArgument(0))));
+        lenient().when(scannedBlockRepository.save(any())).thenAnswer(invocation -> {
+            ScannedBlock block = invocation.getArgument(0);
+            scannedBlocks.put(block.getBlockNumber(), block);
+            return block;
+        });
+        lenient().doAnswer(invocation -> scannedBlocks.remove((Long) invocation.getArgument(0)))
+                .when(scannedBlockRepository).deleteById(anyLong());
+        lenient().when(scannedBlockRepository.deleteOlderThan(anyLong())).thenAnswer(invocation -> {
+            Map<Long, ScannedBlock> old = scannedBlocks.headMap(invocation.getArgument(0));
+            int removed = old.size();
+            old.clear();
+            return removed;
+        });
+        lenient().when(walletTransactionRepository.saveAll(any())).thenAnswer(invocation -> {
+            Iterable<WalletTransaction> rows = invocation.getArgument(0);
+            rows.forEach(walletTransactions::add);
+            return rows;
+        });
+        lenient().when(walletTransactionRepository.deleteFromBlock(anyLong())).thenAnswer(invocation -> {
+            long from = invocation.getArgument(0);
+            int before = walletTransactions.size();
+            walletTransactions.removeIf(tx -> tx.getBlockNumber() >= from);
+            return before - walletTransactions.size();
+        });
+    }
+
+    private static EthBlock.TransactionObject tx(String hash, String from, String to, long value) {
+        EthBlock.TransactionObject tx = new EthBlock.TransactionObject();
+        tx.setHash(hash);
+        tx.setFrom(from);
+        tx.setTo(to);
+        tx.setValue("0x" + Long.toHexString(value));
+        return tx;
+    }
+
+    // Append a block on top of the given parent; fork distinguishes competing blocks at one height
+    private EthBlock.Block mine(long number, String fork, EthBlock.TransactionObject... transactions) {
+        EthBlock.Block parent = chain.get(number - 1);
+        EthBlock.Block block = new EthBlock.Block();
+        block.setNumber("0x" + Long.toHexString(number));
+        block.setHash("0x" + fork + number);
+        block.setParentHash(parent != null ? parent.getHash() : "0x0");
+        block.setTimestamp("0x" + Long.toHexString(1_700_000_000L + number * 12));
+        block.setTransactions(List.<EthBlock.TransactionResult>of(transactions));
+        chain.put(number, block);
+        headTracker.onNewHead(BigInteger.valueOf(number));
+        return block;
+    }
+
+    private List<String> rows() {
+        return walletTransactions.stream()
+                .map(tx -> tx.getBlockNumber() + ":" + tx.getTransactionHash() + ":" + tx.getAddress() + ":" + tx.getDirection())
+                .toList();
+    }
+
+    @Test
+    void scan_recordsTransfersFromAndToManagedWallets() throws Exception {
+        addressRegistry.loadAll();
+        mine(1, "a", tx("0x01", OUTSIDER, STRANGER, 1));
+        mine(2, "a", tx("0x02", OUTSIDER, WALLET_A.toUpperCase().replace("0X", "0x"), 500));
+        mine(3, "a", tx("0x03", WALLET_A, WALLET_B, 7), tx("0x04", WALLET_B, null, 0));
+
+        assertEquals(3, scanner.scan());
+
+        assertEquals(List.of(
+                "2:0x02:" + WALLET_A + ":IN",
+                "3:0x03:" + WALLET_A + ":OUT",
+                "3:0x03:" + WALLET_B + ":IN",
+                "3:0x04:" + WALLET_B + ":OUT"), rows());
+        WalletTransaction deposit = walletTransactions.get(0);
+        assertEquals(OUTSIDER, deposit.getCounterparty());
+        assertEquals(500, deposit.getValue().longValueExact());
+        assertEquals(3L, scannedBlocks.lastKey());
+    }
+
+    @Test
+    void scan_resumesFromTheCheckpoint() throws Exception {
+        addressRegistry.loadAll();
+        mine(1, "a");
+        mine(2, "a");
+        scanner.scan();
+
+        mine(3, "a", tx("0x03", OUTSIDER, WALLET_B, 1));
+        fetched.clear();
+        assertEquals(1, scanner.scan());
+        assertEquals(List.of(3L), fetched);
+        assertEquals(0, scanner.scan());
+        assertEquals(3L, scanner.getStats().get("checkpoint"));
+    }
+
+    @Test
+    void scan_unwindsAReorgAndIndexesTheNewBranch() throws Exception {
+        addressRegistry.loadAll();
+        mine(1, "a");
+        mine(2, "a", tx("0x02", OUTSIDER, WALLET_A, 5));
+        mine(3, "a", tx("0x03", OUTSIDER, WALLET_A, 6));
+        scanner.scan();
+
+        // Blocks 2 and 3 are replaced; the deposit in 0x02 is re-mined, 0x03 is gone
+        mine(2, "b", tx("0x02", OUTSIDER, WALLET_A, 5));
+        mine(3, "b");
+        mine(4, "b", tx("0x04", WALLET_A, OUTSIDER, 1));
+        scanner.scan();
+
+        assertEquals(List.of(
+                "2:0x02:" + WALLET_A + ":IN",
+                "4:0x04:" + WALLET_A + ":OUT"), rows());
+        assertEquals("0xb2", walletTransactions.get(0).getBlockHash());
+        assertEquals("0xb4", scannedBlocks.lastEntry().getValue().getBlockHash());
+        assertEquals(2L, scanner.getStats().get("reorgs"));
+    }
+
+    @Test
+    void scan_keepsOnlyRecentHashesAndCapsBlocksPerRun() throws Exception {
+        properties.getScanner().setReorgDepth(2);
+        properties.getScanner().setMaxBlocksPerRun(3);
+        properties.getScanner().setFetchBlocks(2);
+        addressRegistry.loadAll();
+        for (long n = 1; n <= 5; n++) {
+            mine(n, "a");
+        }
+
+        assertEquals(3, scanner.scan());
+        assertEquals(2, scanner.scan());
+        assertEquals(List.of(3L, 4L, 5L), new ArrayList<>(scannedBlocks.keySet()));
+    }
+
+    @Test
+    void poll_waitsForTheRegistryToLoad() {
+        mine(1, "a", tx("0x01", OUTSIDER, WALLET_A, 1));
+
+        scanner.poll();
+
+        assertTrue(fetched.isEmpty());
+        verifyNoInteractions(scannedBlockRepository);
+    }
+
+    @Test
+    void poll_scansOffTheSchedulerThreadSoHeadPollingContinues() throws Exception {
+        addressRegistry.loadAll();
+        mine(1, "a");
+        stalledFetch = new CompletableFuture<>();
+        AtomicLong nodeHead = new AtomicLong(1);
+        when(service.send(any(Request.class), eq(EthBlockNumber.class))).thenAnswer(invocation -> {
+            EthBlockNumber response = new EthBlockNumber();
+            response.setResult("0x" + Long.toHexString(nodeHead.incrementAndGet()));
+            return response;
+        });
+
+        // Spring's default: one scheduler thread for every @Scheduled job
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.initialize();
+        try {
+            scheduler.scheduleWithFixedDelay(scanner::poll, Duration.ofMillis(10));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (fetched.isEmpty()) {
+                assertTrue(System.nanoTime() < deadline, "scan never started");
+                Thread.sleep(5);
+            }
+
+            // The scan is stuck on block 1, yet the head poller on the same scheduler keeps running
+            scheduler.scheduleWithFixedDelay(headTracker::poll, Duration.ofMillis(10));
+            while (headTracker.getCurrentHead().longValueExact() < 5) {
+                assertTrue(System.nanoTime() < deadline, "head stopped at " + headTracker.getCurrentHead());
+                Thread.sleep(5);
+            }
+            assertTrue(scannedBlocks.isEmpty());
+        } finally {
+            scheduler.shutdown();
+            scanner.stop();
+        }
+    }
+}
@@ -1,20 +1,35 @@
 package com.web3.web3j.service;
 
+import com.web3.web3j.config.BlockchainProperties;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.web3j.protocol.Web3j;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.BatchRequest;
+import org.web3j.protocol.core.BatchResponse;
 import org.web3j.protocol.core.DefaultBlockParameterName;
 import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
 import org.web3j.protocol.core.methods.response.*;
 import org.web3j.crypto.Credentials;
 import org.web3j.crypto.Keys;
+import org.web3j.crypto.TransactionDecoder;
+import org.web3j.crypto.transaction.type.Transaction1559;
+import org.web3j.utils.Numeric;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -25,11 +40,35 @@ class BlockchainServiceTest {
     @Mock
     Web3j web3j;
 
+    BlockchainProperties properties = new BlockchainProperties();
+
+    TransactionTracker transactionTracker;
+
+    BlockHeadTracker headTracker;
+
+    BalanceCache balanceCache;
+
+    @Mock
+    GasPriceOracle gasPriceOracle;
+
+    // 1 gwei tip, 31 gwei max fee on chain 1337
+    GasFees fees = GasFees.eip1559(GasPriceOracle.Urgency.MEDIUM, BigInteger.TEN, 1337,
+            BigInteger.valueOf(15_000_000_000L), BigInteger.valueOf(1_000_000_000L), BigInteger.valueOf(31_000_000_000L));
+
+    @Mock
+    GasEstimateCache gasEstimateCache;
+
     BlockchainService blockchainService;
 
     @BeforeEach
-    void setUp() {
-        blockchainService = new BlockchainService(web3j);
+    void setUp() throws Exception {
+        headTracker = new BlockHeadTracker(web3j, properties);
+        transactionTracker = new TransactionTracker(web3j, properties, headTracker);
+        balanceCache = new BalanceCache(headTracker, properties);
+        blockchainService = new BlockchainService(web3j, properties, transactionTracker, new NonceManager(web3j), balanceCache, gasPriceOracle, gasEstimateCache);
+        lenient().when(gasEstimateCache.gasLimitAsync(anyString(), anyString(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(BigInteger.valueOf(62_000)));
+        lenient().when(gasPriceOracle.suggestAsync()).thenReturn(CompletableFuture.completedFuture(fees));
     }
 
     @Test
@@ -52,13 +91,35 @@ class BlockchainServiceTest {
         EthGetBalance ethGetBalance = mock(EthGetBalance.class);
 
         when(web3j.ethGetBalance(address, DefaultBlockParameterName.LATEST)).thenReturn(req);
-        when(req.send()).thenReturn(ethGetBalance);
+        when(req.sendAsync()).thenReturn(CompletableFuture.completedFuture(ethGetBalance));
         when(ethGetBalance.getBalance()).thenReturn(new BigInteger("1000000000000000000")); // 1 ETH in wei
 
         BigDecimal result = blockchainService.getEtherBalance(address);
         assertEquals(new BigDecimal("1"), result.stripTrailingZeros());
     }
 
+    @Test
+    void getEtherBalance_servedFromCacheUntilNewHead() throws Exception {
+        String address = "0x0000000000000000000000000000000000000001";
+        headTracker.onNewHead(BigInteger.valueOf(100));
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Request req = mock(Request.class);
+        EthGetBalance ethGetBalance = mock(EthGetBalance.class);
+        when(web3j.ethGetBalance(address, DefaultBlockParameterName.LATEST)).thenReturn(req);
+        when(req.sendAsync()).thenReturn(CompletableFuture.completedFuture(ethGetBalance));
+        when(ethGetBalance.getBalance()).thenReturn(new BigInteger("1000000000000000000"));
+
+        blockchainService.getEtherBalance(address);
+        blockchainService.getEtherBalance(address);
+        verify(web3j, times(1)).ethGetBalance(address, DefaultBlockParameterName.LATEST);
+
+        headTracker.onNewHead(BigInteger.valueOf(101));
+        blockchainService.getEtherBalance(address);
+        verify(web3j, times(2)).ethGetBalance(address, DefaultBlockParameterName.LATEST);
+        assertEquals(1L, balanceCache.getStats().get("hits"));
+    }
+
     @Test
     void transferERC20_returnsReceipt_whenReceiptFound() throws Exception {
         Credentials credentials = Credentials.create(Keys.createEcKeyPair());
@@ -70,8 +131,8 @@ class BlockchainServiceTest {
         @SuppressWarnings({"unchecked", "rawtypes"})
         Request reqNonce = mock(Request.class);
         EthGetTransactionCount ethGetTransactionCount = mock(EthGetTransactionCount.class);
-        when(web3j.ethGetTransactionCount(credentials.getAddress(), DefaultBlockParameterName.LATEST)).thenReturn(reqNonce);
-        when(reqNonce.send()).thenReturn(ethGetTransactionCount);
+        when(web3j.ethGetTransactionCount(credentials.getAddress(), DefaultBlockParameterName.PENDING)).thenReturn(reqNonce);
+        when(reqNonce.sendAsync()).thenReturn(CompletableFuture.completedFuture(ethGetTransactionCount));
         when(ethGetTransactionCount.getTransactionCount()).thenReturn(BigInteger.ONE);
 
         // Mock send raw transaction (separate Request)
@@ -79,23 +140,40 @@ class BlockchainServiceTest {
         @SuppressWarnings({"unchecked", "rawtypes"})
         Request reqSendTx = mock(Request.class);
         when(web3j.ethSendRawTransaction(anyString())).thenReturn(reqSendTx);
-        when(reqSendTx.send()).thenReturn(ethSendTransaction);
+        when(reqSendTx.sendAsync()).thenReturn(CompletableFuture.completedFuture(ethSendTransaction));
         when(ethSendTransaction.getTransactionHash()).thenReturn("0xdeadbeef");
 
-        // Mock getTransactionReceipt (separate Request)
-        EthGetTransactionReceipt ethGetTransactionReceipt = mock(EthGetTransactionReceipt.class);
-        @SuppressWarnings({"unchecked", "rawtypes"})
-        Request reqGetReceipt = mock(Request.class);
-        when(web3j.ethGetTransactionReceipt("0xdeadbeef")).thenReturn(reqGetReceipt);
-        when(reqGetReceipt.send()).thenReturn(ethGetTransactionReceipt);
-
+        // The tracker sees it mined while transferERC20 waits
         TransactionReceipt receipt = new TransactionReceipt();
         receipt.setTransactionHash("0xdeadbeef");
-        when(ethGetTransactionReceipt.getTransactionReceipt()).thenReturn(Optional.of(receipt));
+        CompletableFuture<TransactionReceipt> transfer = CompletableFuture.supplyAsync(() -> {
+            try {
+                return blockchainService.transferERC20(credentials, contractAddress, toAddress, amount);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        });
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (transactionTracker.find("0xdeadbeef").isEmpty()) {
+            if (transfer.isDone()) {
+                // Failed before it was tracked: surface the cause instead of waiting
+                transfer.get();
+                fail("transfer completed without being tracked");
+            }
+            assertTrue(System.nanoTime() < deadline, "transaction was never tracked");
+            Thread.sleep(5);
+        }
+        transactionTracker.find("0xdeadbeef").get().resolve(receipt);
 
-        TransactionReceipt result = blockchainService.transferERC20(credentials, contractAddress, toAddress, amount);
+        TransactionReceipt result = transfer.get(5, TimeUnit.SECONDS);
         assertNotNull(result);
         assertEquals("0xdeadbeef", result.getTransactionHash());
+
+        // Gas limit comes from the estimate cache, keyed by contract and the transfer selector
+        ArgumentCaptor<String> signed = ArgumentCaptor.forClass(String.class);
+        verify(web3j).ethSendRawTransaction(signed.capture());
+        assertEquals(BigInteger.valueOf(62_000), TransactionDecoder.decode(signed.getValue()).getGasLimit());
+        verify(gasEstimateCache).gasLimitAsync(eq(credentials.getAddress()), eq(contractAddress), startsWith("0xa9059cbb"));
     }
 
     @Test
@@ -109,8 +187,8 @@ class BlockchainServiceTest {
         @SuppressWarnings({"unchecked", "rawtypes"})
         Request reqNonce = mock(Request.class);
         EthGetTransactionCount ethGetTransactionCount = mock(EthGetTransactionCount.class);
-        when(web3j.ethGetTransactionCount(credentials.getAddress(), DefaultBlockParameterName.LATEST)).thenReturn(reqNonce);
-        when(reqNonce.send()).thenReturn(ethGetTransactionCount);
+        when(web3j.ethGetTransactionCount(credentials.getAddress(), DefaultBlockParameterName.PENDING)).thenReturn(reqNonce);
+        when(reqNonce.sendAsync()).thenReturn(CompletableFuture.completedFuture(ethGetTransactionCount));
         when(ethGetTransactionCount.getTransactionCount()).thenReturn(BigInteger.ONE);
 
         // Mock send raw transaction (separate Request)
@@ -118,19 +196,180 @@ class BlockchainServiceTest {
         @SuppressWarnings({"unchecked", "rawtypes"})
         Request reqSendTx = mock(Request.class);
         when(web3j.ethSendRawTransaction(anyString())).thenReturn(reqSendTx);
-        when(reqSendTx.send()).thenReturn(ethSendTransaction);
+        when(reqSendTx.sendAsync()).thenReturn(CompletableFuture.completedFuture(ethSendTransaction));
         when(ethSendTransaction.getTransactionHash()).thenReturn("0xnope");
 
-        // Mock getTransactionReceipt (separate Request)
-        EthGetTransactionReceipt ethGetTransactionReceipt = mock(EthGetTransactionReceipt.class);
-        @SuppressWarnings({"unchecked", "rawtypes"})
-        Request reqGetReceipt = mock(Request.class);
-        when(web3j.ethGetTransactionReceipt("0xnope")).thenReturn(reqGetReceipt);
-        when(reqGetReceipt.send()).thenReturn(ethGetTransactionReceipt);
-        when(ethGetTransactionReceipt.getTransactionReceipt()).thenReturn(Optional.empty());
+        // Not mined within the wait: the transaction stays tracked
+        properties.getTracker().setWaitTimeoutSeconds(0);
 
-        RuntimeException ex = assertThrows(RuntimeException.class, () ->
+        ReceiptPendingException ex = assertThrows(ReceiptPendingException.class, () ->
                 blockchainService.transferERC20(credentials, contractAddress, toAddress, amount));
         assertTrue(ex.getMessage().contains("Transaction receipt not found"));
+        assertSame(transactionTracker.find("0xnope").orElseThrow(), ex.getTransaction());
+        assertTrue(ex.getTransaction().isPending());
+    }
+
+    @Test
+    void sendEtherAsync_givesUpWaitingButKeepsTracking() throws Exception {
+        Credentials credentials = Credentials.create(Keys.createEcKeyPair());
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Request reqNonce = mock(Request.class);
+        EthGetTransactionCount ethGetTransactionCount = mock(EthGetTransactionCount.class);
+        when(web3j.ethGetTransactionCount(credentials.getAddress(), DefaultBlockParameterName.PENDING)).thenReturn(reqNonce);
+        when(reqNonce.sendAsync()).thenReturn(CompletableFuture.completedFuture(ethGetTransactionCount));
+        when(ethGetTransactionCount.getTransactionCount()).thenReturn(BigInteger.ZERO);
+
+        EthSendTransaction ethSendTransaction = mock(EthSendTransaction.class);
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Request reqSendTx = mock(Request.class);
+        when(web3j.ethSendRawTransaction(anyString())).thenReturn(reqSendTx);
+        when(reqSendTx.sendAsync()).thenReturn(CompletableFuture.completedFuture(ethSendTransaction));
+        when(ethSendTransaction.getTransactionHash()).thenReturn("0xslow");
+
+        properties.getTracker().setWaitTimeoutSeconds(0);
+        CompletableFuture<TransactionReceipt> send = blockchainService.sendEtherAsync(
+                credentials, "0x2222222222222222222222222222222222222222", new BigDecimal("0.5"));
+
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> send.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(ReceiptPendingException.class, ex.getCause());
+
+        // The timeout does not touch the tracked transaction, which still resolves once mined
+        TrackedTransaction tx = transactionTracker.find("0xslow").orElseThrow();
+        assertFalse(tx.getReceiptFuture().isDone());
+        TransactionReceipt receipt = new TransactionReceipt();
+        receipt.setTransactionHash("0xslow");
+        receipt.setStatus("0x1");
+        tx.resolve(receipt);
+        assertSame(receipt, tx.getReceiptFuture().get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void submitEtherAsync_broadcastsAndTracksWithoutWaiting() throws Exception {
+        Credentials credentials = Credentials.create(Keys.createEcKeyPair());
+        String toAddress = "0x2222222222222222222222222222222222222222";
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Request reqNonce = mock(Request.class);
+        EthGetTransactionCount ethGetTransactionCount = mock(EthGetTransactionCount.class);
+        when(web3j.ethGetTransactionCount(credentials.getAddress(), DefaultBlockParameterName.PENDING)).thenReturn(reqNonce);
+        when(reqNonce.sendAsync()).thenReturn(CompletableFuture.completedFuture(ethGetTransactionCount));
+        when(ethGetTransactionCount.getTransactionCount()).thenReturn(BigInteger.ZERO);
+
+        EthSendTransaction ethSendTransaction = mock(EthSendTransaction.class);
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Request reqSendTx = mock(Request.class);
+        when(web3j.ethSendRawTransaction(anyString())).thenReturn(reqSendTx);
+        when(reqSendTx.sendAsync()).thenReturn(CompletableFuture.completedFuture(ethSendTransaction));
+        when(ethSendTransaction.getTransactionHash()).thenReturn("0xfeed");
+
+        TrackedTransaction tx = blockchainService.submitEtherAsync(credentials, toAddress, new BigDecimal("0.5")).get(5, TimeUnit.SECONDS);
+
+        assertEquals("0xfeed", tx.getTransactionHash());
+        assertEquals(TrackedTransaction.Status.PENDING, tx.getStatus());
+        assertSame(tx, transactionTracker.find("0xfeed").orElseThrow());
+        verify(web3j, never()).ethGetTransactionReceipt(anyString());
+        verify(web3j, never()).ethGasPrice();
+
+        // Signed as an EIP-1559 transaction with the oracle's fees
+        ArgumentCaptor<String> signed = ArgumentCaptor.forClass(String.class);
+        verify(web3j).ethSendRawTransaction(signed.capture());
+        Transaction1559 sent = (Transaction1559) TransactionDecoder.decode(signed.getValue()).getTransaction();
+        assertEquals(1337, sent.getChainId());
+        assertEquals(BigInteger.valueOf(31_000_000_000L), sent.getMaxFeePerGas());
+        assertEquals(BigInteger.valueOf(1_000_000_000L), sent.getMaxPriorityFeePerGas());
+    }
+
+    @Test
+    void getEtherBalancesAsync_batchesInChunksAndKeepsRequestOrder() throws Exception {
+        Web3jService service = mock(Web3jService.class);
+        Web3j batchingWeb3j = Web3j.build(service);
+        properties.setBatchSize(2);
+        BlockchainService batchingService = new BlockchainService(batchingWeb3j, properties, transactionTracker, new NonceManager(batchingWeb3j),
+                new BalanceCache(new BlockHeadTracker(batchingWeb3j, properties), properties), gasPriceOracle, gasEstimateCache);
+
+        // Answer every batch in reverse order; each balance is 1 ETH * (last digit of the address)
+        when(service.sendBatchAsync(any())).thenAnswer(invocation -> {
+            BatchRequest batch = invocation.getArgument(0);
+            List<EthGetBalance> responses = new ArrayList<>();
+            for (Request<?, ?> request : batch.getRequests()) {
+                String address = (String) request.getParams().get(0);
+                EthGetBalance response = new EthGetBalance();
+                response.setId(request.getId());
+                long ether = Character.digit(address.charAt(address.length() - 1), 16);
+                response.setResult(Numeric.toHexStringWithPrefix(BigInteger.TEN.pow(18).multiply(BigInteger.valueOf(ether))));
+                responses.add(0, response);
+            }
+            return CompletableFuture.completedFuture(new BatchResponse(batch.getRequests(), responses));
+        });
+
+        List<String> addresses = List.of(
+                "0x0000000000000000000000000000000000000003",
+                "0x0000000000000000000000000000000000000001",
+                "0x0000000000000000000000000000000000000002");
+        List<BigDecimal> balances = batchingService.getEtherBalancesAsync(addresses).get(5, TimeUnit.SECONDS);
+
+        assertEquals(3, balances.size());
+        assertEquals(new BigDecimal("3"), balances.get(0).stripTrailingZeros());
+        assertEquals(new BigDecimal("1"), balances.get(1).stripTrailingZeros());
+        assertEquals(new BigDecimal("2"), balances.get(2).stripTrailingZeros());
+        verify(service, times(2)).sendBatchAsync(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void submitEtherAsync_resyncsNonceAndRetriesWithoutBlocking() throws Exception {
+        Web3jService service = mock(Web3jService.class);
+        Web3j asyncWeb3j = Web3j.build(service);
+        BlockchainService asyncService = new BlockchainService(asyncWeb3j, properties, transactionTracker, new NonceManager(asyncWeb3j),
+                new BalanceCache(new BlockHeadTracker(asyncWeb3j, properties), properties), gasPriceOracle, gasEstimateCache);
+        Credentials credentials = Credentials.create(Keys.createEcKeyPair());
+
+        int[] sends = {0};
+        when(service.sendAsync(any(Request.class), any())).thenAnswer(invocation -> {
+            Request<?, ?> request = invocation.getArgument(0);
+            switch (request.getMethod()) {
+                case "eth_getTransactionCount" -> {
+                    EthGetTransactionCount count = new EthGetTransactionCount();
+                    count.setResult("0x3");
+                    return CompletableFuture.completedFuture(count);
+                }
+                case "eth_sendRawTransaction" -> {
+                    EthSendTransaction sent = new EthSendTransaction();
+                    if (sends[0]++ == 0) {
+                        sent.setError(new Response.Error(-32000, "nonce too low"));
+                    } else {
+                        sent.setResult("0xasync");
+                    }
+                    return CompletableFuture.completedFuture(sent);
+                }
+                default -> throw new AssertionError("Unexpected call " + request.getMethod());
+            }
+        });
+
+        TrackedTransaction tx = asyncService.submitEtherAsync(credentials, "0x2222222222222222222222222222222222222222", new BigDecimal("0.1"))
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals("0xasync", tx.getTransactionHash());
+        assertEquals(2, sends[0]);
+        verify(service, never()).send(any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getEtherBalanceAsync_usesSendAsyncAndCaches() throws Exception {
+        String address = "0x0000000000000000000000000000000000000001";
+        headTracker.onNewHead(BigInteger.valueOf(7));
+
+        Request req = mock(Request.class);
+        EthGetBalance ethGetBalance = new EthGetBalance();
+        ethGetBalance.setResult("0xde0b6b3a7640000"); // 1 ETH
+        when(web3j.ethGetBalance(address, DefaultBlockParameterName.LATEST)).thenReturn(req);
+        when(req.sendAsync()).thenReturn(CompletableFuture.completedFuture(ethGetBalance));
+
+        assertEquals(new BigDecimal("1"), blockchainService.getEtherBalanceAsync(address).get().stripTrailingZeros());
+        assertEquals(new BigDecimal("1"), blockchainService.getEtherBalanceAsync(address).get().stripTrailingZeros());
+        verify(req, times(1)).sendAsync();
+        verify(req, never()).send();
     }
 }
@@ -0,0 +1,178 @@
+package com.web3.web3j.service;
+
+import com.web3.web3j.config.BlockchainProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.request.Transaction;
+import org.web3j.protocol.core.methods.response.EthEstimateGas;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GasEstimateCacheTest {
+
+    private static final String FROM = "0x0000000000000000000000000000000000000001";
+    private static final String TOKEN = "0x1111111111111111111111111111111111111111";
+    // transfer(address,uint256) to two different recipients
+    private static final String TRANSFER_A = "0xa9059cbb" + "0".repeat(62) + "aa" + "0".repeat(63) + "1";
+    private static final String TRANSFER_B = "0xa9059cbb" + "0".repeat(62) + "bb" + "0".repeat(63) + "2";
+    // approve(address,uint256)
+    private static final String APPROVE = "0x095ea7b3" + "0".repeat(62) + "aa" + "0".repeat(63) + "1";
+
+    @Mock
+    Web3jService service;
+
+    BlockchainProperties properties = new BlockchainProperties();
+
+    GasEstimateCache cache;
+
+    List<CompletableFuture<EthEstimateGas>> estimates = new ArrayList<>();
+    // Call data of each eth_estimateGas request, in order
+    List<String> estimatedData = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        cache = new GasEstimateCache(Web3j.build(service), properties);
+        lenient().when(service.sendAsync(any(Request.class), any())).thenAnswer(invocation -> {
+            Request<?, ?> request = invocation.getArgument(0);
+            assertEquals("eth_estimateGas", request.getMethod());
+            CompletableFuture<EthEstimateGas> future = new CompletableFuture<>();
+            synchronized (estimates) {
+                estimates.add(future);
+                estimatedData.add(((Transaction) request.getParams().get(0)).getData());
+            }
+            return future;
+        });
+    }
+
+    private static EthEstimateGas estimate(long gas) {
+        EthEstimateGas response = new EthEstimateGas();
+        response.setResult("0x" + Long.toHexString(gas));
+        return response;
+    }
+
+    @Test
+    void gasLimit_estimatesOnceWithMarginAndReusesPerSelector() throws Exception {
+        CompletableFuture<BigInteger> first = cache.gasLimitAsync(FROM, TOKEN, TRANSFER_A);
+        estimates.get(0).complete(estimate(50_000));
+
+        // 50,000 plus the default 20% margin
+        assertEquals(BigInteger.valueOf(60_000), first.get(5, TimeUnit.SECONDS));
+        // Same contract and selector, different arguments: no new estimate
+        assertEquals(BigInteger.valueOf(60_000), cache.gasLimit(FROM, TOKEN, TRANSFER_B));
+        assertEquals(1, estimates.size());
+
+        cache.gasLimitAsync(FROM, TOKEN, APPROVE);
+        assertEquals(2, estimates.size());
+        assertEquals(1L, cache.getStats().get("hits"));
+        assertEquals(2L, cache.getStats().get("misses"));
+    }
+
+    @Test
+    void gasLimit_concurrentMissesShareOneEstimate() throws Exception {
+        CompletableFuture<BigInteger> first = cache.gasLimitAsync(FROM, TOKEN, TRANSFER_A);
+        CompletableFuture<BigInteger> second = cache.gasLimitAsync(FROM, TOKEN, TRANSFER_B);
+        estimates.get(0).complete(estimate(40_000));
+
+        assertEquals(BigInteger.valueOf(48_000), first.get(5, TimeUnit.SECONDS));
+        assertEquals(BigInteger.valueOf(48_000), second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, estimates.size());
+    }
+
+    @Test
+    void gasLimit_failedEstimateIsReportedAndNotCached() {
+        CompletableFuture<BigInteger> result = cache.gasLimitAsync(FROM, TOKEN, TRANSFER_A);
+        EthEstimateGas reverted = new EthEstimateGas();
+        reverted.setError(new Response.Error(3, "execution reverted: ERC20: transfer amount exceeds balance"));
+        estimates.get(0).complete(reverted);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause().getMessage().contains("transfer amount exceeds balance"));
+        assertEquals(0, cache.getStats().get("size"));
+
+        // The next call asks the node again
+        cache.gasLimitAsync(FROM, TOKEN, TRANSFER_A);
+        assertEquals(2, estimates.size());
+    }
+
+    @Test
+    void gasLimit_staleEntryIsServedWhileRefreshing() throws Exception {
+        properties.getGasEstimate().setRefreshMs(0);
+        CompletableFuture<BigInteger> first = cache.gasLimitAsync(FROM, TOKEN, TRANSFER_A);
+        estimates.get(0).complete(estimate(50_000));
+        first.get(5, TimeUnit.SECONDS);
+        Thread.sleep(1);
+
+        // Old value returned at once, re-estimate started in the background
+        assertEquals(BigInteger.valueOf(60_000), cache.gasLimit(FROM, TOKEN, TRANSFER_B));
+        assertEquals(2, estimates.size());
+        estimates.get(1).complete(estimate(70_000));
+
+        properties.getGasEstimate().setRefreshMs(60_000);
+        assertEquals(BigInteger.valueOf(84_000), cache.gasLimit(FROM, TOKEN, TRANSFER_A));
+        Map<String, Object> stats = cache.getStats();
+        assertEquals(1L, stats.get("refreshes"));
+    }
+
+    @Test
+    void gasLimit_coversATransferToAZeroBalanceRecipient() throws Exception {
+        // A token that costs 42,000 gas to pay an existing holder and 51,000 to pay an address it has never credited
+        String holderA = "0".repeat(62) + "aa";
+        String holderB = "0".repeat(62) + "bb";
+        String freshRecipient = "0x0000000000000000000000000000000000000ccc";
+        String transferToFresh = "0xa9059cbb" + "0".repeat(24) + freshRecipient.substring(2) + "0".repeat(63) + "1";
+
+        // The first caller pays an existing holder
+        CompletableFuture<BigInteger> first = cache.gasLimitAsync(FROM, TOKEN, TRANSFER_A);
+        String recipientWord = estimatedData.get(0).substring(10, 74);
+        assertEquals(TRANSFER_A.substring(74), estimatedData.get(0).substring(74));
+        boolean existingHolder = recipientWord.equals(holderA) || recipientWord.equals(holderB);
+        estimates.get(0).complete(estimate(existingHolder ? 42_000 : 51_000));
+
+        assertEquals(BigInteger.valueOf(61_200), first.get(5, TimeUnit.SECONDS));
+        // The cached limit is enough for the zero-balance recipient too
+        assertTrue(cache.gasLimit(FROM, TOKEN, transferToFresh).compareTo(BigInteger.valueOf(51_000)) >= 0);
+        assertEquals(1, estimates.size());
+    }
+
+    @Test
+    void gasLimit_refreshNeverLowersTheLimit() throws Exception {
+        properties.getGasEstimate().setRefreshMs(0);
+        CompletableFuture<BigInteger> first = cache.gasLimitAsync(FROM, TOKEN, APPROVE);
+        estimates.get(0).complete(estimate(50_000));
+        first.get(5, TimeUnit.SECONDS);
+        Thread.sleep(1);
+
+        // A cheaper call refreshes the entry but keeps the higher limit
+        cache.gasLimit(FROM, TOKEN, APPROVE);
+        estimates.get(1).complete(estimate(30_000));
+
+        properties.getGasEstimate().setRefreshMs(60_000);
+        assertEquals(BigInteger.valueOf(60_000), cache.gasLimit(FROM, TOKEN, APPROVE));
+    }
+
+    @Test
+    void worstCase_swapsOnlyTheTransferRecipient() {
+        assertEquals(APPROVE, GasEstimateCache.worstCase(APPROVE));
+        assertNotEquals(GasEstimateCache.worstCase(TRANSFER_A), GasEstimateCache.worstCase(TRANSFER_A));
+        assertEquals(TRANSFER_A.length(), GasEstimateCache.worstCase(TRANSFER_A).length());
+    }
+}
@@ -0,0 +1,226 @@
+package com.web3.web3j.service;
+
+import com.web3.web3j.config.BlockchainProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.web3j.crypto.RawTransaction;
+import org.web3j.crypto.transaction.type.Transaction1559;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.response.EthChainId;
+import org.web3j.protocol.core.methods.response.EthFeeHistory;
+import org.web3j.protocol.core.methods.response.EthGasPrice;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GasPriceOracleTest {
+
+    private static final long GWEI = 1_000_000_000L;
+
+    @Mock
+    Web3jService service;
+
+    BlockchainProperties properties = new BlockchainProperties();
+
+    BlockHeadTracker headTracker;
+
+    GasPriceOracle oracle;
+
+    // Calls made to the node, by method
+    List<String> calls = new ArrayList<>();
+    // Error eth_feeHistory answers with, or null to answer normally
+    Response.Error feeHistoryError;
+    // Error eth_gasPrice answers with, or null to answer normally
+    Response.Error gasPriceError;
+    CompletableFuture<Void> nodeReady = CompletableFuture.completedFuture(null);
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        Web3j web3j = Web3j.build(service);
+        headTracker = new BlockHeadTracker(web3j, properties);
+        oracle = new GasPriceOracle(web3j, headTracker, properties);
+
+        lenient().when(service.sendAsync(any(Request.class), any())).thenAnswer(invocation -> {
+            Request<?, ?> request = invocation.getArgument(0);
+            synchronized (calls) {
+                calls.add(request.getMethod());
+            }
+            Response<?> response = switch (request.getMethod()) {
+                case "eth_feeHistory" -> feeHistory();
+                case "eth_chainId" -> {
+                    EthChainId chainId = new EthChainId();
+                    chainId.setResult("0x539");
+                    yield chainId;
+                }
+                case "eth_gasPrice" -> {
+                    EthGasPrice gasPrice = new EthGasPrice();
+                    if (gasPriceError != null) {
+                        gasPrice.setError(gasPriceError);
+                    } else {
+                        gasPrice.setResult(hex(7 * GWEI));
+                    }
+                    yield gasPrice;
+                }
+                default -> throw new AssertionError("Unexpected call " + request.getMethod());
+            };
+            return nodeReady.thenApply(ignored -> response);
+        });
+    }
+
+    private static String hex(long wei) {
+        return "0x" + Long.toHexString(wei);
+    }
+
+    // Blocks 0x63..0x65 with rising base fees; the last block paid no tips
+    private EthFeeHistory feeHistory() {
+        EthFeeHistory response = new EthFeeHistory();
+        if (feeHistoryError != null) {
+            response.setError(feeHistoryError);
+            return response;
+        }
+        response.setResult(new EthFeeHistory.FeeHistory(
+                "0x63",
+                List.of(List.of(hex(GWEI), hex(2 * GWEI), hex(3 * GWEI)),
+                        List.of(hex(GWEI), hex(3 * GWEI), hex(5 * GWEI)),
+                        List.of("0x0", "0x0", "0x0")),
+                List.of(hex(10 * GWEI), hex(11 * GWEI), hex(12 * GWEI), hex(13 * GWEI)),
+                List.of(0.5, 0.6, 0.0)));
+        return response;
+    }
+
+    private long count(String method) {
+        synchronized (calls) {
+            return calls.stream().filter(method::equals).count();
+        }
+    }
+
+    @Test
+    void suggest_derivesEip1559FeesFromFeeHistory() throws Exception {
+        GasFees low = oracle.suggestAsync(GasPriceOracle.Urgency.LOW).get(5, TimeUnit.SECONDS);
+        GasFees medium = oracle.suggestAsync(GasPriceOracle.Urgency.MEDIUM).get(5, TimeUnit.SECONDS);
+        GasFees high = oracle.suggestAsync(GasPriceOracle.Urgency.HIGH).get(5, TimeUnit.SECONDS);
+
+        assertTrue(medium.isEip1559());
+        assertEquals(1337, medium.getChainId());
+        assertEquals(BigInteger.valueOf(0x65), medium.getBlockNumber());
+        assertEquals(BigInteger.valueOf(13 * GWEI), medium.getBaseFeePerGas());
+        // Median of the non-empty blocks at each percentile
+        assertEquals(BigInteger.valueOf(GWEI), low.getMaxPriorityFeePerGas());
+        assertEquals(BigInteger.valueOf(3 * GWEI), medium.getMaxPriorityFeePerGas());
+        assertEquals(BigInteger.valueOf(5 * GWEI), high.getMaxPriorityFeePerGas());
+        // Twice the next base fee plus the tip
+        assertEquals(BigInteger.valueOf(29 * GWEI), medium.getMaxFeePerGas());
+        assertEquals(1, count("eth_feeHistory"));
+    }
+
+    @Test
+    void suggest_isServedFromTheSnapshotUntilANewHead() throws Exception {
+        oracle.suggest();
+        oracle.suggest();
+        assertEquals(1, count("eth_feeHistory"));
+
+        // Not newer than the snapshot's block
+        headTracker.onNewHead(BigInteger.valueOf(0x65));
+        assertEquals(1, count("eth_feeHistory"));
+
+        headTracker.onNewHead(BigInteger.valueOf(0x66));
+        assertEquals(2, count("eth_feeHistory"));
+        // The chain id is only asked for once
+        assertEquals(1, count("eth_chainId"));
+    }
+
+    @Test
+    void suggest_concurrentCallersShareOneRefresh() throws Exception {
+        CompletableFuture<Void> release = new CompletableFuture<>();
+        nodeReady = release;
+
+        CompletableFuture<GasFees> first = oracle.suggestAsync(GasPriceOracle.Urgency.LOW);
+        CompletableFuture<GasFees> second = oracle.suggestAsync(GasPriceOracle.Urgency.HIGH);
+        release.complete(null);
+
+        assertNotNull(first.get(5, TimeUnit.SECONDS));
+        assertNotNull(second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, count("eth_feeHistory"));
+    }
+
+    @Test
+    void suggest_fallsBackToLegacyGasPriceWithoutFeeHistory() throws Exception {
+        feeHistoryError = new Response.Error(-32601, "the method eth_feeHistory does not exist/is not available");
+        properties.getGas().setMaxAgeMs(0);
+
+        GasFees fees = oracle.suggest();
+        assertFalse(fees.isEip1559());
+        assertEquals(BigInteger.valueOf(7 * GWEI), fees.getGasPrice());
+
+        // Once unsupported, only eth_gasPrice is used
+        Thread.sleep(1);
+        oracle.suggest();
+        assertEquals(1, count("eth_feeHistory"));
+        assertEquals(2, count("eth_gasPrice"));
+    }
+
+    @Test
+    void suggest_transientFeeHistoryErrorFallsBackForOneRefreshOnly() throws Exception {
+        feeHistoryError = new Response.Error(-32005, "rate limit exceeded");
+        properties.getGas().setMaxAgeMs(0);
+
+        assertFalse(oracle.suggest().isEip1559());
+
+        // The next refresh asks for the fee history again and gets EIP-1559 fees
+        feeHistoryError = null;
+        Thread.sleep(1);
+        assertTrue(oracle.suggest().isEip1559());
+        assertEquals(2, count("eth_feeHistory"));
+        assertEquals(1, count("eth_gasPrice"));
+    }
+
+    @Test
+    void suggest_reportsTheNodesErrorWhenEthGasPriceFails() {
+        feeHistoryError = new Response.Error(-32601, "the method eth_feeHistory does not exist/is not available");
+        gasPriceError = new Response.Error(-32000, "header not found");
+
+        Exception e = assertThrows(Exception.class, () -> oracle.suggest());
+        assertEquals("eth_gasPrice failed: header not found", e.getMessage());
+    }
+
+    @Test
+    void createTransaction_buildsType2OrLegacy() {
+        GasFees eip1559 = GasFees.eip1559(GasPriceOracle.Urgency.HIGH, BigInteger.ONE, 1, BigInteger.TEN, BigInteger.ONE, BigInteger.valueOf(21));
+        GasFees legacy = GasFees.legacy(GasPriceOracle.Urgency.HIGH, BigInteger.ONE, BigInteger.valueOf(5));
+
+        RawTransaction type2 = eip1559.createTransaction(BigInteger.ZERO, BigInteger.valueOf(21000), "0x01", BigInteger.ONE, "");
+        RawTransaction type0 = legacy.createTransaction(BigInteger.ZERO, BigInteger.valueOf(21000), "0x01", BigInteger.ONE, "");
+
+        assertEquals(BigInteger.valueOf(21), ((Transaction1559) type2.getTransaction()).getMaxFeePerGas());
+        assertEquals(BigInteger.valueOf(5), type0.getGasPrice());
+    }
+
+    @Test
+    void getSuggestions_listsEveryUrgency() throws Exception {
+        Map<String, Object> suggestions = oracle.getSuggestionsAsync().get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("low", "medium", "high"), new ArrayList<>(suggestions.keySet()));
+    }
+
+    @Test
+    void urgency_parseRejectsUnknownLevels() {
+        assertEquals(GasPriceOracle.Urgency.HIGH, GasPriceOracle.Urgency.parse(" High "));
+        assertThrows(IllegalArgumentException.class, () -> GasPriceOracle.Urgency.parse("asap"));
+    }
+}
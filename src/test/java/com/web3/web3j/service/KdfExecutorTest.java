@@ -0,0 +1,111 @@
+package com.web3.web3j.service;
+
+import com.web3.web3j.config.KdfProfile;
+import com.web3.web3j.config.WalletProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.web3j.crypto.Keys;
+import org.web3j.crypto.Wallet;
+import org.web3j.crypto.WalletFile;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KdfExecutorTest {
+
+    WalletProperties properties = new WalletProperties();
+
+    KdfExecutor executor;
+
+    CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        properties.getKdf().setMaxThreads(1);
+        properties.getKdf().setQueueCapacity(1);
+        properties.getKdf().setTimeoutMs(200);
+        executor = new KdfExecutor(properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    // Like a real scrypt run, the job keeps its worker busy even if its caller gives up
+    private void runBlockingJob() {
+        CompletableFuture.runAsync(() -> {
+            try {
+                executor.run(1, () -> {
+                    while (release.getCount() > 0) {
+                        try {
+                            release.await();
+                        } catch (InterruptedException ignored) {
+                        }
+                    }
+                    return null;
+                });
+            } catch (Exception ignored) {
+            }
+        });
+    }
+
+    @Test
+    void run_returnsJobResult() throws Exception {
+        assertEquals("ok", executor.run(1, () -> "ok"));
+    }
+
+    @Test
+    void run_propagatesJobException() {
+        assertThrows(IllegalStateException.class, () -> executor.run(1, () -> {
+            throw new IllegalStateException("bad password");
+        }));
+    }
+
+    @Test
+    void run_rejectsWhenQueueIsFull() throws Exception {
+        runBlockingJob();
+        runBlockingJob();
+        // let the two jobs occupy the single worker and the single queue slot
+        Thread.sleep(50);
+
+        assertThrows(RejectedExecutionException.class, () -> executor.run(1, () -> "late"));
+        assertEquals(1L, executor.getStats().get("rejected"));
+    }
+
+    @Test
+    void run_timesOutWhenCapacityDoesNotFreeUp() throws Exception {
+        runBlockingJob();
+        Thread.sleep(50);
+
+        assertThrows(RejectedExecutionException.class, () -> executor.run(1, () -> "queued"));
+        assertTrue((Long) executor.getStats().get("timedOut") >= 1);
+    }
+
+    @Test
+    void submit_returnsWithoutWaitingAndFailsWithRejectionOnTimeout() throws Exception {
+        runBlockingJob();
+        Thread.sleep(50);
+
+        CompletableFuture<String> queued = executor.submit(1, () -> "queued");
+        assertFalse(queued.isDone());
+        ExecutionException e = assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+    }
+
+    @Test
+    void memoryFor_usesKeystoreScryptParameters() throws Exception {
+        WalletFile light = Wallet.createLight("pw", Keys.createEcKeyPair());
+        assertEquals(KdfExecutor.scryptMemoryBytes(KdfProfile.LIGHT.getN(), 8, KdfProfile.LIGHT.getP()),
+                KdfExecutor.memoryFor(light));
+        // standard profile is roughly 256 MB
+        assertEquals(256, KdfExecutor.scryptMemoryBytes(262144, 8, 1) / (1024 * 1024));
+    }
+}
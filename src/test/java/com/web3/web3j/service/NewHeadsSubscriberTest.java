@@ -0,0 +1,201 @@
+package com.web3.web3j.service;
+
+import com.web3.web3j.config.BlockchainProperties;
+import org.java_websocket.WebSocket;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.server.WebSocketServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.methods.response.EthBlockNumber;
+
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NewHeadsSubscriberTest {
+
+    @Mock
+    Web3jService service;
+
+    BlockchainProperties properties = new BlockchainProperties();
+
+    BlockHeadTracker headTracker;
+
+    NewHeadsSubscriber subscriber;
+
+    StubNode node;
+
+    // Block number the HTTP side reports, read when a subscription starts
+    volatile long httpHead = 1;
+
+    // A node that accepts eth_subscribe("newHeads") and pushes whatever heads the test sends
+    static class StubNode extends WebSocketServer {
+        final CountDownLatch started = new CountDownLatch(1);
+        final List<WebSocket> subscribed = new CopyOnWriteArrayList<>();
+        final AtomicInteger connections = new AtomicInteger();
+        volatile boolean refuseSubscriptions;
+
+        StubNode() {
+            super(new InetSocketAddress("127.0.0.1", 0));
+            setReuseAddr(true);
+        }
+
+        @Override
+        public void onStart() {
+            started.countDown();
+        }
+
+        @Override
+        public void onOpen(WebSocket conn, ClientHandshake handshake) {
+            connections.incrementAndGet();
+        }
+
+        @Override
+        public void onMessage(WebSocket conn, String message) {
+            assertTrue(message.contains("\"eth_subscribe\"") && message.contains("\"newHeads\""), message);
+            if (refuseSubscriptions) {
+                conn.send("{\"jsonrpc\":\"2.0\",\"id\":1,\"error\":{\"code\":-32601,\"message\":\"notifications not supported\"}}");
+                return;
+            }
+            conn.send("{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":\"0xabc\"}");
+            subscribed.add(conn);
+        }
+
+        void push(long number) {
+            String head = "{\"jsonrpc\":\"2.0\",\"method\":\"eth_subscription\",\"params\":{\"subscription\":\"0xabc\","
+                    + "\"result\":{\"number\":\"0x" + Long.toHexString(number) + "\",\"hash\":\"0x01\"}}}";
+            subscribed.forEach(conn -> conn.send(head));
+        }
+
+        void dropAll() {
+            subscribed.forEach(WebSocket::close);
+            subscribed.clear();
+        }
+
+        @Override
+        public void onClose(WebSocket conn, int code, String reason, boolean remote) {
+            subscribed.remove(conn);
+        }
+
+        @Override
+        public void onError(WebSocket conn, Exception ex) {
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        node = new StubNode();
+        node.start();
+        assertTrue(node.started.await(5, TimeUnit.SECONDS));
+
+        BlockchainProperties.Head settings = properties.getHead();
+        settings.setWsUrl("ws://127.0.0.1:" + node.getPort());
+        settings.setReconnectDelayMs(20);
+        settings.setMaxReconnectDelayMs(200);
+        settings.setPushStaleMs(5_000);
+        Web3j web3j = Web3j.build(service);
+        headTracker = new BlockHeadTracker(web3j, properties);
+        subscriber = new NewHeadsSubscriber(headTracker, web3j, properties);
+
+        lenient().when(service.sendAsync(any(Request.class), any())).thenAnswer(invocation -> {
+            Request<?, ?> request = invocation.getArgument(0);
+            assertEquals("eth_blockNumber", request.getMethod());
+            EthBlockNumber response = new EthBlockNumber();
+            response.setResult("0x" + Long.toHexString(httpHead));
+            return CompletableFuture.completedFuture(response);
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        subscriber.stop();
+        node.stop(1000);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void pushedHeadsReachListenersAndPausePolling() throws Exception {
+        List<BigInteger> heard = new CopyOnWriteArrayList<>();
+        headTracker.addListener(heard::add);
+        subscriber.start();
+        await(subscriber::isSubscribed);
+        await(() -> heard.contains(BigInteger.ONE));
+
+        node.push(2);
+        node.push(3);
+        await(() -> heard.size() == 3);
+
+        assertEquals(List.of(BigInteger.ONE, BigInteger.TWO, BigInteger.valueOf(3)), heard);
+        assertTrue(headTracker.isPushActive());
+        // The poller does not ask the node while heads are being pushed; only the backfill did
+        headTracker.poll();
+        verify(service, times(1)).sendAsync(any(Request.class), any());
+        assertEquals(2L, subscriber.getStats().get("headsReceived"));
+    }
+
+    @Test
+    void reconnectsAfterADropAndBackfillsTheMissedHeads() throws Exception {
+        subscriber.start();
+        await(subscriber::isSubscribed);
+        node.push(5);
+        await(() -> BigInteger.valueOf(5).equals(headTracker.getCurrentHead()));
+
+        // Blocks 6..9 are mined while the connection is down
+        httpHead = 9;
+        node.dropAll();
+        await(() -> node.connections.get() == 2 && subscriber.isSubscribed());
+        await(() -> BigInteger.valueOf(9).equals(headTracker.getCurrentHead()));
+
+        node.push(10);
+        await(() -> BigInteger.TEN.equals(headTracker.getCurrentHead()));
+        assertEquals(1L, subscriber.getStats().get("disconnects"));
+        assertEquals(2L, subscriber.getStats().get("connects"));
+    }
+
+    @Test
+    void keepsRetryingWhenTheNodeRefusesTheSubscription() throws Exception {
+        node.refuseSubscriptions = true;
+        subscriber.start();
+        await(() -> node.connections.get() >= 3);
+
+        assertFalse(subscriber.isSubscribed());
+        assertFalse(headTracker.isPushActive());
+
+        node.refuseSubscriptions = false;
+        await(subscriber::isSubscribed);
+    }
+
+    @Test
+    void staysOffWithoutAUrl() {
+        properties.getHead().setWsUrl("");
+        subscriber.start();
+
+        assertEquals(false, subscriber.getStats().get("enabled"));
+        assertEquals(0, node.connections.get());
+    }
+}
@@ -0,0 +1,132 @@
+package com.web3.web3j.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.methods.response.EthGetTransactionCount;
+
+import java.math.BigInteger;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NonceManagerTest {
+
+    static final String ADDRESS = "0x00000000000000000000000000000000000000aa";
+
+    @Mock
+    Web3j web3j;
+
+    EthGetTransactionCount pendingCount = mock(EthGetTransactionCount.class);
+
+    NonceManager nonceManager;
+
+    @BeforeEach
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void setUp() throws Exception {
+        Request req = mock(Request.class);
+        lenient().when(web3j.ethGetTransactionCount(ADDRESS, DefaultBlockParameterName.PENDING)).thenReturn(req);
+        lenient().when(req.send()).thenReturn(pendingCount);
+        lenient().when(pendingCount.getTransactionCount()).thenReturn(BigInteger.valueOf(5));
+        nonceManager = new NonceManager(web3j);
+    }
+
+    @Test
+    void allocate_syncsOnceThenCountsLocally() throws Exception {
+        assertEquals(BigInteger.valueOf(5), nonceManager.allocate(ADDRESS).getNonce());
+        assertEquals(BigInteger.valueOf(6), nonceManager.allocate(ADDRESS).getNonce());
+        assertEquals(BigInteger.valueOf(7), nonceManager.allocate(ADDRESS.toUpperCase().replace("0X", "0x")).getNonce());
+        verify(web3j, times(1)).ethGetTransactionCount(ADDRESS, DefaultBlockParameterName.PENDING);
+    }
+
+    @Test
+    void allocate_handsOutDistinctNoncesUnderConcurrency() throws Exception {
+        Set<BigInteger> seen = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 200; i++) {
+            pool.submit(() -> {
+                seen.add(nonceManager.allocate(ADDRESS).getNonce());
+                return null;
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(200, seen.size());
+    }
+
+    @Test
+    void release_fillsGapsBeforeIssuingNewNonces() throws Exception {
+        NonceManager.Allocation first = nonceManager.allocate(ADDRESS);
+        nonceManager.allocate(ADDRESS);
+        nonceManager.allocate(ADDRESS);
+
+        nonceManager.release(ADDRESS, first);
+        assertEquals(first.getNonce(), nonceManager.allocate(ADDRESS).getNonce());
+        assertEquals(BigInteger.valueOf(8), nonceManager.allocate(ADDRESS).getNonce());
+    }
+
+    @Test
+    void release_ofLastNonceRollsCounterBack() throws Exception {
+        NonceManager.Allocation nonce = nonceManager.allocate(ADDRESS);
+        nonceManager.release(ADDRESS, nonce);
+        assertEquals(nonce.getNonce(), nonceManager.allocate(ADDRESS).getNonce());
+    }
+
+    @Test
+    void resync_picksUpNodeCount() throws Exception {
+        nonceManager.allocate(ADDRESS);
+        when(pendingCount.getTransactionCount()).thenReturn(BigInteger.valueOf(42));
+        nonceManager.resync(ADDRESS);
+        assertEquals(BigInteger.valueOf(42), nonceManager.allocate(ADDRESS).getNonce());
+    }
+
+    @Test
+    void release_fromBeforeAResyncIsIgnored() throws Exception {
+        NonceManager.Allocation stale = nonceManager.allocate(ADDRESS);
+        when(pendingCount.getTransactionCount()).thenReturn(BigInteger.valueOf(6));
+        nonceManager.resync(ADDRESS);
+        NonceManager.Allocation current = nonceManager.allocate(ADDRESS);
+        assertEquals(BigInteger.valueOf(6), current.getNonce());
+
+        // Nonce 5 went out before the resync; giving it back must not roll the counter under 6 or leave a gap
+        nonceManager.release(ADDRESS, stale);
+        assertEquals(BigInteger.valueOf(7), nonceManager.allocate(ADDRESS).getNonce());
+    }
+
+    @Test
+    void isNonceError_recognisesNodeMessages() {
+        assertTrue(NonceManager.isNonceError("nonce too low"));
+        assertTrue(NonceManager.isNonceError("replacement transaction underpriced"));
+        assertFalse(NonceManager.isNonceError("insufficient funds for gas * price + value"));
+        assertFalse(NonceManager.isNonceError(null));
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void allocateAsync_syncsWithAsyncCallThenCountsLocally() throws Exception {
+        String address = "0x00000000000000000000000000000000000000bb";
+        Request req = mock(Request.class);
+        EthGetTransactionCount count = new EthGetTransactionCount();
+        count.setResult("0x9");
+        when(web3j.ethGetTransactionCount(address, DefaultBlockParameterName.PENDING)).thenReturn(req);
+        when(req.sendAsync()).thenReturn(CompletableFuture.completedFuture(count));
+
+        assertEquals(BigInteger.valueOf(9), nonceManager.allocateAsync(address).get().getNonce());
+        assertEquals(BigInteger.valueOf(10), nonceManager.allocateAsync(address).get().getNonce());
+        assertEquals(BigInteger.valueOf(11), nonceManager.allocate(address).getNonce());
+        verify(req, times(1)).sendAsync();
+        verify(req, never()).send();
+    }
+}
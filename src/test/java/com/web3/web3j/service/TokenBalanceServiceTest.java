@@ -0,0 +1,163 @@
+package com.web3.web3j.service;
+
+import com.web3.web3j.config.BlockchainProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.web3j.abi.FunctionEncoder;
+import org.web3j.abi.FunctionReturnDecoder;
+import org.web3j.abi.TypeReference;
+import org.web3j.abi.datatypes.Address;
+import org.web3j.abi.datatypes.Bool;
+import org.web3j.abi.datatypes.DynamicArray;
+import org.web3j.abi.datatypes.DynamicBytes;
+import org.web3j.abi.datatypes.Type;
+import org.web3j.abi.datatypes.generated.Uint256;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.methods.request.Transaction;
+import org.web3j.protocol.core.methods.response.EthCall;
+import org.web3j.utils.Numeric;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenBalanceServiceTest {
+
+    private static final String WALLET_A = "0x00000000000000000000000000000000000000a1";
+    private static final String WALLET_B = "0x00000000000000000000000000000000000000b2";
+    private static final String TOKEN_X = "0x1111111111111111111111111111111111111111";
+    private static final String TOKEN_Y = "0x2222222222222222222222222222222222222222";
+    // Not a contract: the call succeeds with no return data
+    private static final String NOT_A_TOKEN = "0x3333333333333333333333333333333333333333";
+    // balanceOf reverts
+    private static final String BROKEN_TOKEN = "0x4444444444444444444444444444444444444444";
+
+    @Mock
+    Web3jService service;
+
+    BlockchainProperties properties = new BlockchainProperties();
+
+    TokenBalanceService tokenBalances;
+
+    // balanceOf results by token, then wallet
+    Map<String, Map<String, Long>> ledger = Map.of(
+            TOKEN_X, Map.of(WALLET_A, 100L, WALLET_B, 200L),
+            TOKEN_Y, Map.of(WALLET_A, 0L, WALLET_B, 5L));
+
+    // Number of calls packed into each aggregate3 request
+    List<Integer> aggregates = new ArrayList<>();
+    boolean multicallDeployed = true;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        tokenBalances = new TokenBalanceService(Web3j.build(service), properties);
+        lenient().when(service.sendAsync(any(Request.class), any())).thenAnswer(invocation -> {
+            Request<?, ?> request = invocation.getArgument(0);
+            assertEquals("eth_call", request.getMethod());
+            Transaction call = (Transaction) request.getParams().get(0);
+            assertEquals(properties.getMulticall().getAddress(), call.getTo());
+            EthCall response = new EthCall();
+            response.setResult(multicallDeployed ? executeAggregate3(call.getData()) : "0x");
+            return CompletableFuture.completedFuture(response);
+        });
+    }
+
+    // Stands in for the Multicall3 contract: runs each balanceOf against the ledger
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private String executeAggregate3(String data) {
+        assertTrue(data.startsWith("0x82ad56cb"), "aggregate3 selector");
+        List<Type> input = FunctionReturnDecoder.decode("0x" + data.substring(10),
+                (List) List.of(new TypeReference<DynamicArray<TokenBalanceService.Call3>>() {}));
+        List<TokenBalanceService.Call3> calls = ((DynamicArray<TokenBalanceService.Call3>) input.get(0)).getValue();
+        synchronized (aggregates) {
+            aggregates.add(calls.size());
+        }
+
+        List<TokenBalanceService.Result> results = new ArrayList<>();
+        for (TokenBalanceService.Call3 call : calls) {
+            assertTrue(call.allowFailure.getValue());
+            String token = call.target.getValue();
+            String callData = Numeric.toHexString(call.callData.getValue());
+            assertTrue(callData.startsWith("0x70a08231"), "balanceOf selector");
+            String wallet = new Address(Numeric.toBigInt(callData.substring(10))).getValue();
+            if (token.equals(BROKEN_TOKEN)) {
+                results.add(new TokenBalanceService.Result(new Bool(false), new DynamicBytes(new byte[0])));
+            } else if (token.equals(NOT_A_TOKEN)) {
+                results.add(new TokenBalanceService.Result(new Bool(true), new DynamicBytes(new byte[0])));
+            } else {
+                byte[] balance = Numeric.hexStringToByteArray(FunctionEncoder.encodeConstructor(
+                        List.of(new Uint256(ledger.get(token).get(wallet)))));
+                results.add(new TokenBalanceService.Result(new Bool(true), new DynamicBytes(balance)));
+            }
+        }
+        return "0x" + FunctionEncoder.encodeConstructor(List.of(new DynamicArray<>(TokenBalanceService.Result.class, results)));
+    }
+
+    private static List<BigInteger> row(Long... values) {
+        return Arrays.stream(values).map(v -> v == null ? null : BigInteger.valueOf(v)).toList();
+    }
+
+    @Test
+    void getTokenBalances_packsEveryPairIntoOneAggregateCall() throws Exception {
+        List<List<BigInteger>> balances = tokenBalances.getTokenBalancesAsync(
+                List.of(WALLET_A, WALLET_B), List.of(TOKEN_X, TOKEN_Y)).get(5, TimeUnit.SECONDS);
+
+        assertEquals(row(100L, 0L), balances.get(0));
+        assertEquals(row(200L, 5L), balances.get(1));
+        assertEquals(List.of(4), aggregates);
+    }
+
+    @Test
+    void getTokenBalances_splitsIntoBatchesAndKeepsOrder() throws Exception {
+        properties.getMulticall().setBatchSize(3);
+
+        List<List<BigInteger>> balances = tokenBalances.getTokenBalances(
+                List.of(WALLET_B, WALLET_A), List.of(TOKEN_Y, TOKEN_X));
+
+        assertEquals(row(5L, 200L), balances.get(0));
+        assertEquals(row(0L, 100L), balances.get(1));
+        assertEquals(List.of(1, 3), aggregates.stream().sorted().toList());
+    }
+
+    @Test
+    void getTokenBalances_failedCallsOnlyEmptyTheirOwnEntries() throws Exception {
+        List<List<BigInteger>> balances = tokenBalances.getTokenBalances(
+                List.of(WALLET_A), List.of(TOKEN_X, BROKEN_TOKEN, NOT_A_TOKEN));
+
+        assertEquals(row(100L, null, null), balances.get(0));
+    }
+
+    @Test
+    void getTokenBalances_reportsMissingMulticallContract() {
+        multicallDeployed = false;
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> tokenBalances.getTokenBalancesAsync(
+                List.of(WALLET_A), List.of(TOKEN_X)).get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause().getMessage().startsWith("No Multicall3 contract at"));
+    }
+
+    @Test
+    void getTokenBalances_rejectsOversizedRequests() {
+        properties.getMulticall().setMaxCalls(3);
+
+        assertThrows(IllegalArgumentException.class, () -> tokenBalances.getTokenBalances(
+                List.of(WALLET_A, WALLET_B), List.of(TOKEN_X, TOKEN_Y)));
+        assertTrue(aggregates.isEmpty());
+    }
+}
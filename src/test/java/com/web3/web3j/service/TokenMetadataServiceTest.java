@@ -0,0 +1,166 @@
+package com.web3.web3j.service;
+
+import com.web3.web3j.model.TokenMetadata;
+import com.web3.web3j.repository.TokenMetadataRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.web3j.abi.FunctionEncoder;
+import org.web3j.abi.datatypes.Utf8String;
+import org.web3j.abi.datatypes.generated.Bytes32;
+import org.web3j.abi.datatypes.generated.Uint8;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.request.Transaction;
+import org.web3j.protocol.core.methods.response.EthCall;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenMetadataServiceTest {
+
+    private static final String TOKEN = "0x1111111111111111111111111111111111111111";
+    // Returns symbol and name as bytes32, like MKR
+    private static final String BYTES32_TOKEN = "0x2222222222222222222222222222222222222222";
+    // No decimals(): not a token
+    private static final String NOT_A_TOKEN = "0x3333333333333333333333333333333333333333";
+
+    private static final String DECIMALS = "0x313ce567";
+    private static final String SYMBOL = "0x95d89b41";
+    private static final String NAME = "0x06fdde03";
+
+    @Mock
+    Web3jService service;
+
+    @Mock
+    TokenMetadataRepository tokenMetadataRepository;
+
+    TokenMetadataService tokenMetadata;
+
+    // "to:selector" of each eth_call made
+    List<String> calls = new ArrayList<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        tokenMetadata = new TokenMetadataService(Web3j.build(service), tokenMetadataRepository);
+        lenient().when(tokenMetadataRepository.findById(any())).thenReturn(Optional.empty());
+        lenient().when(tokenMetadataRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        lenient().when(service.sendAsync(any(Request.class), any())).thenAnswer(invocation -> {
+            Request<?, ?> request = invocation.getArgument(0);
+            assertEquals("eth_call", request.getMethod());
+            Transaction call = (Transaction) request.getParams().get(0);
+            synchronized (calls) {
+                calls.add(call.getTo() + ":" + call.getData());
+            }
+            return CompletableFuture.completedFuture(respond(call.getTo(), call.getData()));
+        });
+    }
+
+    private static EthCall respond(String to, String selector) {
+        EthCall response = new EthCall();
+        if (to.equals(NOT_A_TOKEN)) {
+            response.setError(new Response.Error(3, "execution reverted"));
+        } else if (selector.equals(DECIMALS)) {
+            response.setResult("0x" + FunctionEncoder.encodeConstructor(List.of(new Uint8(to.equals(TOKEN) ? 6 : 18))));
+        } else if (to.equals(BYTES32_TOKEN)) {
+            byte[] text = Arrays.copyOf((selector.equals(SYMBOL) ? "MKR" : "Maker").getBytes(StandardCharsets.UTF_8), 32);
+            response.setResult("0x" + FunctionEncoder.encodeConstructor(List.of(new Bytes32(text))));
+        } else {
+            String text = selector.equals(SYMBOL) ? "USDC" : "USD Coin";
+            response.setResult("0x" + FunctionEncoder.encodeConstructor(List.of(new Utf8String(text))));
+        }
+        return response;
+    }
+
+    @Test
+    void get_readsTheContractOnceAndStoresTheResult() throws Exception {
+        TokenMetadata token = tokenMetadata.getAsync(TOKEN.toUpperCase().replace("0X", "0x")).get(5, TimeUnit.SECONDS);
+
+        assertEquals(TOKEN, token.getContractAddress());
+        assertEquals(6, token.getDecimals());
+        assertEquals("USDC", token.getSymbol());
+        assertEquals("USD Coin", token.getName());
+        assertEquals(3, calls.size());
+        verify(tokenMetadataRepository).save(token);
+
+        // Served from memory afterwards
+        assertSame(token, tokenMetadata.get(TOKEN));
+        assertEquals(3, calls.size());
+        assertEquals(1L, tokenMetadata.getStats().get("hits"));
+    }
+
+    @Test
+    void loadAll_servesStoredTokensWithoutRpc() throws Exception {
+        TokenMetadata stored = new TokenMetadata(TOKEN, 6, "USDC", "USD Coin");
+        when(tokenMetadataRepository.findAll()).thenReturn(List.of(stored));
+        tokenMetadata.loadAll();
+
+        assertSame(stored, tokenMetadata.get(TOKEN));
+        assertTrue(calls.isEmpty());
+        verify(tokenMetadataRepository, never()).findById(any());
+    }
+
+    @Test
+    void get_fallsBackToTheTableBeforeTheChain() throws Exception {
+        TokenMetadata stored = new TokenMetadata(TOKEN, 6, "USDC", "USD Coin");
+        when(tokenMetadataRepository.findById(TOKEN)).thenReturn(Optional.of(stored));
+
+        assertSame(stored, tokenMetadata.get(TOKEN));
+        assertTrue(calls.isEmpty());
+    }
+
+    @Test
+    void get_decodesBytes32SymbolAndName() throws Exception {
+        TokenMetadata token = tokenMetadata.get(BYTES32_TOKEN);
+
+        assertEquals(18, token.getDecimals());
+        assertEquals("MKR", token.getSymbol());
+        assertEquals("Maker", token.getName());
+    }
+
+    @Test
+    void get_rejectsContractsWithoutDecimalsAndDoesNotCacheThem() {
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> tokenMetadata.getAsync(NOT_A_TOKEN).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+        verify(tokenMetadataRepository, never()).save(any());
+
+        assertThrows(IllegalArgumentException.class, () -> tokenMetadata.get(NOT_A_TOKEN));
+        assertEquals(6, calls.size());
+    }
+
+    @Test
+    void getAll_keepsOrderAndLeavesNonTokensNull() throws Exception {
+        List<TokenMetadata> tokens = tokenMetadata.getAllAsync(List.of(BYTES32_TOKEN, NOT_A_TOKEN, TOKEN)).get(5, TimeUnit.SECONDS);
+
+        assertEquals("MKR", tokens.get(0).getSymbol());
+        assertNull(tokens.get(1));
+        assertEquals("USDC", tokens.get(2).getSymbol());
+    }
+
+    @Test
+    void format_shiftsByTheTokensDecimals() {
+        TokenMetadata usdc = new TokenMetadata(TOKEN, 6, "USDC", "USD Coin");
+
+        assertEquals(new BigDecimal("1.5"), TokenMetadataService.format(BigInteger.valueOf(1_500_000), usdc));
+        assertEquals(0, BigDecimal.ZERO.compareTo(TokenMetadataService.format(BigInteger.ZERO, usdc)));
+    }
+}
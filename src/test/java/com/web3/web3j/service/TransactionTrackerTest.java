@@ -0,0 +1,191 @@
+package com.web3.web3j.service;
+
+import com.web3.web3j.config.BlockchainProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.BatchRequest;
+import org.web3j.protocol.core.BatchResponse;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.methods.response.EthGetTransactionReceipt;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionTrackerTest {
+
+    @Mock
+    Web3jService service;
+
+    BlockchainProperties properties = new BlockchainProperties();
+
+    BlockHeadTracker headTracker;
+
+    TransactionTracker tracker;
+
+    // Receipts the node has, by transaction hash
+    Map<String, TransactionReceipt> mined = new ConcurrentHashMap<>();
+    List<Integer> batchSizes = new ArrayList<>();
+    volatile boolean nodeDown;
+    // When set, the next batch waits on this future before it is answered
+    volatile CompletableFuture<Void> holdNextBatch;
+
+    @BeforeEach
+    void setUp() {
+        Web3j web3j = Web3j.build(service);
+        headTracker = new BlockHeadTracker(web3j, properties);
+        tracker = new TransactionTracker(web3j, properties, headTracker);
+
+        // Answer in reverse order, as nodes may
+        lenient().when(service.sendBatchAsync(any())).thenAnswer(invocation -> {
+            if (nodeDown) {
+                return CompletableFuture.failedFuture(new IOException("Failed to connect"));
+            }
+            BatchRequest batch = invocation.getArgument(0);
+            batchSizes.add(batch.getRequests().size());
+            List<EthGetTransactionReceipt> responses = new ArrayList<>();
+            for (Request<?, ?> request : batch.getRequests()) {
+                assertEquals("eth_getTransactionReceipt", request.getMethod());
+                EthGetTransactionReceipt response = new EthGetTransactionReceipt();
+                response.setId(request.getId());
+                response.setResult(mined.get((String) request.getParams().get(0)));
+                responses.add(0, response);
+            }
+            BatchResponse answer = new BatchResponse(batch.getRequests(), responses);
+            CompletableFuture<Void> hold = holdNextBatch;
+            holdNextBatch = null;
+            return hold != null ? hold.thenApply(ignored -> answer) : CompletableFuture.completedFuture(answer);
+        });
+    }
+
+    private TransactionReceipt mine(String hash, String status) {
+        TransactionReceipt receipt = new TransactionReceipt();
+        receipt.setTransactionHash(hash);
+        receipt.setStatus(status);
+        mined.put(hash, receipt);
+        return receipt;
+    }
+
+    @Test
+    void pollReceipts_resolvesMinedTransaction() {
+        TransactionReceipt receipt = mine("0xaa", "0x1");
+
+        TrackedTransaction tx = tracker.track("0xaa");
+        tracker.pollReceipts();
+
+        assertEquals(TrackedTransaction.Status.CONFIRMED, tx.getStatus());
+        assertSame(receipt, tx.getReceiptFuture().getNow(null));
+    }
+
+    @Test
+    void pollReceipts_marksRevertedTransactionFailed() {
+        mine("0xbb", "0x0");
+
+        TrackedTransaction tx = tracker.track("0xbb");
+        tracker.pollReceipts();
+
+        assertEquals(TrackedTransaction.Status.FAILED, tx.getStatus());
+    }
+
+    @Test
+    void pollReceipts_dropsTransactionAfterPendingTimeout() {
+        properties.getTracker().setPendingTimeoutSeconds(-1);
+
+        TrackedTransaction tx = tracker.track("0xcc");
+        tracker.pollReceipts();
+
+        assertEquals(TrackedTransaction.Status.DROPPED, tx.getStatus());
+        assertTrue(tx.getReceiptFuture().isCompletedExceptionally());
+    }
+
+    @Test
+    void track_isIdempotentPerHash() {
+        assertSame(tracker.track("0xdd"), tracker.track("0xdd"));
+        assertTrue(tracker.find("0xee").isEmpty());
+    }
+
+    @Test
+    void newHead_checksEveryPendingTransactionInBatches() {
+        properties.setBatchSize(100);
+        List<TrackedTransaction> sent = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            sent.add(tracker.track("0x" + Integer.toHexString(i)));
+            if (i % 2 == 0) {
+                mine("0x" + Integer.toHexString(i), "0x1");
+            }
+        }
+
+        headTracker.onNewHead(BigInteger.ONE);
+
+        assertEquals(List.of(100, 100, 50), batchSizes);
+        verify(service, never()).sendAsync(any(Request.class), any());
+        assertEquals(125, sent.stream().filter(tx -> tx.getStatus() == TrackedTransaction.Status.CONFIRMED).count());
+
+        // Only the 125 still pending are asked about on the next block
+        headTracker.onNewHead(BigInteger.TWO);
+        assertEquals(List.of(100, 100, 50, 100, 25), batchSizes);
+        assertEquals(125L, tracker.getStats().get("pending"));
+    }
+
+    @Test
+    void newHead_withNothingPendingSendsNothing() {
+        mine("0xaa", "0x1");
+        tracker.track("0xaa");
+        headTracker.onNewHead(BigInteger.ONE);
+
+        headTracker.onNewHead(BigInteger.TWO);
+
+        assertEquals(List.of(1), batchSizes);
+    }
+
+    @Test
+    void pollReceipts_keepsTransactionsPendingWhenTheNodeFails() {
+        nodeDown = true;
+        TrackedTransaction tx = tracker.track("0xff");
+        tracker.pollReceipts();
+
+        assertTrue(tx.isPending());
+
+        // The failed check does not block the next one
+        nodeDown = false;
+        mine("0xff", "0x1");
+        tracker.pollReceipts();
+        assertEquals(TrackedTransaction.Status.CONFIRMED, tx.getStatus());
+    }
+
+    @Test
+    void newHead_duringACheckRunsOneMoreCheckAfterIt() {
+        TrackedTransaction tx = tracker.track("0xab");
+        CompletableFuture<Void> firstBatch = new CompletableFuture<>();
+        holdNextBatch = firstBatch;
+        headTracker.onNewHead(BigInteger.ONE);
+        assertEquals(List.of(1), batchSizes);
+
+        // Mined in block 2, after the first batch was already sent; more heads share one follow-up check
+        mine("0xab", "0x1");
+        headTracker.onNewHead(BigInteger.TWO);
+        headTracker.onNewHead(BigInteger.valueOf(3));
+        assertEquals(List.of(1), batchSizes);
+
+        firstBatch.complete(null);
+
+        assertEquals(List.of(1, 1), batchSizes);
+        assertEquals(TrackedTransaction.Status.CONFIRMED, tx.getStatus());
+        assertEquals(2L, tracker.getStats().get("polls"));
+    }
+}
@@ -0,0 +1,330 @@
+package com.web3.web3j.service;
+
+import com.web3.web3j.config.BlockchainProperties;
+import com.web3.web3j.model.SyncCheckpoint;
+import com.web3.web3j.model.TokenTransfer;
+import com.web3.web3j.repository.SyncCheckpointRepository;
+import com.web3.web3j.repository.TokenTransferRepository;
+import com.web3.web3j.repository.WalletRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.Web3jService;
+import org.web3j.protocol.core.DefaultBlockParameterNumber;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+import org.web3j.protocol.core.methods.request.EthFilter;
+import org.web3j.protocol.core.methods.request.Filter;
+import org.web3j.protocol.core.methods.response.EthLog;
+
+import java.math.BigInteger;
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransferLogIngesterTest {
+
+    private static final String WALLET_A = "0x00000000000000000000000000000000000000a1";
+    private static final String WALLET_B = "0x00000000000000000000000000000000000000b2";
+    private static final String OUTSIDER = "0x00000000000000000000000000000000000000c3";
+    private static final String STRANGER = "0x00000000000000000000000000000000000000d4";
+    private static final String TOKEN = "0x00000000000000000000000000000000000000e5";
+
+    @Mock
+    Web3jService service;
+
+    @Mock
+    WalletRepository walletRepository;
+
+    @Mock
+    SyncCheckpointRepository syncCheckpointRepository;
+
+    @Mock
+    TokenTransferRepository tokenTransferRepository;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    BlockchainProperties properties = new BlockchainProperties();
+
+    BlockHeadTracker headTracker;
+
+    ManagedAddressRegistry addressRegistry;
+
+    TransferLogIngester ingester;
+
+    Web3j web3j;
+
+    // The node's logs, and the largest block range it answers
+    List<EthLog.LogObject> chainLogs = new ArrayList<>();
+    long nodeRangeLimit = Long.MAX_VALUE;
+    // Every eth_getLogs the node received
+    List<EthFilter> queries = new ArrayList<>();
+
+    // The two tables
+    Map<String, SyncCheckpoint> checkpoints = new HashMap<>();
+    List<TokenTransfer> tokenTransfers = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        web3j = Web3j.build(service);
+        headTracker = new BlockHeadTracker(web3j, properties);
+        addressRegistry = new ManagedAddressRegistry(walletRepository);
+        BlockchainProperties.TransferLogs settings = properties.getTransferLogs();
+        settings.setStartBlock(1);
+        settings.setConfirmations(5);
+        ingester = newIngester();
+
+        lenient().when(walletRepository.streamAllAddresses()).thenAnswer(invocation -> Stream.of(WALLET_A, WALLET_B));
+        lenient().when(service.sendAsync(any(Request.class), any())).thenAnswer(invocation -> {
+            Request<?, ?> request = invocation.getArgument(0);
+            assertEquals("eth_getLogs", request.getMethod());
+            EthFilter filter = (EthFilter) request.getParams().get(0);
+            synchronized (queries) {
+                queries.add(filter);
+            }
+            return CompletableFuture.completedFuture(answer(filter));
+        });
+
+        lenient().when(syncCheckpointRepository.findById(any()))
+                .thenAnswer(invocation -> Optional.ofNullable(checkpoints.get((String) invocation.getArgument(0))));
+        lenient().when(syncCheckpointRepository.save(any())).thenAnswer(invocation -> {
+            SyncCheckpoint checkpoint = invocation.getArgument(0);
+            checkpoints.put(checkpoint.getName(), checkpoint);
+            return checkpoint;
+        });
+        lenient().when(tokenTransferRepository.saveAll(any())).thenAnswer(invocation -> {
+            Iterable<TokenTransfer> rows = invocation.getArgument(0);
+            rows.forEach(tokenTransfers::add);
+            return rows;
+        });
+    }
+
+    // The range starts from the settings at construction
+    private TransferLogIngester newIngester() {
+        return new TransferLogIngester(web3j, headTracker, addressRegistry, syncCheckpointRepository,
+                tokenTransferRepository, new TransactionTemplate(transactionManager), properties);
+    }
+
+    private EthLog answer(EthFilter filter) {
+        long from = ((DefaultBlockParameterNumber) filter.getFromBlock()).getBlockNumber().longValueExact();
+        long to = ((DefaultBlockParameterNumber) filter.getToBlock()).getBlockNumber().longValueExact();
+        EthLog response = new EthLog();
+        if (to - from + 1 > nodeRangeLimit) {
+            response.setError(new Response.Error(-32005, "query returned more than 10000 results"));
+            return response;
+        }
+        List<EthLog.LogResult> matches = new ArrayList<>();
+        for (EthLog.LogObject entry : chainLogs) {
+            long block = entry.getBlockNumber().longValueExact();
+            if (block >= from && block <= to && matches(filter.getTopics(), entry.getTopics())) {
+                matches.add(entry);
+            }
+        }
+        response.setResult(matches);
+        return response;
+    }
+
+    // Positional topic matching: a null topic matches anything, a list matches any of its entries
+    private static boolean matches(List<Filter.FilterTopic> wanted, List<String> topics) {
+        for (int i = 0; i < wanted.size(); i++) {
+            Object value = wanted.get(i).getValue();
+            if (value == null) {
+                continue;
+            }
+            if (i >= topics.size()) {
+                return false;
+            }
+            String topic = topics.get(i);
+            boolean any = value instanceof List<?> list
+                    ? list.stream().anyMatch(option -> topic.equals(((Filter.SingleTopic) option).getValue()))
+                    : value.equals(topic);
+            if (!any) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void transfer(long block, int logIndex, String from, String to, long amount) {
+        emit(block, logIndex, List.of(TransferLogIngester.TRANSFER_TOPIC, TransferLogIngester.topic(from), TransferLogIngester.topic(to)),
+                String.format("0x%064x", amount));
+    }
+
+    private void emit(long block, int logIndex, List<String> topics, String data) {
+        EthLog.LogObject entry = new EthLog.LogObject();
+        entry.setBlockNumber("0x" + Long.toHexString(block));
+        entry.setLogIndex("0x" + Integer.toHexString(logIndex));
+        entry.setTransactionHash("0x" + block + "0" + logIndex);
+        entry.setAddress(TOKEN);
+        entry.setTopics(topics);
+        entry.setData(data);
+        chainLogs.add(entry);
+    }
+
+    private List<String> rows() {
+        return tokenTransfers.stream()
+                .map(t -> t.getBlockNumber() + ":" + t.getLogIndex() + ":" + t.getAddress() + ":" + t.getDirection() + ":" + t.getAmount())
+                .toList();
+    }
+
+    private Long checkpoint() {
+        SyncCheckpoint checkpoint = checkpoints.get(TransferLogIngester.CHECKPOINT);
+        return checkpoint != null ? checkpoint.getBlockNumber() : null;
+    }
+
+    @Test
+    void ingest_recordsTransfersOfManagedWalletsUpToTheConfirmedHead() throws Exception {
+        addressRegistry.loadAll();
+        transfer(2, 0, OUTSIDER, WALLET_A, 500);
+        transfer(3, 1, WALLET_A, WALLET_B, 7);
+        transfer(4, 0, OUTSIDER, STRANGER, 9);
+        // An ERC-721 Transfer: the token id is a fourth topic and there is no data
+        emit(5, 0, List.of(TransferLogIngester.TRANSFER_TOPIC, TransferLogIngester.topic(WALLET_A),
+                TransferLogIngester.topic(OUTSIDER), TransferLogIngester.topic(WALLET_B)), "0x");
+        transfer(17, 0, OUTSIDER, WALLET_B, 1);
+        headTracker.onNewHead(BigInteger.valueOf(20));
+
+        assertEquals(15, ingester.ingest());
+
+        assertEquals(List.of(
+                "2:0:" + WALLET_A + ":IN:500",
+                "3:1:" + WALLET_A + ":OUT:7",
+                "3:1:" + WALLET_B + ":IN:7"), rows());
+        assertEquals(TOKEN, tokenTransfers.get(0).getTokenAddress());
+        assertEquals(OUTSIDER, tokenTransfers.get(0).getCounterparty());
+        assertEquals(15L, checkpoint());
+        // Few wallets: the addresses go in the topic filter, one query for each side
+        assertTrue(queries.stream().allMatch(filter -> filter.getTopics().size() >= 2));
+        assertEquals(Boolean.TRUE, ingester.getStats().get("topicFiltered"));
+    }
+
+    @Test
+    void ingest_matchesLocallyAboveTheTopicFilterLimit() throws Exception {
+        properties.getTransferLogs().setTopicFilterMaxAddresses(1);
+        addressRegistry.loadAll();
+        transfer(2, 0, OUTSIDER, WALLET_A, 500);
+        transfer(3, 0, OUTSIDER, STRANGER, 9);
+        transfer(3, 1, WALLET_A, WALLET_B, 7);
+        headTracker.onNewHead(BigInteger.valueOf(10));
+
+        ingester.ingest();
+
+        assertEquals(List.of(
+                "2:0:" + WALLET_A + ":IN:500",
+                "3:1:" + WALLET_A + ":OUT:7",
+                "3:1:" + WALLET_B + ":IN:7"), rows());
+        assertEquals(1, queries.size());
+        assertEquals(1, queries.get(0).getTopics().size());
+        assertEquals(3L, ingester.getStats().get("logsRead"));
+    }
+
+    @Test
+    void ingest_shrinksTheRangeWhenTheNodeRefusesItAndGrowsItBack() throws Exception {
+        properties.getTransferLogs().setTopicFilterMaxAddresses(0);
+        properties.getTransferLogs().setInitialRange(64);
+        ingester = newIngester();
+        addressRegistry.loadAll();
+        transfer(30, 0, OUTSIDER, WALLET_A, 1);
+        headTracker.onNewHead(BigInteger.valueOf(105));
+        nodeRangeLimit = 10;
+
+        assertEquals(100, ingester.ingest());
+
+        // 64, 32 and 16 are refused; 8 is answered and then doubled to 16, which is refused again
+        List<long[]> spans = queries.stream().map(TransferLogIngesterTest::span).toList();
+        assertArrayEquals(new long[] { 1, 64 }, spans.get(0));
+        assertArrayEquals(new long[] { 1, 8 }, spans.get(3));
+        assertArrayEquals(new long[] { 9, 24 }, spans.get(4));
+        assertEquals(List.of("30:0:" + WALLET_A + ":IN:1"), rows());
+        assertEquals(100L, checkpoint());
+        assertTrue((Long) ingester.getStats().get("rangeReductions") >= 3);
+
+        // Once the node allows it, small responses let the range grow to max-range
+        nodeRangeLimit = Long.MAX_VALUE;
+        properties.getTransferLogs().setMaxRange(64);
+        headTracker.onNewHead(BigInteger.valueOf(1_005));
+        ingester.ingest();
+        assertEquals(64, ingester.getStats().get("range"));
+        assertEquals(1_000L, checkpoint());
+    }
+
+    @Test
+    void ingest_resumesFromThePersistedCheckpoint() throws Exception {
+        checkpoints.put(TransferLogIngester.CHECKPOINT, new SyncCheckpoint(TransferLogIngester.CHECKPOINT, 40L));
+        addressRegistry.loadAll();
+        headTracker.onNewHead(BigInteger.valueOf(50));
+
+        assertEquals(5, ingester.ingest());
+
+        assertArrayEquals(new long[] { 41, 45 }, span(queries.get(0)));
+        assertEquals(0, ingester.ingest());
+    }
+
+    @Test
+    void ingest_leavesTheRangeAloneWhenTheNodeIsUnreachable() throws Exception {
+        addressRegistry.loadAll();
+        headTracker.onNewHead(BigInteger.valueOf(50));
+        when(service.sendAsync(any(Request.class), any()))
+                .thenReturn(CompletableFuture.failedFuture(new ConnectException("Failed to connect")));
+
+        assertThrows(ConnectException.class, () -> ingester.ingest());
+
+        assertEquals(100, ingester.getStats().get("range"));
+        assertEquals(0L, ingester.getStats().get("rangeReductions"));
+        assertNull(checkpoint());
+    }
+
+    @Test
+    void poll_ingestsOffTheCallingThreadAndSkipsWhileARunIsInProgress() throws Exception {
+        // One unfiltered query per range, so a run is one call
+        properties.getTransferLogs().setTopicFilterMaxAddresses(0);
+        addressRegistry.loadAll();
+        headTracker.onNewHead(BigInteger.valueOf(50));
+        AtomicInteger calls = new AtomicInteger();
+        when(service.sendAsync(any(Request.class), any())).thenAnswer(invocation -> {
+            calls.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+
+        try {
+            // The node never answers, yet the scheduler thread is handed back at once
+            assertTimeoutPreemptively(Duration.ofSeconds(5), ingester::poll);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (calls.get() == 0) {
+                assertTrue(System.nanoTime() < deadline, "ingestion never started");
+                Thread.sleep(5);
+            }
+
+            ingester.poll();
+            Thread.sleep(50);
+            assertEquals(1, calls.get());
+        } finally {
+            ingester.stop();
+        }
+    }
+
+    private static long[] span(EthFilter filter) {
+        return new long[] {
+                ((DefaultBlockParameterNumber) filter.getFromBlock()).getBlockNumber().longValueExact(),
+                ((DefaultBlockParameterNumber) filter.getToBlock()).getBlockNumber().longValueExact() };
+    }
+}
@@ -0,0 +1,62 @@
+package com.web3.web3j.service;
+
+import com.web3.web3j.model.HdWalletRoot;
+import com.web3.web3j.model.UserAccount;
+import com.web3.web3j.model.WalletEntity;
+import com.web3.web3j.repository.HdWalletRootRepository;
+import com.web3.web3j.repository.UserAccountRepository;
+import com.web3.web3j.repository.WalletRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs against the in-memory H2 database, so the foreign keys between users, HD roots and wallets are real
+@SpringBootTest
+class UserServiceTest {
+
+    @Autowired
+    UserService userService;
+
+    @Autowired
+    UserAccountRepository userRepository;
+
+    @Autowired
+    HdWalletRootRepository hdRootRepository;
+
+    @Autowired
+    WalletRepository walletRepository;
+
+    @Test
+    void deleteUser_removesHdRootAndAllWallets() {
+        UserAccount user = userService.createUser("hd-owner", "hd-owner@example.com");
+        HdWalletRoot root = hdRootRepository.save(new HdWalletRoot(user, "{}", "0x02", "0x00"));
+
+        WalletEntity derived = new WalletEntity(user, "0x00000000000000000000000000000000000000d1", "derived", null);
+        derived.setHdRoot(root);
+        derived.setDerivationIndex(0);
+        WalletEntity standalone = new WalletEntity(user, "0x00000000000000000000000000000000000000d2", "plain", "{}");
+        Long derivedId = walletRepository.save(derived).getId();
+        Long standaloneId = walletRepository.save(standalone).getId();
+
+        userService.deleteUser(user.getId());
+
+        assertTrue(userRepository.findById(user.getId()).isEmpty());
+        assertTrue(hdRootRepository.findByUserId(user.getId()).isEmpty());
+        assertTrue(walletRepository.findById(derivedId).isEmpty());
+        assertTrue(walletRepository.findById(standaloneId).isEmpty());
+    }
+
+    @Test
+    void deleteUser_withoutHdRootStillWorks() {
+        UserAccount user = userService.createUser("plain-owner", "plain-owner@example.com");
+        Long walletId = walletRepository.save(
+                new WalletEntity(user, "0x00000000000000000000000000000000000000d3", "plain", "{}")).getId();
+
+        userService.deleteUser(user.getId());
+
+        assertTrue(userRepository.findById(user.getId()).isEmpty());
+        assertTrue(walletRepository.findById(walletId).isEmpty());
+    }
+}
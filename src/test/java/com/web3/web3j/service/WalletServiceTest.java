@@ -1,21 +1,33 @@
 package com.web3.web3j.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.web3.web3j.DTO.BulkWalletResult;
+import com.web3.web3j.DTO.CursorPage;
+import com.web3.web3j.DTO.WalletSummary;
+import com.web3.web3j.config.KdfProfile;
+import com.web3.web3j.config.WalletProperties;
+import com.web3.web3j.model.HdWalletRoot;
 import com.web3.web3j.model.UserAccount;
 import com.web3.web3j.model.WalletEntity;
+import com.web3.web3j.repository.HdWalletRootRepository;
 import com.web3.web3j.repository.UserAccountRepository;
 import com.web3.web3j.repository.WalletRepository;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.web3j.crypto.Credentials;
 import org.web3j.crypto.ECKeyPair;
 import org.web3j.crypto.Keys;
 import org.web3j.crypto.Wallet;
 import org.web3j.crypto.WalletFile;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -32,13 +44,29 @@ class WalletServiceTest {
     @Mock
     UserAccountRepository userRepository;
 
+    @Mock
+    HdWalletRootRepository hdRootRepository;
+
+    WalletProperties walletProperties = new WalletProperties();
+
+    KdfExecutor kdfExecutor;
+
+    ManagedAddressRegistry addressRegistry;
+
     WalletService walletService;
 
     ObjectMapper objectMapper = new ObjectMapper();
 
     @BeforeEach
     void setUp() {
-        walletService = new WalletService(walletRepository, userRepository);
+        kdfExecutor = new KdfExecutor(walletProperties);
+        addressRegistry = new ManagedAddressRegistry(walletRepository);
+        walletService = new WalletService(walletRepository, userRepository, hdRootRepository, walletProperties, kdfExecutor, addressRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        kdfExecutor.shutdown();
     }
 
     @Test
@@ -50,7 +78,7 @@ class WalletServiceTest {
 
         WalletEntity w = new WalletEntity(null, wf.getAddress(), "n", keystoreJson);
 
-        when(walletRepository.findById(1L)).thenReturn(Optional.of(w));
+        when(walletRepository.findWithHdRootById(1L)).thenReturn(Optional.of(w));
 
         Optional<Credentials> creds = walletService.loadCredentials(1L, password);
         assertTrue(creds.isPresent());
@@ -66,7 +94,7 @@ class WalletServiceTest {
 
         WalletEntity w = new WalletEntity(null, wf.getAddress(), "n", keystoreJson);
 
-        when(walletRepository.findById(2L)).thenReturn(Optional.of(w));
+        when(walletRepository.findWithHdRootById(2L)).thenReturn(Optional.of(w));
 
         Optional<org.web3j.crypto.Credentials> creds = walletService.loadCredentials(2L, "wrong");
         assertFalse(creds.isPresent());
@@ -84,28 +112,158 @@ class WalletServiceTest {
         assertNotNull(created.getKeystoreJson());
         assertTrue(created.getAddress().startsWith("0x") || created.getAddress().startsWith("0X"));
         verify(walletRepository, times(1)).save(any(WalletEntity.class));
+        assertTrue(addressRegistry.contains(created.getAddress()));
+    }
+
+    @Test
+    void deleteWallet_stopsWatchingTheAddress() {
+        String address = "0x00000000000000000000000000000000000000a1";
+        addressRegistry.add(address);
+        when(walletRepository.findAddressById(5L)).thenReturn(Optional.of(address));
+
+        walletService.deleteWallet(5L);
+
+        verify(walletRepository).deleteById(5L);
+        assertFalse(addressRegistry.contains(address));
+    }
+
+    @Test
+    void createWalletForUser_usesConfiguredKdfProfileAndDecryptsToSameAddress() throws Exception {
+        walletProperties.getKdf().setProfile(KdfProfile.LIGHT);
+        UserAccount user = new UserAccount("u", "u@example.com");
+        when(userRepository.findById(11L)).thenReturn(Optional.of(user));
+        when(walletRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        WalletEntity created = walletService.createWalletForUser(11L, "p123", "light");
+
+        assertEquals("light", created.getKdfProfile());
+        WalletFile wf = objectMapper.readValue(created.getKeystoreJson(), WalletFile.class);
+        WalletFile.ScryptKdfParams params = (WalletFile.ScryptKdfParams) wf.getCrypto().getKdfparams();
+        assertEquals(KdfProfile.LIGHT.getN(), params.getN());
+        assertEquals(KdfProfile.LIGHT.getP(), params.getP());
+        assertEquals(created.getAddress(), Credentials.create(Wallet.decrypt("p123", wf)).getAddress());
+    }
+
+    @Test
+    void createWalletsForUser_generatesInParallelAndSavesInBatches() throws Exception {
+        walletProperties.getKdf().setProfile(KdfProfile.LIGHT);
+        walletProperties.getBulk().setInsertBatchSize(2);
+        UserAccount user = new UserAccount("bulk", "bulk@example.com");
+        when(userRepository.findById(30L)).thenReturn(Optional.of(user));
+        when(walletRepository.saveAll(any())).thenAnswer(invocation -> new ArrayList<>(invocation.<List<WalletEntity>>getArgument(0)));
+
+        List<BulkWalletResult> results = walletService.createWalletsForUser(30L, "bulkpass", Arrays.asList("a", "b", null, "d", "e"));
+
+        assertEquals(5, results.size());
+        assertTrue(results.stream().allMatch(r -> r.getStatus() == BulkWalletResult.Status.CREATED));
+        assertEquals("a", results.get(0).getWalletName());
+        assertEquals(5, results.stream().map(BulkWalletResult::getAddress).distinct().count());
+        verify(walletRepository, times(3)).saveAll(any());
+    }
+
+    @Test
+    void createWalletsForUser_reportsFailedBatchPerItem() throws Exception {
+        walletProperties.getKdf().setProfile(KdfProfile.LIGHT);
+        walletProperties.getBulk().setInsertBatchSize(2);
+        when(userRepository.findById(31L)).thenReturn(Optional.of(new UserAccount("b2", "b2@example.com")));
+        when(walletRepository.saveAll(any()))
+                .thenAnswer(invocation -> new ArrayList<>(invocation.<List<WalletEntity>>getArgument(0)))
+                .thenThrow(new RuntimeException("duplicate key"));
+
+        List<BulkWalletResult> results = walletService.createWalletsForUser(31L, "p", Arrays.asList("a", "b", "c"));
+
+        assertEquals(BulkWalletResult.Status.CREATED, results.get(0).getStatus());
+        assertEquals(BulkWalletResult.Status.CREATED, results.get(1).getStatus());
+        assertEquals(BulkWalletResult.Status.FAILED, results.get(2).getStatus());
+        assertTrue(results.get(2).getError().contains("duplicate key"));
+    }
+
+    @Test
+    void hdWallets_deriveDistinctAddressesWithoutPasswordAndUnlockThroughRoot() throws Exception {
+        walletProperties.getKdf().setProfile(KdfProfile.LIGHT);
+        UserAccount user = new UserAccount("hd", "hd@example.com");
+        when(userRepository.findById(20L)).thenReturn(Optional.of(user));
+        when(hdRootRepository.findByUserId(20L)).thenReturn(Optional.empty());
+        when(hdRootRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(walletRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        HdWalletRoot root = walletService.createHdRoot(20L, "seedpass");
+        when(hdRootRepository.findByUserIdForUpdate(20L)).thenReturn(Optional.of(root));
+
+        WalletEntity first = walletService.createHdWalletForUser(20L, "deposit-0");
+        WalletEntity second = walletService.createHdWalletForUser(20L, "deposit-1");
+
+        assertEquals(0, first.getDerivationIndex());
+        assertEquals(1, second.getDerivationIndex());
+        assertEquals(2, root.getNextIndex());
+        assertNull(first.getKeystoreJson());
+        assertNotEquals(first.getAddress(), second.getAddress());
+
+        // The private key derived from the decrypted root must match the publicly derived address
+        when(walletRepository.findWithHdRootById(21L)).thenReturn(Optional.of(second));
+        Optional<Credentials> creds = walletService.loadCredentials(21L, "seedpass");
+        assertTrue(creds.isPresent());
+        assertEquals(second.getAddress(), creds.get().getAddress());
+        assertTrue(walletService.loadCredentials(21L, "wrong").isEmpty());
     }
 
     @Test
-    void getWalletsForUser_delegatesToRepository() {
-        WalletEntity w = new WalletEntity(null, "0x1", "n", "{}");
-        when(walletRepository.findAllByUserIdOrderByCreatedAtDesc(5L)).thenReturn(List.of(w));
+    void createHdRoot_rejectsSecondRootForUser() {
+        when(userRepository.findById(22L)).thenReturn(Optional.of(new UserAccount("x", "x@example.com")));
+        when(hdRootRepository.findByUserId(22L)).thenReturn(Optional.of(new HdWalletRoot()));
+        assertThrows(IllegalArgumentException.class, () -> walletService.createHdRoot(22L, "p"));
+    }
 
-        List<WalletEntity> list = walletService.getWalletsForUser(5L);
+    @Test
+    void getWalletsForUser_returnsSummariesWithoutLoadingEntities() {
+        WalletSummary w = new WalletSummary(1L, "0x1", "n", null, "standard", Instant.now());
+        when(walletRepository.findSummariesByUserId(5L)).thenReturn(List.of(w));
+
+        List<WalletSummary> list = walletService.getWalletsForUser(5L);
         assertEquals(1, list.size());
         assertSame(w, list.get(0));
+        verify(walletRepository, never()).findWithHdRootById(any());
     }
 
     @Test
-    void updateWalletName_updatesAndSaves() {
-        WalletEntity w = new WalletEntity(null, "0x1", "old", "{}");
-        when(walletRepository.findById(7L)).thenReturn(Optional.of(w));
-        when(walletRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    void getWalletsPage_returnsCursorThatResumesAfterLastRow() {
+        Instant t = Instant.parse("2025-01-01T00:00:00Z");
+        WalletSummary a = new WalletSummary(3L, "0x3", "a", null, null, t);
+        WalletSummary b = new WalletSummary(2L, "0x2", "b", null, null, t);
+        WalletSummary c = new WalletSummary(1L, "0x1", "c", null, null, t.minusSeconds(1));
+        when(walletRepository.findSummaryPage(5L, Limit.of(3))).thenReturn(List.of(a, b, c));
+        when(walletRepository.findSummaryPageAfter(5L, t, 2L, Limit.of(3))).thenReturn(List.of(c));
 
-        Optional<WalletEntity> opt = walletService.updateWalletName(7L, "newName");
+        CursorPage<WalletSummary> first = walletService.getWalletsPage(5L, null, 2);
+        assertEquals(List.of(a, b), first.getItems());
+        assertNotNull(first.getNextCursor());
+
+        CursorPage<WalletSummary> second = walletService.getWalletsPage(5L, first.getNextCursor(), 2);
+        assertEquals(List.of(c), second.getItems());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void getWalletsPage_rejectsMalformedCursor() {
+        assertThrows(IllegalArgumentException.class, () -> walletService.getWalletsPage(5L, "not-a-cursor", 10));
+    }
+
+    @Test
+    void updateWalletName_updatesInPlaceAndReturnsSummary() {
+        WalletSummary w = new WalletSummary(7L, "0x1", "newName", null, null, Instant.now());
+        when(walletRepository.updateWalletName(7L, "newName")).thenReturn(1);
+        when(walletRepository.findSummaryById(7L)).thenReturn(Optional.of(w));
+
+        Optional<WalletSummary> opt = walletService.updateWalletName(7L, "newName");
         assertTrue(opt.isPresent());
         assertEquals("newName", opt.get().getWalletName());
-        verify(walletRepository).save(w);
+        verify(walletRepository, never()).save(any());
+    }
+
+    @Test
+    void updateWalletName_returnsEmpty_whenWalletMissing() {
+        when(walletRepository.updateWalletName(9L, "x")).thenReturn(0);
+        assertTrue(walletService.updateWalletName(9L, "x").isEmpty());
     }
 
     @Test
@@ -117,11 +275,18 @@ class WalletServiceTest {
 
     @Test
     void getWalletByAddress_returnsRepoOptional() {
-        WalletEntity w = new WalletEntity(null, "0xabc", "n", "{}");
-        when(walletRepository.findByAddress("0xabc")).thenReturn(Optional.of(w));
+        WalletSummary w = new WalletSummary(3L, "0xabc", "n", null, null, Instant.now());
+        when(walletRepository.findSummaryByAddress("0xabc")).thenReturn(Optional.of(w));
 
-        Optional<WalletEntity> opt = walletService.getWalletByAddress("0xabc");
+        Optional<WalletSummary> opt = walletService.getWalletByAddress("0xabc");
         assertTrue(opt.isPresent());
         assertSame(w, opt.get());
     }
+
+    @Test
+    void walletJson_neverContainsKeystore() throws Exception {
+        WalletEntity w = new WalletEntity(null, "0xabc", "n", "{\"secret\":1}");
+        String json = new ObjectMapper().findAndRegisterModules().writeValueAsString(w);
+        assertFalse(json.contains("keystoreJson"));
+    }
 }
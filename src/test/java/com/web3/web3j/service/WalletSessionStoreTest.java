@@ -0,0 +1,83 @@
+package com.web3.web3j.service;
+
+import com.web3.web3j.config.WalletProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.web3j.crypto.Credentials;
+import org.web3j.crypto.Keys;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WalletSessionStoreTest {
+
+    WalletProperties properties = new WalletProperties();
+
+    WalletSessionStore store;
+
+    Credentials credentials;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        store = new WalletSessionStore(properties);
+        credentials = Credentials.create(Keys.createEcKeyPair());
+    }
+
+    @Test
+    void resolve_returnsSameKeyForOwningWallet() {
+        WalletSessionStore.UnlockedSession session = store.open(1L, credentials);
+
+        Optional<Credentials> resolved = store.resolve(session.getToken(), 1L);
+        assertTrue(resolved.isPresent());
+        assertEquals(credentials.getAddress(), resolved.get().getAddress());
+        assertEquals(credentials.getEcKeyPair().getPrivateKey(), resolved.get().getEcKeyPair().getPrivateKey());
+    }
+
+    @Test
+    void resolve_rejectsOtherWalletAndUnknownToken() {
+        WalletSessionStore.UnlockedSession session = store.open(1L, credentials);
+
+        assertTrue(store.resolve(session.getToken(), 2L).isEmpty());
+        assertTrue(store.resolve("nope", 1L).isEmpty());
+    }
+
+    @Test
+    void resolve_rejectsExpiredSession() {
+        properties.getSession().setTtlSeconds(0);
+        WalletSessionStore.UnlockedSession session = store.open(1L, credentials);
+
+        assertTrue(store.resolve(session.getToken(), 1L).isEmpty());
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void open_evictsOldestBeyondMaxSessions() {
+        properties.getSession().setMaxSessions(2);
+        WalletSessionStore.UnlockedSession first = store.open(1L, credentials);
+        WalletSessionStore.UnlockedSession second = store.open(2L, credentials);
+        WalletSessionStore.UnlockedSession third = store.open(3L, credentials);
+
+        assertEquals(2, store.size());
+        assertTrue(store.resolve(first.getToken(), 1L).isEmpty());
+        assertTrue(store.resolve(second.getToken(), 2L).isPresent());
+        assertTrue(store.resolve(third.getToken(), 3L).isPresent());
+    }
+
+    @Test
+    void close_removesSession() {
+        WalletSessionStore.UnlockedSession session = store.open(1L, credentials);
+
+        assertTrue(store.close(session.getToken()));
+        assertFalse(store.close(session.getToken()));
+        assertTrue(store.resolve(session.getToken(), 1L).isEmpty());
+    }
+
+    @Test
+    void purgeExpired_dropsExpiredSessions() {
+        properties.getSession().setTtlSeconds(0);
+        store.open(1L, credentials);
+        store.purgeExpired();
+        assertEquals(0, store.size());
+    }
+}